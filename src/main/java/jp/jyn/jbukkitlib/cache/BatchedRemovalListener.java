@@ -0,0 +1,77 @@
+package jp.jyn.jbukkitlib.cache;
+
+import jp.jyn.jbukkitlib.util.PackagePrivate;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Removal listener that delivers notifications in batch on the executor.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+@PackagePrivate
+class BatchedRemovalListener<K, V> implements RemovalListener<K, V> {
+    private final RemovalListener<K, V> listener;
+    private final Executor executor;
+    private final Queue<Notification<K, V>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    @PackagePrivate
+    BatchedRemovalListener(RemovalListener<K, V> listener, Executor executor) {
+        this.listener = Objects.requireNonNull(listener);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public void onRemoval(K key, V value, RemovalCause cause) {
+        queue.add(new Notification<>(key, value, cause));
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) { // RejectedExecutionException
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        Notification<K, V> n;
+        while ((n = queue.poll()) != null) {
+            try {
+                listener.onRemoval(n.key, n.value, n.cause);
+            } catch (RuntimeException e) {
+                // Don't stop delivering the remaining notifications.
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+
+        scheduled.set(false);
+        // Notification added after poll() returned null.
+        if (!queue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private final static class Notification<K, V> {
+        private final K key;
+        private final V value;
+        private final RemovalCause cause;
+
+        private Notification(K key, V value, RemovalCause cause) {
+            this.key = key;
+            this.value = value;
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * <p>Loader that coalesces the single loads into batches.</p>
+ * <p>The keys requested within the window (or until the batch is full) are loaded at once by the batch loader,
+ * and the results are fanned back out to the individual futures.
+ * For example, it merges many single-name lookups into one API call that accepts multiple names.</p>
+ * <pre>
+ * {@code
+ * BatchingLoader<String, UUID> batcher = new BatchingLoader<>(names -> api.lookup(names), 100, 50, TimeUnit.MILLISECONDS, executor);
+ * cache.getAsync("name", batcher::load);
+ * }
+ * </pre>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class BatchingLoader<K, V> {
+    private final Function<? super Set<K>, ? extends Map<K, V>> batchLoader;
+    private final int maxBatchSize;
+    private final Executor executor;
+    private final Executor delayed;
+
+    private final Object lock = new Object();
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+
+    /**
+     * Create batching loader.
+     *
+     * @param batchLoader  Loader to load multiple values at once. Keys not in the returned map are treated as null.
+     * @param maxBatchSize Maximum number of keys per batch, the batch is loaded immediately when it is full.
+     * @param window       Time to wait for other keys after the first key of the batch.
+     * @param unit         Unit of window
+     * @param executor     Executor to run the batch loader.
+     */
+    public BatchingLoader(Function<? super Set<K>, ? extends Map<K, V>> batchLoader, int maxBatchSize,
+                          long window, TimeUnit unit, Executor executor) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be greater than 0");
+        }
+        this.batchLoader = Objects.requireNonNull(batchLoader);
+        this.maxBatchSize = maxBatchSize;
+        this.executor = Objects.requireNonNull(executor);
+        this.delayed = CompletableFuture.delayedExecutor(window, unit, executor);
+    }
+
+    /**
+     * Load the value with the next batch.
+     *
+     * @param key key
+     * @return {@link CompletableFuture}, completed with null if the batch loader did not return the key.
+     */
+    public CompletableFuture<V> load(K key) {
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        synchronized (lock) {
+            future = pending.get(key);
+            if (future != null) {
+                return future;
+            }
+
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+            if (pending.size() >= maxBatchSize) {
+                full = swap();
+            } else if (pending.size() == 1) {
+                // The first key of the batch.
+                Map<K, CompletableFuture<V>> batch = pending;
+                delayed.execute(() -> flushWindow(batch));
+            }
+        }
+
+        if (full != null) {
+            execute(full);
+        }
+        return future;
+    }
+
+    /**
+     * Load the pending keys immediately without waiting for the window.
+     */
+    public void flush() {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = swap();
+        }
+        execute(batch);
+    }
+
+    private void flushWindow(Map<K, CompletableFuture<V>> batch) {
+        synchronized (lock) {
+            // It may have already been loaded because it was full.
+            if (pending != batch) {
+                return;
+            }
+            swap();
+        }
+        load(batch);
+    }
+
+    private Map<K, CompletableFuture<V>> swap() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void execute(Map<K, CompletableFuture<V>> batch) {
+        try {
+            executor.execute(() -> load(batch));
+        } catch (RuntimeException e) { // RejectedExecutionException
+            batch.values().forEach(f -> f.completeExceptionally(e));
+        }
+    }
+
+    private void load(Map<K, CompletableFuture<V>> batch) {
+        try {
+            Map<K, V> result = batchLoader.apply(Collections.unmodifiableSet(batch.keySet()));
+            for (Map.Entry<K, CompletableFuture<V>> entry : batch.entrySet()) {
+                entry.getValue().complete(result == null ? null : result.get(entry.getKey()));
+            }
+        } catch (RuntimeException | Error e) {
+            batch.values().forEach(f -> f.completeExceptionally(e));
+        }
+    }
+}
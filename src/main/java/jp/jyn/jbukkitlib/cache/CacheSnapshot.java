@@ -0,0 +1,243 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Save the cache contents to a file and restore them, to avoid starting with a cold cache after restart.</p>
+ * <p>Entries are saved from the most recently used, when the map keeps the access order
+ * (e.g. {@link LRUMap}, {@link WeightedLRUMap}), and restored from the least recently used.
+ * Therefore, the recency order is kept after restore, and the limit keeps the hottest entries.</p>
+ * <p>{@link StripedMap} (e.g. {@link ConcurrentLRUMap}) keeps the access order per segment only.
+ * The segments are merged by the relative position in each segment, it is an approximation of the global order
+ * (like the eviction of {@link ConcurrentLRUMap}). The order in each segment is kept after restore,
+ * and the limit keeps the hottest entries of each segment.</p>
+ * <pre>
+ * {@code
+ * // onDisable
+ * CacheSnapshot.save(cache, file, Serializer.uuid(), Serializer.string(), 1000);
+ * // onEnable
+ * CacheSnapshot.restoreAsync(cache, file, Serializer.uuid(), Serializer.string(), executor);
+ * }
+ * </pre>
+ * <p>File: {@code [magic (int)][count (int)]} and {@code [key length (int)][key][value length (int)][value]} for each entry.</p>
+ */
+public class CacheSnapshot {
+    private final static int MAGIC = 0x4A42_4353; // "JBCS"
+
+    private CacheSnapshot() {}
+
+    /**
+     * Save the entries to the file.
+     *
+     * @param map             Map to save
+     * @param file            File
+     * @param keySerializer   Key serializer
+     * @param valueSerializer Value serializer
+     * @param limit           Maximum number of entries to save, the most recently used entries are saved.
+     * @param <K>             Key type
+     * @param <V>             Value type
+     * @return Number of saved entries
+     * @throws UncheckedIOException If failed to write the file.
+     */
+    public static <K, V> int save(Map<K, V> map, Path file,
+                                  Serializer<? super K> keySerializer, Serializer<? super V> valueSerializer,
+                                  int limit) throws UncheckedIOException {
+        List<Map.Entry<K, V>> entries = map instanceof StripedMap<K, V> striped ? entries(striped) : entries(map);
+        int count = Math.min(limit, entries.size());
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(count);
+                for (int i = entries.size() - 1; i >= entries.size() - count; i--) {
+                    Map.Entry<K, V> entry = entries.get(i);
+                    write(out, keySerializer.serialize(entry.getKey()));
+                    write(out, valueSerializer.serialize(entry.getValue()));
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignore) {
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Save all entries to the file.
+     *
+     * @param map             Map to save
+     * @param file            File
+     * @param keySerializer   Key serializer
+     * @param valueSerializer Value serializer
+     * @param <K>             Key type
+     * @param <V>             Value type
+     * @return Number of saved entries
+     * @throws UncheckedIOException If failed to write the file.
+     */
+    public static <K, V> int save(Map<K, V> map, Path file,
+                                  Serializer<? super K> keySerializer,
+                                  Serializer<? super V> valueSerializer) throws UncheckedIOException {
+        return save(map, file, keySerializer, valueSerializer, Integer.MAX_VALUE);
+    }
+
+    // Iteration order of the access ordered map is from the least recently used.
+    private static <K, V> List<Map.Entry<K, V>> entries(Map<K, V> map) {
+        List<Map.Entry<K, V>> entries = new ArrayList<>(map.size());
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+            }
+        }
+        return entries;
+    }
+
+    // Merge the segments from the least recently used, by the relative position in the segment.
+    private static <K, V> List<Map.Entry<K, V>> entries(StripedMap<K, V> map) {
+        Map<K, V>[] segments = map.segments();
+        PriorityQueue<Cursor<K, V>> queue = new PriorityQueue<>(segments.length);
+        int size = 0;
+        for (Map<K, V> segment : segments) {
+            List<Map.Entry<K, V>> entries;
+            synchronized (segment) {
+                entries = entries(segment);
+            }
+            if (!entries.isEmpty()) {
+                queue.add(new Cursor<>(entries));
+                size += entries.size();
+            }
+        }
+
+        List<Map.Entry<K, V>> merged = new ArrayList<>(size);
+        while (!queue.isEmpty()) {
+            Cursor<K, V> cursor = queue.poll();
+            merged.add(cursor.entries.get(cursor.index++));
+            if (cursor.index < cursor.entries.size()) {
+                queue.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private final static class Cursor<K, V> implements Comparable<Cursor<K, V>> {
+        private final List<Map.Entry<K, V>> entries;
+        private int index = 0;
+
+        private Cursor(List<Map.Entry<K, V>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public int compareTo(Cursor<K, V> o) {
+            // (index + 1) / size, compare without division.
+            return Long.compare((long) (index + 1) * o.entries.size(), (long) (o.index + 1) * entries.size());
+        }
+    }
+
+    private static void write(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * <p>Restore the entries from the file.</p>
+     * <p>The existing entries in the map are not overwritten, they are newer than the file.
+     * Nothing is done if the file does not exist.</p>
+     *
+     * @param map             Map to restore
+     * @param file            File
+     * @param keySerializer   Key serializer
+     * @param valueSerializer Value serializer
+     * @param <K>             Key type
+     * @param <V>             Value type
+     * @return Number of entries in the file
+     * @throws UncheckedIOException If failed to read the file, or the file is broken.
+     */
+    public static <K, V> int restore(Map<K, V> map, Path file,
+                                     Serializer<? extends K> keySerializer,
+                                     Serializer<? extends V> valueSerializer) throws UncheckedIOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        List<K> keys;
+        List<V> values;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Invalid file: " + file);
+            }
+
+            int count = in.readInt();
+            keys = new ArrayList<>(Math.min(count, 1024));
+            values = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                keys.add(keySerializer.deserialize(read(in)));
+                values.add(valueSerializer.deserialize(read(in)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // The file is in order from the most recently used.
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            map.putIfAbsent(keys.get(i), values.get(i));
+        }
+        return keys.size();
+    }
+
+    private static ByteBuffer read(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Broken file");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * <p>Restore the entries from the file with executor.</p>
+     * <p>Note: The map must be thread-safe. If the cache must be warm before serving, wait for the returned future.</p>
+     *
+     * @param map             Map to restore
+     * @param file            File
+     * @param keySerializer   Key serializer
+     * @param valueSerializer Value serializer
+     * @param executor        Executor
+     * @param <K>             Key type
+     * @param <V>             Value type
+     * @return Number of entries in the file
+     */
+    public static <K, V> CompletableFuture<Integer> restoreAsync(Map<K, V> map, Path file,
+                                                                 Serializer<? extends K> keySerializer,
+                                                                 Serializer<? extends V> valueSerializer,
+                                                                 Executor executor) {
+        return CompletableFuture.supplyAsync(() -> restore(map, file, keySerializer, valueSerializer), executor);
+    }
+}
@@ -0,0 +1,203 @@
+package jp.jyn.jbukkitlib.cache;
+
+import jp.jyn.jbukkitlib.util.PackagePrivate;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of cache statistics.
+ */
+public class CacheStats {
+    @PackagePrivate
+    final static int HISTOGRAM_SIZE = Long.SIZE;
+
+    private final long hitCount;
+    private final long missCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long evictionCount;
+    private final long size;
+    private final long[] loadLatency;
+
+    /**
+     * Create snapshot.
+     *
+     * @param hitCount         number of hits
+     * @param missCount        number of misses
+     * @param loadSuccessCount number of successful loads
+     * @param loadFailureCount number of failed loads
+     * @param totalLoadTime    total load time in nanoseconds
+     * @param evictionCount    number of evictions
+     * @param size             current number of entries
+     * @param loadLatency      load latency histogram, see {@link #loadLatencyHistogram()}
+     */
+    public CacheStats(long hitCount, long missCount,
+                      long loadSuccessCount, long loadFailureCount, long totalLoadTime,
+                      long evictionCount, long size, long[] loadLatency) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+        this.size = size;
+        this.loadLatency = Arrays.copyOf(loadLatency, HISTOGRAM_SIZE);
+    }
+
+    @PackagePrivate
+    static int histogramIndex(long nanos) {
+        return nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * Empty statistics.
+     *
+     * @return all zero statistics
+     */
+    public static CacheStats empty() {
+        return new CacheStats(0, 0, 0, 0, 0, 0, 0, new long[HISTOGRAM_SIZE]);
+    }
+
+    /**
+     * Sum of this and other statistics.
+     *
+     * @param other other statistics
+     * @return sum
+     */
+    public CacheStats plus(CacheStats other) {
+        long[] histogram = new long[HISTOGRAM_SIZE];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = loadLatency[i] + other.loadLatency[i];
+        }
+
+        return new CacheStats(
+            hitCount + other.hitCount, missCount + other.missCount,
+            loadSuccessCount + other.loadSuccessCount, loadFailureCount + other.loadFailureCount,
+            totalLoadTime + other.totalLoadTime,
+            evictionCount + other.evictionCount, size + other.size, histogram
+        );
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Ratio of hits to requests.
+     *
+     * @return hit rate (0.0 - 1.0), 1.0 if there is no request.
+     */
+    public double hitRate() {
+        long request = requestCount();
+        return request == 0 ? 1.0 : (double) hitCount / request;
+    }
+
+    public long loadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long loadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public long loadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    /**
+     * Total load time in nanoseconds.
+     *
+     * @return total load time
+     */
+    public long totalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * Average load time in nanoseconds.
+     *
+     * @return average load time, 0.0 if there is no load.
+     */
+    public double averageLoadPenalty() {
+        long load = loadCount();
+        return load == 0 ? 0.0 : (double) totalLoadTime / load;
+    }
+
+    /**
+     * <p>Number of evicted entries.</p>
+     * <p>Note: The evictions are counted by the removal listener of the cache ({@link RemovalCause#wasEvicted()}),
+     * so they are 0 if the cache is created without the listener, see {@link StatsFactory#withListener(java.util.function.Function)}.</p>
+     *
+     * @return number of evictions
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Number of entries when the snapshot was taken.
+     *
+     * @return size
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Load latency histogram. index {@code i} is the number of loads that took {@code [2^i, 2^(i+1))} nanoseconds.
+     *
+     * @return histogram (copy)
+     */
+    public long[] loadLatencyHistogram() {
+        return loadLatency.clone();
+    }
+
+    /**
+     * Approximate percentile of load latency.
+     *
+     * @param percentile percentile (0.0 - 1.0)
+     * @return upper bound of the histogram bucket in nanoseconds, 0 if there is no load.
+     */
+    public long loadLatencyPercentile(double percentile) {
+        long total = 0;
+        for (long count : loadLatency) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(total * Math.min(1.0, Math.max(0.0, percentile)));
+        long count = 0;
+        for (int i = 0; i < loadLatency.length; i++) {
+            count += loadLatency[i];
+            if (count >= target && count != 0) {
+                return i >= 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+            "hitCount=" + hitCount +
+            ", missCount=" + missCount +
+            ", hitRate=" + String.format("%.2f%%", hitRate() * 100) +
+            ", loadSuccessCount=" + loadSuccessCount +
+            ", loadFailureCount=" + loadFailureCount +
+            ", averageLoadPenalty=" + String.format("%.3fms", averageLoadPenalty() / 1_000_000) +
+            ", evictionCount=" + evictionCount +
+            ", size=" + size +
+            '}';
+    }
+}
@@ -0,0 +1,84 @@
+package jp.jyn.jbukkitlib.cache;
+
+/**
+ * <p>Thread-safe W-TinyLFU Map</p>
+ * <p>The map is split into multiple {@link TinyLFUMap} segments, each guarded by its own lock (lock striping).
+ * The frequency is estimated per segment.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class ConcurrentTinyLFUMap<K, V> extends StripedMap<K, V> implements Resizable {
+    private volatile int maxSize;
+
+    /**
+     * Create thread-safe W-TinyLFU map with removal listener.
+     *
+     * @param maxSize  Maximum number of entries
+     * @param stripes  Number of segments, rounded up to a power of 2. It is limited to maxSize.
+     * @param listener Removal listener, nullable. It is called while holding the lock of the segment.
+     */
+    public ConcurrentTinyLFUMap(int maxSize, int stripes, RemovalListener<? super K, ? super V> listener) {
+        // Each segment holds at least one entry, more segments than maxSize exceed it.
+        super(limitStripes(stripes, maxSize), i -> new TinyLFUMap<>(segmentCapacity(maxSize, limitStripes(stripes, maxSize), i), listener));
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Create thread-safe W-TinyLFU map.
+     *
+     * @param maxSize Maximum number of entries
+     * @param stripes Number of segments, rounded up to a power of 2. It is limited to maxSize.
+     */
+    public ConcurrentTinyLFUMap(int maxSize, int stripes) {
+        this(maxSize, stripes, null);
+    }
+
+    /**
+     * Create thread-safe W-TinyLFU map with default number of segments.
+     *
+     * @param maxSize Maximum number of entries
+     */
+    public ConcurrentTinyLFUMap(int maxSize) {
+        this(maxSize, StripedMap.defaultStripes(maxSize));
+    }
+
+    /**
+     * Get maximum number of entries.
+     *
+     * @return maximum size
+     */
+    public int getMaximumSize() {
+        return maxSize;
+    }
+
+    /**
+     * Change maximum number of entries. The exceeding entries are evicted by {@link #trim(int)}.
+     *
+     * @param maxSize Maximum number of entries
+     * @throws IllegalArgumentException If maxSize is less than the number of segments.
+     */
+    public void setMaximumSize(int maxSize) {
+        int stripes = segments().length;
+        if (maxSize < stripes) {
+            throw new IllegalArgumentException("maxSize must be greater than or equal to the number of segments (" + stripes + ")");
+        }
+        setSegmentMaximum(i -> segmentCapacity(maxSize, stripes, i));
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public long getMaximum() {
+        return maxSize;
+    }
+
+    @Override
+    public void setMaximum(long maximum) {
+        setMaximumSize((int) Math.min(maximum, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public int trim(int limit) {
+        return trimSegments(limit);
+    }
+}
@@ -0,0 +1,125 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.Map;
+
+/**
+ * <p>Thread-safe weight-bounded LRU Map</p>
+ * <p>The map is split into multiple {@link WeightedLRUMap} segments, each guarded by its own lock (lock striping).
+ * The maximum weight is divided equally among the segments, so the weight of a single entry is limited to
+ * {@link #getMaximumEntryWeight()}. A heavier entry is not stored, see {@link WeightedLRUMap}.
+ * To cache large values (e.g. configuration files), use a small number of segments.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class ConcurrentWeightedLRUMap<K, V> extends StripedMap<K, V> implements Resizable {
+    /**
+     * Default number of segments. It is small, because the weight of a single entry is limited to the weight of a segment.
+     */
+    public final static int DEFAULT_STRIPES = 4;
+
+    private volatile long maxWeight;
+
+    /**
+     * Create thread-safe weight-bounded LRU map.
+     *
+     * @param maxWeight Maximum total weight
+     * @param weigher   Weigher
+     * @param stripes   Number of segments, rounded up to a power of 2.
+     */
+    public ConcurrentWeightedLRUMap(long maxWeight, Weigher<? super K, ? super V> weigher, int stripes) {
+        this(maxWeight, weigher, stripes, null);
+    }
+
+    /**
+     * Create thread-safe weight-bounded LRU map with removal listener.
+     *
+     * @param maxWeight Maximum total weight
+     * @param weigher   Weigher
+     * @param stripes   Number of segments, rounded up to a power of 2.
+     * @param listener  Removal listener, nullable. It is called while holding the lock of the segment.
+     */
+    public ConcurrentWeightedLRUMap(long maxWeight, Weigher<? super K, ? super V> weigher, int stripes,
+                                    RemovalListener<? super K, ? super V> listener) {
+        super(stripes, i -> new WeightedLRUMap<>(segmentWeight(maxWeight, stripes, i), weigher, listener));
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Create thread-safe weight-bounded LRU map with {@link #DEFAULT_STRIPES} segments.
+     *
+     * @param maxWeight Maximum total weight
+     * @param weigher   Weigher
+     */
+    public ConcurrentWeightedLRUMap(long maxWeight, Weigher<? super K, ? super V> weigher) {
+        this(maxWeight, weigher, DEFAULT_STRIPES);
+    }
+
+    private static long segmentWeight(long maxWeight, int stripes, int index) {
+        int n = roundStripes(stripes);
+        return maxWeight / n + (index < maxWeight % n ? 1 : 0);
+    }
+
+    /**
+     * Get maximum total weight.
+     *
+     * @return maximum weight
+     */
+    public long getMaximumWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Change maximum total weight. The exceeding entries are evicted by {@link #trim(int)}.
+     *
+     * @param maxWeight Maximum total weight
+     */
+    public void setMaximumWeight(long maxWeight) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("maxWeight must be 0 or greater");
+        }
+        int stripes = segments().length;
+        setSegmentMaximum(i -> segmentWeight(maxWeight, stripes, i));
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Get maximum weight of a single entry, that is, the maximum weight of the smallest segment.
+     *
+     * @return maximum entry weight
+     */
+    public long getMaximumEntryWeight() {
+        Map<K, V>[] segments = segments();
+        return segmentWeight(maxWeight, segments.length, segments.length - 1);
+    }
+
+    @Override
+    public long getMaximum() {
+        return maxWeight;
+    }
+
+    @Override
+    public void setMaximum(long maximum) {
+        setMaximumWeight(maximum);
+    }
+
+    @Override
+    public int trim(int limit) {
+        return trimSegments(limit);
+    }
+
+    /**
+     * Get current total weight.
+     *
+     * @return total weight
+     */
+    public long weightedSize() {
+        long size = 0;
+        for (Map<K, V> segment : segments()) {
+            synchronized (segment) {
+                size += ((WeightedLRUMap<K, V>) segment).weightedSize();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,169 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * <p>Time-based expiring cache, see {@link ExpiringMap}</p>
+ * <pre>
+ * {@code
+ * // Negative cache (Optional.empty()) expires in 5 minutes, other entries expire in 1 hour.
+ * CacheFactory factory = ExpiringFactory.builder()
+ *     .maximumSize(10000)
+ *     .expireAfterWrite(Duration.ofHours(1))
+ *     .negativeExpire(Duration.ofMinutes(5))
+ *     .build();
+ * UUIDRegistry registry = new UUIDRegistry(plugin, factory);
+ * }
+ * </pre>
+ */
+public class ExpiringFactory implements CacheFactory {
+    private final int maxSize;
+    private final long expireAfterWrite;
+    private final long expireAfterAccess;
+    private final long negativeExpire;
+    private final Predicate<Object> negative;
+    private final LongSupplier ticker;
+    private final RemovalListener<Object, Object> listener;
+
+    private ExpiringFactory(Builder builder) {
+        this.maxSize = builder.maxSize;
+        this.expireAfterWrite = builder.expireAfterWrite;
+        this.expireAfterAccess = builder.expireAfterAccess;
+        this.negativeExpire = builder.negativeExpire;
+        this.negative = builder.negative;
+        this.ticker = builder.ticker;
+        this.listener = builder.listener;
+    }
+
+    /**
+     * Create builder.
+     *
+     * @return builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private <K, V> ExpiringMap<K, V> map(int maxSize) {
+        return new ExpiringMap<>(maxSize, expireAfterWrite, expireAfterAccess, negativeExpire, negative, ticker, listener);
+    }
+
+    @Override
+    public <K, V> Map<K, V> create(boolean concurrency) throws UnsupportedOperationException {
+        if (!concurrency) {
+            return map(maxSize);
+        }
+
+        int stripes = StripedMap.defaultStripes(maxSize > 0 ? maxSize : -1);
+        if (maxSize > 0) {
+            return new StripedMap<>(stripes, i -> map(Math.max(1, StripedMap.segmentCapacity(maxSize, stripes, i))));
+        }
+        return new StripedMap<>(stripes, i -> map(0));
+    }
+
+    /**
+     * Builder of {@link ExpiringFactory}
+     */
+    public static class Builder {
+        private int maxSize = 0;
+        private long expireAfterWrite = 0;
+        private long expireAfterAccess = 0;
+        private long negativeExpire = 0;
+        private Predicate<Object> negative = v -> v == null || (v instanceof Optional<?> o && o.isEmpty());
+        private LongSupplier ticker = System::nanoTime;
+        private RemovalListener<Object, Object> listener = null;
+
+        private Builder() {}
+
+        /**
+         * Maximum number of entries, entries are evicted by LRU.
+         *
+         * @param maxSize maximum size, infinite if less than 1. (default: infinite)
+         * @return for method chain
+         */
+        public Builder maximumSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Expire after the entry was created or replaced.
+         *
+         * @param duration duration, never if zero or negative. (default: never)
+         * @return for method chain
+         */
+        public Builder expireAfterWrite(Duration duration) {
+            this.expireAfterWrite = duration.toNanos();
+            return this;
+        }
+
+        /**
+         * Expire after the entry was last read or written.
+         *
+         * @param duration duration, never if zero or negative. (default: never)
+         * @return for method chain
+         */
+        public Builder expireAfterAccess(Duration duration) {
+            this.expireAfterAccess = duration.toNanos();
+            return this;
+        }
+
+        /**
+         * Expire the negative entry after it was created or replaced. It is not extended by access.
+         *
+         * @param duration duration, same as other entries if zero or negative. (default: same as other entries)
+         * @return for method chain
+         */
+        public Builder negativeExpire(Duration duration) {
+            this.negativeExpire = duration.toNanos();
+            return this;
+        }
+
+        /**
+         * Predicate to determine whether the value is negative entry.
+         *
+         * @param negative predicate (default: null or {@code Optional.empty()})
+         * @return for method chain
+         */
+        public Builder negative(Predicate<Object> negative) {
+            this.negative = Objects.requireNonNull(negative);
+            return this;
+        }
+
+        /**
+         * Time source in nanoseconds.
+         *
+         * @param ticker ticker (default: {@link System#nanoTime()})
+         * @return for method chain
+         */
+        public Builder ticker(LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker);
+            return this;
+        }
+
+        /**
+         * Listener notified when the entry is removed (including expired and evicted).
+         *
+         * @param listener listener, null to disable. (default: disable)
+         * @return for method chain
+         */
+        public Builder removalListener(RemovalListener<Object, Object> listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Build factory.
+         *
+         * @return factory
+         */
+        public ExpiringFactory build() {
+            return new ExpiringFactory(this);
+        }
+    }
+}
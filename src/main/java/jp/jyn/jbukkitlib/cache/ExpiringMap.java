@@ -0,0 +1,335 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * <p>Map whose entries expire after a certain amount of time.</p>
+ * <p>Expired entries are removed by a hierarchical timer wheel during normal operations,
+ * so no thread is used and each operation costs O(1) (amortized).</p>
+ * <p>Note: Non thread-safe, use {@link ExpiringFactory} to create a thread-safe instance.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class ExpiringMap<K, V> extends AbstractMap<K, V> {
+    private final Map<K, Node<K, V>> data;
+    private final TimerWheel wheel;
+    private final LongSupplier ticker;
+    private final long origin;
+
+    private final long expireAfterWrite;
+    private final long expireAfterAccess;
+    private final long negativeExpire;
+    private final Predicate<? super V> negative;
+    private final RemovalListener<? super K, ? super V> listener;
+
+    /**
+     * Create expiring map.
+     *
+     * @param maxSize           Maximum number of entries (LRU), infinite if less than 1.
+     * @param expireAfterWrite  Nanoseconds to expire after the entry was written, never if less than 1.
+     * @param expireAfterAccess Nanoseconds to expire after the entry was last accessed, never if less than 1.
+     * @param negativeExpire    Nanoseconds to expire after the negative entry was written, same as other entries if less than 1.
+     * @param negative          Predicate to determine whether the value is negative entry (e.g. {@code Optional.empty()})
+     * @param ticker            Time source in nanoseconds (e.g. {@link System#nanoTime()})
+     * @param listener          Removal listener, nullable.
+     */
+    public ExpiringMap(int maxSize, long expireAfterWrite, long expireAfterAccess,
+                       long negativeExpire, Predicate<? super V> negative, LongSupplier ticker,
+                       RemovalListener<? super K, ? super V> listener) {
+        this.listener = listener;
+        this.ticker = Objects.requireNonNull(ticker);
+        this.negative = Objects.requireNonNull(negative);
+        this.expireAfterWrite = expireAfterWrite;
+        this.expireAfterAccess = expireAfterAccess;
+        this.negativeExpire = negativeExpire;
+
+        this.origin = ticker.getAsLong();
+        this.wheel = new TimerWheel(0);
+        if (maxSize > 0) {
+            this.data = new LinkedHashMap<>((maxSize * 4) / 3, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Node<K, V>> eldest) {
+                    if (size() > maxSize) {
+                        wheel.deschedule(eldest.getValue());
+                        notifyRemoval(eldest.getValue(), RemovalCause.SIZE);
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        } else {
+            this.data = new HashMap<>();
+        }
+    }
+
+    /**
+     * Create expiring map.
+     *
+     * @param maxSize           Maximum number of entries (LRU), infinite if less than 1.
+     * @param expireAfterWrite  Nanoseconds to expire after the entry was written, never if less than 1.
+     * @param expireAfterAccess Nanoseconds to expire after the entry was last accessed, never if less than 1.
+     * @param negativeExpire    Nanoseconds to expire after the negative entry was written, same as other entries if less than 1.
+     * @param negative          Predicate to determine whether the value is negative entry (e.g. {@code Optional.empty()})
+     * @param ticker            Time source in nanoseconds (e.g. {@link System#nanoTime()})
+     */
+    public ExpiringMap(int maxSize, long expireAfterWrite, long expireAfterAccess,
+                       long negativeExpire, Predicate<? super V> negative, LongSupplier ticker) {
+        this(maxSize, expireAfterWrite, expireAfterAccess, negativeExpire, negative, ticker, null);
+    }
+
+    private void notifyRemoval(Node<K, V> node, RemovalCause cause) {
+        if (listener != null) {
+            listener.onRemoval(node.key, node.value, cause);
+        }
+    }
+
+    private long now() {
+        // relative time, the timer wheel requires non-negative time.
+        return ticker.getAsLong() - origin;
+    }
+
+    /**
+     * Remove expired entries.
+     */
+    public void cleanUp() {
+        wheel.advance(now(), this::expire);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean expire(TimerWheel.Timer timer) {
+        Node<K, V> node = (Node<K, V>) timer;
+        if (data.remove(node.key, node)) {
+            notifyRemoval(node, RemovalCause.EXPIRED);
+        }
+        return true;
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return node.isScheduled() && node.time - now <= 0;
+    }
+
+    private void schedule(Node<K, V> node, long now, boolean write) {
+        long time = Long.MAX_VALUE;
+        if (negativeExpire > 0 && negative.test(node.value)) {
+            // negative entry is not extended by access.
+            if (!write) {
+                return;
+            }
+            time = now + negativeExpire;
+        } else {
+            if (write) {
+                node.writeTime = now;
+            }
+            if (expireAfterWrite > 0) {
+                time = node.writeTime + expireAfterWrite;
+            }
+            if (expireAfterAccess > 0) {
+                time = Math.min(time, now + expireAfterAccess);
+            }
+        }
+
+        if (time == Long.MAX_VALUE) {
+            wheel.deschedule(node);
+        } else {
+            node.time = time;
+            wheel.schedule(node);
+        }
+    }
+
+    private Node<K, V> getNode(Object key, long now) {
+        Node<K, V> node = data.get(key);
+        if (node != null && isExpired(node, now)) {
+            // The wheel has not yet reached (the resolution of the wheel is about 1 second)
+            wheel.deschedule(node);
+            data.remove(key);
+            notifyRemoval(node, RemovalCause.EXPIRED);
+            return null;
+        }
+        return node;
+    }
+
+    @Override
+    public int size() {
+        cleanUp();
+        return data.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        long now = now();
+        wheel.advance(now, this::expire);
+        Node<K, V> node = data.get(key);
+        return node != null && !isExpired(node, now);
+    }
+
+    @Override
+    public V get(Object key) {
+        long now = now();
+        wheel.advance(now, this::expire);
+        Node<K, V> node = getNode(key, now);
+        if (node == null) {
+            return null;
+        }
+
+        if (expireAfterAccess > 0) {
+            schedule(node, now, false);
+        }
+        return node.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        long now = now();
+        wheel.advance(now, this::expire);
+        Node<K, V> node = getNode(key, now);
+        V old = null;
+        if (node == null) {
+            node = new Node<>(key, value);
+            data.put(key, node);
+        } else {
+            old = node.value;
+            node.value = value;
+            if (listener != null) {
+                listener.onRemoval(key, old, RemovalCause.REPLACED);
+            }
+        }
+
+        schedule(node, now, true);
+        return old;
+    }
+
+    @Override
+    public V remove(Object key) {
+        long now = now();
+        wheel.advance(now, this::expire);
+        Node<K, V> node = getNode(key, now);
+        if (node == null) {
+            return null;
+        }
+
+        wheel.deschedule(node);
+        data.remove(key);
+        notifyRemoval(node, RemovalCause.EXPLICIT);
+        return node.value;
+    }
+
+    @Override
+    public void clear() {
+        for (Node<K, V> node : data.values()) {
+            wheel.deschedule(node);
+            notifyRemoval(node, RemovalCause.EXPLICIT);
+        }
+        data.clear();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                // Remove entries that the wheel has not yet reached. It is O(n), but so is the iteration.
+                long now = now();
+                wheel.advance(now, ExpiringMap.this::expire);
+                data.values().removeIf(node -> {
+                    if (isExpired(node, now)) {
+                        wheel.deschedule(node);
+                        notifyRemoval(node, RemovalCause.EXPIRED);
+                        return true;
+                    }
+                    return false;
+                });
+
+                Iterator<Node<K, V>> iterator = data.values().iterator();
+                return new Iterator<>() {
+                    private Node<K, V> last = null;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        return last = iterator.next();
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        iterator.remove();
+                        wheel.deschedule(last);
+                        notifyRemoval(last, RemovalCause.EXPLICIT);
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ExpiringMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                ExpiringMap.this.clear();
+            }
+        };
+    }
+
+    private final static class Node<K, V> extends TimerWheel.Timer implements Entry<K, V> {
+        private final K key;
+        private V value;
+        private long writeTime;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> e
+                && Objects.equals(key, e.getKey())
+                && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
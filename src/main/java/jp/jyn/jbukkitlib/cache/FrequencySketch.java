@@ -0,0 +1,90 @@
+package jp.jyn.jbukkitlib.cache;
+
+import jp.jyn.jbukkitlib.util.PackagePrivate;
+
+/**
+ * <p>Count-Min sketch with 4-bit counters, used to estimate the access frequency.</p>
+ * <p>All counters are halved periodically (aging), so the old popularity fades.</p>
+ */
+@PackagePrivate
+class FrequencySketch {
+    private final static long[] SEED = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private final static long RESET_MASK = 0x7777_7777_7777_7777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size = 0;
+
+    /**
+     * @param capacity Maximum number of entries of the cache.
+     */
+    FrequencySketch(int capacity) {
+        int length = Math.max(1, Integer.highestOneBit(Math.max(1, capacity) - 1) << 1);
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = Math.max(10, capacity * 10);
+    }
+
+    /**
+     * Estimate the frequency of the element.
+     *
+     * @param item element
+     * @return estimated frequency (0 - 15)
+     */
+    int frequency(Object item) {
+        int hash = spread(item == null ? 0 : item.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increment the frequency of the element.
+     *
+     * @param item element
+     */
+    void increment(Object item) {
+        int hash = spread(item == null ? 0 : item.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int offset = (start + i) << 2;
+            if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size >>>= 1;
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int) hash) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -1,5 +1,6 @@
 package jp.jyn.jbukkitlib.cache;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -10,16 +11,119 @@ import java.util.Map;
  * @param <K> Key type
  * @param <V> Value type
  */
-public class LRUMap<K, V> extends LinkedHashMap<K, V> {
-    private final int maxSize;
+public class LRUMap<K, V> extends LinkedHashMap<K, V> implements Resizable {
+    private int maxSize;
+    private final RemovalListener<? super K, ? super V> listener;
 
-    public LRUMap(int maxSize) {
+    /**
+     * <p>Create LRU map with removal listener.</p>
+     * <p>Note: Removal via compute/merge methods and views (e.g. {@link #keySet()}) is not notified.</p>
+     *
+     * @param maxSize  Maximum number of entries
+     * @param listener Removal listener, nullable.
+     */
+    public LRUMap(int maxSize, RemovalListener<? super K, ? super V> listener) {
         super((maxSize * 4) / 3, 0.75f, true);
         this.maxSize = maxSize;
+        this.listener = listener;
+    }
+
+    public LRUMap(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Get maximum number of entries.
+     *
+     * @return maximum size
+     */
+    public int getMaximumSize() {
+        return maxSize;
+    }
+
+    /**
+     * Change maximum number of entries. The exceeding entries are evicted by {@link #trim(int)}.
+     *
+     * @param maxSize Maximum number of entries
+     */
+    public void setMaximumSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public long getMaximum() {
+        return maxSize;
+    }
+
+    @Override
+    public void setMaximum(long maximum) {
+        setMaximumSize((int) Math.min(maximum, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public int trim(int limit) {
+        int count = 0;
+        Iterator<Map.Entry<K, V>> iterator = entrySet().iterator();
+        while (count < limit && size() > maxSize && iterator.hasNext()) {
+            Map.Entry<K, V> eldest = iterator.next();
+            iterator.remove();
+            count++;
+            if (listener != null) {
+                listener.onRemoval(eldest.getKey(), eldest.getValue(), RemovalCause.SIZE);
+            }
+        }
+        return count;
     }
 
     @Override
     protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-        return size() > maxSize;
+        if (size() > maxSize) {
+            if (listener != null) {
+                listener.onRemoval(eldest.getKey(), eldest.getValue(), RemovalCause.SIZE);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        V old = super.put(key, value);
+        if (old != null && listener != null) {
+            listener.onRemoval(key, old, RemovalCause.REPLACED);
+        }
+        return old;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        if (listener == null) {
+            super.putAll(m);
+            return;
+        }
+        for (Map.Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        V old = super.remove(key);
+        if (old != null && listener != null) {
+            listener.onRemoval((K) key, old, RemovalCause.EXPLICIT);
+        }
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        if (listener != null) {
+            forEach((k, v) -> listener.onRemoval(k, v, RemovalCause.EXPLICIT));
+        }
+        super.clear();
     }
 }
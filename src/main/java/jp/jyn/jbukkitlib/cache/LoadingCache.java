@@ -0,0 +1,479 @@
+package jp.jyn.jbukkitlib.cache;
+
+import jp.jyn.jbukkitlib.util.BukkitCompletableFuture;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * <p>Cache that loads the value automatically when it does not exist.</p>
+ * <p>Concurrent loads of the same key are coalesced into one load (single-flight),
+ * for example, even if many threads request the same key at the same time, the loader is called only once.</p>
+ * <p>If the cache is {@link RecordingMap}, each request is recorded as one hit or miss,
+ * and each call of the loader is recorded as one load.</p>
+ * <p>Note: The loader may return null, but the null is not cached.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class LoadingCache<K, V> {
+    private final Map<K, V> cache;
+    // The cache without recording and the counter (nullable), the requests are recorded by this class.
+    private final Map<K, V> delegate;
+    private final StatsCounter counter;
+    private final Function<? super K, ? extends V> loader;
+    private final Executor executor;
+    private final ConcurrentMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Create loading cache.
+     *
+     * @param cache    Thread-safe map to store the values.
+     * @param loader   Value loader
+     * @param executor Executor to run the loader for asynchronous methods.
+     */
+    public LoadingCache(Map<K, V> cache, Function<? super K, ? extends V> loader, Executor executor) {
+        this.cache = Objects.requireNonNull(cache);
+        if (cache instanceof RecordingMap<K, V> recording) {
+            this.delegate = recording.delegate();
+            this.counter = recording.counter();
+        } else {
+            this.delegate = cache;
+            this.counter = null;
+        }
+        this.loader = Objects.requireNonNull(loader);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Create loading cache.
+     *
+     * @param factory  Cache factory, create thread-safe map.
+     * @param loader   Value loader
+     * @param executor Executor to run the loader for asynchronous methods.
+     */
+    public LoadingCache(CacheFactory factory, Function<? super K, ? extends V> loader, Executor executor) {
+        this(factory.create(true), loader, executor);
+    }
+
+    /**
+     * Get the map that stores the values.
+     *
+     * @return map
+     */
+    public Map<K, V> asMap() {
+        return cache;
+    }
+
+    /**
+     * Get the value if it exists in the cache, does not load.
+     *
+     * @param key key
+     * @return value, or null if not cached.
+     */
+    public V getIfPresent(K key) {
+        return lookup(key);
+    }
+
+    /**
+     * <p>Remove the value from the cache.</p>
+     * <p>If the key is loading, the loaded value is not stored in the cache (the waiters still receive it),
+     * and the next request loads the value again.</p>
+     *
+     * @param key key
+     */
+    public void invalidate(K key) {
+        // Under the lock of the loading entry, so it does not interleave with store().
+        loading.compute(key, (k, f) -> {
+            cache.remove(k);
+            return null;
+        });
+    }
+
+    /**
+     * <p>Get the value, load it in the current thread if not cached.</p>
+     * <p>If the same key is loading in other thread, wait for it.</p>
+     *
+     * @param key key
+     * @return value
+     */
+    public V get(K key) {
+        V value = lookup(key);
+        if (value != null) {
+            return value;
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inflight = loading.putIfAbsent(key, future);
+        if (inflight != null) {
+            try {
+                return inflight.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException r ? r : e;
+            }
+        }
+
+        return load(key, future);
+    }
+
+    /**
+     * <p>Get the value, load it with executor if not cached.</p>
+     * <p>If the same key is loading, return the same future.</p>
+     *
+     * @param key key
+     * @return {@link CompletableFuture}
+     */
+    public CompletableFuture<V> getAsync(K key) {
+        V value = lookup(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inflight = loading.putIfAbsent(key, future);
+        if (inflight != null) {
+            return inflight;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    load(key, future);
+                } catch (RuntimeException ignore) {
+                    // future is completed exceptionally
+                }
+            });
+        } catch (RuntimeException e) { // RejectedExecutionException
+            loading.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Get the value, load it with executor if not cached.
+     *
+     * @param plugin Plugin
+     * @param key    key
+     * @return {@link BukkitCompletableFuture}
+     */
+    public BukkitCompletableFuture<V> getAsync(Plugin plugin, K key) {
+        return BukkitCompletableFuture.wrap(plugin, getAsync(key));
+    }
+
+    /**
+     * <p>Get the value, load it with the asynchronous loader if not cached.</p>
+     * <p>If the same key is loading, return the same future. The loader of the constructor is not used.</p>
+     *
+     * @param key         key
+     * @param asyncLoader Asynchronous loader, for example, {@link BatchingLoader#load(Object)}.
+     * @return {@link CompletableFuture}
+     */
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletionStage<V>> asyncLoader) {
+        V value = lookup(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inflight = loading.putIfAbsent(key, future);
+        if (inflight != null) {
+            return inflight;
+        }
+
+        long start = System.nanoTime();
+        try {
+            asyncLoader.apply(key).whenComplete((v, e) -> {
+                recordLoad(start, e == null && v != null);
+                if (e == null) {
+                    store(key, future, v);
+                    future.complete(v);
+                } else {
+                    loading.remove(key, future);
+                    future.completeExceptionally(e instanceof CompletionException c && c.getCause() != null ? c.getCause() : e);
+                }
+            });
+        } catch (RuntimeException e) {
+            recordLoad(start, false);
+            loading.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    // region getAll
+
+    /**
+     * <p>Get the values if they exist in the cache, does not load.</p>
+     * <p>If the cache is {@link StripedMap} (or {@link RecordingMap} of it), each segment is locked only once.</p>
+     *
+     * @param keys keys
+     * @return Map of the cached keys and values.
+     */
+    public Map<K, V> getAllPresent(Collection<? extends K> keys) {
+        Map<K, V> result = present(keys);
+        if (counter != null) {
+            int hits = 0;
+            for (K key : keys) {
+                if (result.containsKey(key)) {
+                    hits++;
+                }
+            }
+            counter.recordHits(hits);
+            counter.recordMisses(keys.size() - hits);
+        }
+        return result;
+    }
+
+    // Without recording.
+    private Map<K, V> present(Collection<? extends K> keys) {
+        if (delegate instanceof StripedMap<K, V> striped) {
+            return striped.getAll(keys);
+        }
+
+        Map<K, V> result = new HashMap<>((keys.size() * 4) / 3 + 1);
+        for (K key : keys) {
+            V value = delegate.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * <p>Get the values, load the missing values at once in the current thread.</p>
+     * <p>Keys loading in other thread are not loaded again, wait for them.</p>
+     *
+     * @param keys        keys
+     * @param batchLoader Loader to load multiple values at once. Keys not in the returned map are treated as null.
+     * @return Map of the keys and values (null values are excluded).
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<? super Set<K>, ? extends Map<K, V>> batchLoader) {
+        Batch batch = new Batch(keys);
+        if (!batch.mine.isEmpty()) {
+            batch.load(batchLoader);
+        }
+
+        try {
+            return batch.join().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : e;
+        }
+    }
+
+    /**
+     * <p>Get the values, load the missing values at once with executor.</p>
+     * <p>Keys loading in other thread are not loaded again, wait for them.</p>
+     *
+     * @param keys        keys
+     * @param batchLoader Loader to load multiple values at once. Keys not in the returned map are treated as null.
+     * @return {@link CompletableFuture}, Map of the keys and values (null values are excluded).
+     */
+    public CompletableFuture<Map<K, V>> getAllAsync(Collection<? extends K> keys,
+                                                    Function<? super Set<K>, ? extends Map<K, V>> batchLoader) {
+        Batch batch = new Batch(keys);
+        if (!batch.mine.isEmpty()) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        batch.load(batchLoader);
+                    } catch (RuntimeException ignore) {
+                        // futures are completed exceptionally
+                    }
+                });
+            } catch (RuntimeException e) { // RejectedExecutionException
+                batch.fail(e);
+            }
+        }
+        return batch.join();
+    }
+
+    /**
+     * Get the values, load the missing values at once with executor.
+     *
+     * @param plugin      Plugin
+     * @param keys        keys
+     * @param batchLoader Loader to load multiple values at once. Keys not in the returned map are treated as null.
+     * @return {@link BukkitCompletableFuture}
+     */
+    public BukkitCompletableFuture<Map<K, V>> getAllAsync(Plugin plugin, Collection<? extends K> keys,
+                                                          Function<? super Set<K>, ? extends Map<K, V>> batchLoader) {
+        return BukkitCompletableFuture.wrap(plugin, getAllAsync(keys, batchLoader));
+    }
+
+    private final class Batch {
+        private final Map<K, V> present;
+        // keys to be loaded by this batch, and keys loading by others.
+        private final Map<K, CompletableFuture<V>> mine = new HashMap<>();
+        private final Map<K, CompletableFuture<V>> others = new HashMap<>();
+
+        private Batch(Collection<? extends K> keys) {
+            present = getAllPresent(keys);
+            for (K key : keys) {
+                if (present.containsKey(key) || mine.containsKey(key) || others.containsKey(key)) {
+                    continue;
+                }
+
+                CompletableFuture<V> future = new CompletableFuture<>();
+                CompletableFuture<V> inflight = loading.putIfAbsent(key, future);
+                if (inflight == null) {
+                    mine.put(key, future);
+                } else {
+                    others.put(key, inflight);
+                }
+            }
+        }
+
+        private void load(Function<? super Set<K>, ? extends Map<K, V>> batchLoader) {
+            try {
+                // The previous load may have just finished.
+                Map<K, V> values = present(mine.keySet());
+                Set<K> missing = new HashSet<>(mine.keySet());
+                missing.removeAll(values.keySet());
+                if (!missing.isEmpty()) {
+                    // The batch is recorded as one load.
+                    long start = System.nanoTime();
+                    Map<K, V> loaded = null;
+                    try {
+                        loaded = batchLoader.apply(Collections.unmodifiableSet(missing));
+                    } finally {
+                        recordLoad(start, loaded != null);
+                    }
+                    if (loaded != null) {
+                        for (Map.Entry<K, V> entry : loaded.entrySet()) {
+                            if (entry.getValue() != null && missing.contains(entry.getKey())) {
+                                values.put(entry.getKey(), entry.getValue());
+                            }
+                        }
+                    }
+                }
+
+                for (Map.Entry<K, CompletableFuture<V>> entry : mine.entrySet()) {
+                    store(entry.getKey(), entry.getValue(), values.get(entry.getKey()));
+                }
+                for (Map.Entry<K, CompletableFuture<V>> entry : mine.entrySet()) {
+                    entry.getValue().complete(values.get(entry.getKey()));
+                }
+            } catch (RuntimeException | Error e) {
+                fail(e);
+                throw e;
+            }
+        }
+
+        private void fail(Throwable e) {
+            for (Map.Entry<K, CompletableFuture<V>> entry : mine.entrySet()) {
+                loading.remove(entry.getKey(), entry.getValue());
+                entry.getValue().completeExceptionally(e);
+            }
+        }
+
+        private CompletableFuture<Map<K, V>> join() {
+            if (mine.isEmpty() && others.isEmpty()) {
+                return CompletableFuture.completedFuture(present);
+            }
+
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[mine.size() + others.size()];
+            int i = 0;
+            for (CompletableFuture<V> future : mine.values()) {
+                futures[i++] = future;
+            }
+            for (CompletableFuture<V> future : others.values()) {
+                futures[i++] = future;
+            }
+
+            return CompletableFuture.allOf(futures).thenApply(ignore -> {
+                Map<K, V> result = new HashMap<>(present);
+                collect(result, mine);
+                collect(result, others);
+                return result;
+            });
+        }
+
+        private void collect(Map<K, V> result, Map<K, CompletableFuture<V>> futures) {
+            for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+                V value = entry.getValue().join();
+                if (value != null) {
+                    result.put(entry.getKey(), value);
+                }
+            }
+        }
+    }
+    // endregion
+
+    private V load(K key, CompletableFuture<V> future) {
+        V value;
+        try {
+            // The previous load may have just finished.
+            value = delegate.get(key);
+            if (value == null) {
+                long start = System.nanoTime();
+                try {
+                    value = loader.apply(key);
+                } finally {
+                    recordLoad(start, value != null);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            loading.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+
+        store(key, future, value);
+        future.complete(value);
+        return value;
+    }
+
+    // Get the value, and record the hit or miss.
+    private V lookup(K key) {
+        V value = delegate.get(key);
+        if (counter != null) {
+            if (value == null) {
+                counter.recordMisses(1);
+            } else {
+                counter.recordHits(1);
+            }
+        }
+        return value;
+    }
+
+    private void recordLoad(long start, boolean success) {
+        if (counter != null) {
+            long time = System.nanoTime() - start;
+            if (success) {
+                counter.recordLoadSuccess(time);
+            } else {
+                counter.recordLoadFailure(time);
+            }
+        }
+    }
+
+    // Store the value unless the load has been invalidated (the future is no longer registered), and finish the load.
+    // The check and the store are done under the lock of the loading entry, so invalidate() never interleaves.
+    // Call it before completing the future, otherwise the waiter may invalidate and get the finished future again.
+    private void store(K key, CompletableFuture<V> future, V value) {
+        loading.computeIfPresent(key, (k, f) -> {
+            if (f != future) {
+                return f;
+            }
+            if (value != null) {
+                cache.put(k, value);
+            }
+            return null;
+        });
+    }
+}
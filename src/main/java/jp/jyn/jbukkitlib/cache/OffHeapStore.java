@@ -0,0 +1,285 @@
+package jp.jyn.jbukkitlib.cache;
+
+import jp.jyn.jbukkitlib.util.PackagePrivate;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>Key-value store in a direct (off-heap) ring buffer.</p>
+ * <p>Records are appended to the ring buffer, and the oldest records are overwritten (FIFO) when it is full.
+ * The index is an open addressing table of (hash, address), so no object is allocated per entry in heap.</p>
+ * <p>Record: {@code [hash (int)][key length (int)][value length (int)][key][value]}</p>
+ * <p>Note: Non thread-safe</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+@PackagePrivate
+class OffHeapStore<K, V> {
+    private final static int HEADER = Integer.BYTES * 3;
+    private final static int PADDING = -1;
+    private final static long EMPTY = -1;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+
+    // Virtual address, physical position is (address % capacity).
+    private long head = 0;
+    private long tail = 0;
+
+    private int[] hashes;
+    private long[] addresses;
+    private int mask;
+    private int size = 0;
+
+    @PackagePrivate
+    OffHeapStore(int capacity, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        if (capacity < HEADER) {
+            throw new IllegalArgumentException("capacity must be " + HEADER + " or greater");
+        }
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.capacity = capacity;
+        this.keySerializer = Objects.requireNonNull(keySerializer);
+        this.valueSerializer = Objects.requireNonNull(valueSerializer);
+        allocateIndex(16);
+    }
+
+    // region index
+    private void allocateIndex(int length) {
+        hashes = new int[length];
+        addresses = new long[length];
+        Arrays.fill(addresses, EMPTY);
+        mask = length - 1;
+    }
+
+    private int slot(int hash) {
+        return (hash * 0x9E3779B9) & mask;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int find(int hash, byte[] key) {
+        for (int i = slot(hash); addresses[i] != EMPTY; i = (i + 1) & mask) {
+            if (hashes[i] == hash && keyEquals(addresses[i], key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int findAddress(int hash, long address) {
+        for (int i = slot(hash); addresses[i] != EMPTY; i = (i + 1) & mask) {
+            if (addresses[i] == address) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insertIndex(int hash, long address) {
+        if (size + 1 > (mask + 1) / 2) {
+            int[] oldHashes = hashes;
+            long[] oldAddresses = addresses;
+            allocateIndex((mask + 1) * 2);
+            for (int i = 0; i < oldAddresses.length; i++) {
+                if (oldAddresses[i] != EMPTY) {
+                    put(oldHashes[i], oldAddresses[i]);
+                }
+            }
+        }
+        put(hash, address);
+        size++;
+    }
+
+    private void put(int hash, long address) {
+        int i = slot(hash);
+        while (addresses[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        hashes[i] = hash;
+        addresses[i] = address;
+    }
+
+    private void removeIndex(int index) {
+        size--;
+        // backward shift deletion
+        int hole = index;
+        for (int j = (index + 1) & mask; addresses[j] != EMPTY; j = (j + 1) & mask) {
+            int ideal = slot(hashes[j]);
+            if (((j - ideal) & mask) >= ((j - hole) & mask)) {
+                hashes[hole] = hashes[j];
+                addresses[hole] = addresses[j];
+                hole = j;
+            }
+        }
+        addresses[hole] = EMPTY;
+    }
+    // endregion
+
+    // region buffer
+    private int position(long address) {
+        return (int) (address % capacity);
+    }
+
+    private boolean keyEquals(long address, byte[] key) {
+        int position = position(address);
+        int length = buffer.getInt(position + Integer.BYTES);
+        return length == key.length && buffer.slice(position + HEADER, length).mismatch(ByteBuffer.wrap(key)) == -1;
+    }
+
+    private ByteBuffer key(long address) {
+        int position = position(address);
+        return buffer.slice(position + HEADER, buffer.getInt(position + Integer.BYTES));
+    }
+
+    private ByteBuffer value(long address) {
+        int position = position(address);
+        int keyLength = buffer.getInt(position + Integer.BYTES);
+        return buffer.slice(position + HEADER + keyLength, buffer.getInt(position + Integer.BYTES * 2));
+    }
+
+    private int recordSize(long address) {
+        int position = position(address);
+        if (capacity - position < HEADER || buffer.getInt(position + Integer.BYTES) == PADDING) {
+            return capacity - position;
+        }
+        return HEADER + buffer.getInt(position + Integer.BYTES) + buffer.getInt(position + Integer.BYTES * 2);
+    }
+
+    private void evictHead() {
+        int position = position(head);
+        if (capacity - position >= HEADER && buffer.getInt(position + Integer.BYTES) != PADDING) {
+            // The record may have already been removed or replaced.
+            int index = findAddress(buffer.getInt(position), head);
+            if (index != -1) {
+                removeIndex(index);
+            }
+        }
+        head += recordSize(head);
+    }
+    // endregion
+
+    /**
+     * Get value.
+     *
+     * @param key key
+     * @return value, or null if not found.
+     */
+    @SuppressWarnings("unchecked")
+    @PackagePrivate
+    V get(Object key) {
+        if (size == 0) {
+            return null;
+        }
+        int index = find(hash(key), keySerializer.serialize((K) key));
+        return index == -1 ? null : valueSerializer.deserialize(value(addresses[index]));
+    }
+
+    /**
+     * Remove and get value.
+     *
+     * @param key key
+     * @return value, or null if not found.
+     */
+    @SuppressWarnings("unchecked")
+    @PackagePrivate
+    V remove(Object key) {
+        if (size == 0) {
+            return null;
+        }
+        int index = find(hash(key), keySerializer.serialize((K) key));
+        if (index == -1) {
+            return null;
+        }
+        V value = valueSerializer.deserialize(value(addresses[index]));
+        // The record remains in the buffer until it is overwritten.
+        removeIndex(index);
+        return value;
+    }
+
+    /**
+     * Put value, the oldest entries are evicted if there is not enough space.
+     *
+     * @param key   key
+     * @param value value
+     * @return true if stored, false if the entry is larger than the capacity.
+     */
+    @PackagePrivate
+    boolean put(K key, V value) {
+        int hash = hash(key);
+        byte[] k = keySerializer.serialize(key);
+        byte[] v = valueSerializer.serialize(value);
+        int index = find(hash, k);
+        if (index != -1) {
+            removeIndex(index);
+        }
+
+        int length = HEADER + k.length + v.length;
+        if (length > capacity) {
+            return false;
+        }
+
+        // The record is not split, skip to the beginning of the buffer.
+        int padding = capacity - position(tail) < length ? capacity - position(tail) : 0;
+        while (tail + padding + length - head > capacity) {
+            if (head == tail) {
+                // empty, start from the beginning of the buffer.
+                tail += padding;
+                head = tail;
+                padding = 0;
+                break;
+            }
+            evictHead();
+        }
+        if (padding != 0) {
+            if (padding >= HEADER) {
+                buffer.putInt(position(tail) + Integer.BYTES, PADDING);
+            }
+            tail += padding;
+        }
+
+        int position = position(tail);
+        buffer.putInt(position, hash)
+            .putInt(position + Integer.BYTES, k.length)
+            .putInt(position + Integer.BYTES * 2, v.length)
+            .put(position + HEADER, k)
+            .put(position + HEADER + k.length, v);
+        insertIndex(hash, tail);
+        tail += length;
+        return true;
+    }
+
+    @PackagePrivate
+    int size() {
+        return size;
+    }
+
+    @PackagePrivate
+    void clear() {
+        allocateIndex(16);
+        size = 0;
+        head = tail = 0;
+    }
+
+    /**
+     * Performs the action for each entry, entries are deserialized.
+     *
+     * @param action action
+     */
+    @PackagePrivate
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        for (long address : addresses.clone()) {
+            if (address != EMPTY) {
+                action.accept(keySerializer.deserialize(key(address)), valueSerializer.deserialize(value(address)));
+            }
+        }
+    }
+}
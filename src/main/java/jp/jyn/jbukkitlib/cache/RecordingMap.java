@@ -0,0 +1,266 @@
+package jp.jyn.jbukkitlib.cache;
+
+import jp.jyn.jbukkitlib.util.PackagePrivate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * <p>Map decorator that records the cache statistics.</p>
+ * <p>{@link #get(Object)} and {@link #getOrDefault(Object, Object)} are recorded as hit/miss,
+ * the mapping function of {@link #computeIfAbsent(Object, Function)} is recorded as load.</p>
+ * <p>The evictions happen inside the delegate, so they are recorded by the removal listener of the delegate,
+ * see {@link #listener(StatsCounter, RemovalListener)}.</p>
+ * <p>{@link LoadingCache} records its requests and loads by itself, so each request is recorded once.</p>
+ * <pre>
+ * {@code
+ * StatsCounter counter = new StatsCounter();
+ * Map<K, V> map = new RecordingMap<>(new LRUMap<>(1000, RecordingMap.listener(counter, null)), counter);
+ * }
+ * </pre>
+ * <p>Thread-safety depends on the delegate map.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class RecordingMap<K, V> implements Map<K, V> {
+    private final Map<K, V> delegate;
+    private final StatsCounter counter;
+
+    /**
+     * Create recording map.
+     *
+     * @param delegate Map to record
+     * @param counter  Statistics counter
+     */
+    public RecordingMap(Map<K, V> delegate, StatsCounter counter) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.counter = Objects.requireNonNull(counter);
+    }
+
+    /**
+     * Create recording map.
+     *
+     * @param delegate Map to record
+     */
+    public RecordingMap(Map<K, V> delegate) {
+        this(delegate, new StatsCounter());
+    }
+
+    /**
+     * Create removal listener that records the evictions ({@link RemovalCause#wasEvicted()}).
+     *
+     * @param counter  Statistics counter
+     * @param listener Listener to be notified after recording, nullable.
+     * @param <K>      Key type
+     * @param <V>      Value type
+     * @return removal listener
+     */
+    public static <K, V> RemovalListener<K, V> listener(StatsCounter counter, RemovalListener<K, V> listener) {
+        Objects.requireNonNull(counter);
+        return (key, value, cause) -> {
+            if (cause.wasEvicted()) {
+                counter.recordEvictions(1);
+            }
+            if (listener != null) {
+                listener.onRemoval(key, value, cause);
+            }
+        };
+    }
+
+    /**
+     * Get snapshot of the statistics.
+     *
+     * @return statistics
+     */
+    public CacheStats stats() {
+        return counter.snapshot(delegate.size());
+    }
+
+    // for LoadingCache, the map without recording.
+    @PackagePrivate
+    Map<K, V> delegate() {
+        return delegate;
+    }
+
+    @PackagePrivate
+    StatsCounter counter() {
+        return counter;
+    }
+
+    private void record(V value) {
+        if (value == null) {
+            counter.recordMisses(1);
+        } else {
+            counter.recordHits(1);
+        }
+    }
+
+    @Override
+    public V get(Object key) {
+        V value = delegate.get(key);
+        record(value);
+        return value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        V value = delegate.get(key);
+        record(value);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        boolean[] loaded = {false};
+        V value = delegate.computeIfAbsent(key, k -> {
+            loaded[0] = true;
+            long start = System.nanoTime();
+            V v;
+            try {
+                v = mappingFunction.apply(k);
+            } catch (RuntimeException | Error e) {
+                counter.recordLoadFailure(System.nanoTime() - start);
+                throw e;
+            }
+
+            long time = System.nanoTime() - start;
+            if (v == null) {
+                counter.recordLoadFailure(time);
+            } else {
+                counter.recordLoadSuccess(time);
+            }
+            return v;
+        });
+
+        if (loaded[0]) {
+            counter.recordMisses(1);
+        } else {
+            counter.recordHits(1);
+        }
+        return value;
+    }
+
+    // region delegate
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return delegate.containsValue(value);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return delegate.put(key, value);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        delegate.putAll(m);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return delegate.remove(key);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        return delegate.remove(key, value);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return delegate.computeIfPresent(key, remappingFunction);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return delegate.compute(key, remappingFunction);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        return delegate.merge(key, value, remappingFunction);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return delegate.replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return delegate.replace(key, value);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return delegate.keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return delegate.values();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return delegate.entrySet();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        delegate.replaceAll(function);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || delegate.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+    // endregion
+}
@@ -0,0 +1,67 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>Cache holding the keys and/or values by weak or soft reference, see {@link ReferenceMap}.</p>
+ * <p>It is suitable for opportunistic cache (e.g. rendered component, parsed configuration section),
+ * the entries are collected by GC before the server runs out of heap.</p>
+ * <pre>
+ * {@code
+ * Map<String, Component> rendered = ReferenceFactory.SOFT_VALUES.create(true);
+ * Map<Player, Data> data = ReferenceFactory.WEAK_KEYS.create();
+ * }
+ * </pre>
+ */
+public class ReferenceFactory implements CacheFactory {
+    // Not in CacheFactory, the interface creating its own implementation can deadlock the class initialization.
+
+    /**
+     * Weak key cache, the entry is removed when the key is collected by GC. see {@link ReferenceMap}
+     */
+    public final static CacheFactory WEAK_KEYS = new ReferenceFactory(ReferenceMap.Strength.WEAK, ReferenceMap.Strength.STRONG);
+
+    /**
+     * Soft value cache, the entry is removed when the memory is low. see {@link ReferenceMap}
+     */
+    public final static CacheFactory SOFT_VALUES = new ReferenceFactory(ReferenceMap.Strength.STRONG, ReferenceMap.Strength.SOFT);
+
+    private final ReferenceMap.Strength keyStrength;
+    private final ReferenceMap.Strength valueStrength;
+    private final RemovalListener<Object, Object> listener;
+
+    /**
+     * Initialize the factory by specifying the reference strength and removal listener.
+     *
+     * @param keyStrength   Reference strength of keys, {@link ReferenceMap.Strength#SOFT} is not supported.
+     * @param valueStrength Reference strength of values
+     * @param listener      Removal listener, nullable.
+     */
+    public ReferenceFactory(ReferenceMap.Strength keyStrength, ReferenceMap.Strength valueStrength,
+                            RemovalListener<Object, Object> listener) {
+        if (keyStrength == ReferenceMap.Strength.SOFT) {
+            throw new IllegalArgumentException("Soft key is not supported");
+        }
+        this.keyStrength = Objects.requireNonNull(keyStrength);
+        this.valueStrength = Objects.requireNonNull(valueStrength);
+        this.listener = listener;
+    }
+
+    /**
+     * Initialize the factory by specifying the reference strength.
+     *
+     * @param keyStrength   Reference strength of keys, {@link ReferenceMap.Strength#SOFT} is not supported.
+     * @param valueStrength Reference strength of values
+     */
+    public ReferenceFactory(ReferenceMap.Strength keyStrength, ReferenceMap.Strength valueStrength) {
+        this(keyStrength, valueStrength, null);
+    }
+
+    @Override
+    public <K, V> Map<K, V> create(boolean concurrency) throws UnsupportedOperationException {
+        return concurrency
+            ? new StripedMap<>(StripedMap.defaultStripes(-1), i -> new ReferenceMap<>(keyStrength, valueStrength, listener))
+            : new ReferenceMap<>(keyStrength, valueStrength, listener);
+    }
+}
@@ -0,0 +1,355 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>Map holding the keys and/or values by weak or soft reference.</p>
+ * <p>The entries are removed when the referent is collected by GC,
+ * so it yields memory before the server runs out of heap.
+ * Collected entries are removed during normal operations (no thread is used).</p>
+ * <ul>
+ *     <li>Weak key: the entry is removed when the key is no longer used elsewhere (like {@link java.util.WeakHashMap}).</li>
+ *     <li>Soft value: the entry is removed when the memory is low, suitable for opportunistic cache.</li>
+ * </ul>
+ * <p>Note: Keys are compared by {@link Object#equals(Object)}, even if it is weak. Null key and value are not permitted.</p>
+ * <p>Note: Non thread-safe, use {@link ReferenceFactory} to create a thread-safe instance.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class ReferenceMap<K, V> extends AbstractMap<K, V> {
+    // The key of data is K (strong) or KeyReference, the value is V (strong) or ValueReference.
+    private final Map<Object, Object> data = new HashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private final Strength keyStrength;
+    private final Strength valueStrength;
+    private final RemovalListener<? super K, ? super V> listener;
+
+    /**
+     * Create reference map with removal listener.
+     *
+     * @param keyStrength   Reference strength of keys, {@link Strength#SOFT} is not supported.
+     * @param valueStrength Reference strength of values
+     * @param listener      Removal listener, nullable. The key or value of the {@link RemovalCause#COLLECTED} entry is null.
+     */
+    public ReferenceMap(Strength keyStrength, Strength valueStrength, RemovalListener<? super K, ? super V> listener) {
+        if (keyStrength == Strength.SOFT) {
+            throw new IllegalArgumentException("Soft key is not supported");
+        }
+        this.keyStrength = Objects.requireNonNull(keyStrength);
+        this.valueStrength = Objects.requireNonNull(valueStrength);
+        this.listener = listener;
+    }
+
+    /**
+     * Create reference map.
+     *
+     * @param keyStrength   Reference strength of keys, {@link Strength#SOFT} is not supported.
+     * @param valueStrength Reference strength of values
+     */
+    public ReferenceMap(Strength keyStrength, Strength valueStrength) {
+        this(keyStrength, valueStrength, null);
+    }
+
+    // region reference
+    private Object wrapKey(K key) {
+        return keyStrength == Strength.WEAK ? new KeyReference<>(key, queue) : key;
+    }
+
+    private Object lookupKey(Object key) {
+        return keyStrength == Strength.WEAK ? new LookupKey(key) : key;
+    }
+
+    private Object wrapValue(Object mapKey, V value) {
+        return switch (valueStrength) {
+            case STRONG -> value;
+            case WEAK -> new WeakValue<>(mapKey, value, queue);
+            case SOFT -> new SoftValue<>(mapKey, value, queue);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private K unwrapKey(Object mapKey) {
+        return (K) (mapKey instanceof KeyReference<?> r ? r.get() : mapKey);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V unwrapValue(Object mapValue) {
+        return (V) (mapValue instanceof ValueReference r ? ((Reference<?>) r).get() : mapValue);
+    }
+
+    /**
+     * Remove the entries whose key or value was collected.
+     */
+    public void cleanUp() {
+        Reference<?> ref;
+        while ((ref = queue.poll()) != null) {
+            Object mapValue;
+            if (ref instanceof ValueReference v) {
+                // Remove only if the value has not been replaced.
+                Object mapKey = v.mapKey();
+                if (!data.remove(mapKey, ref)) {
+                    continue;
+                }
+                mapValue = ref;
+                notifyRemoval(mapKey, mapValue, RemovalCause.COLLECTED);
+            } else if ((mapValue = data.remove(ref)) != null) {
+                notifyRemoval(ref, mapValue, RemovalCause.COLLECTED);
+            }
+        }
+    }
+
+    private void notifyRemoval(Object mapKey, Object mapValue, RemovalCause cause) {
+        if (listener != null) {
+            listener.onRemoval(unwrapKey(mapKey), unwrapValue(mapValue), cause);
+        }
+    }
+    // endregion
+
+    @Override
+    public int size() {
+        cleanUp();
+        return data.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        cleanUp();
+        if (key == null) {
+            return null;
+        }
+        Object mapValue = data.get(lookupKey(key));
+        return mapValue == null ? null : unwrapValue(mapValue);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        cleanUp();
+
+        // Remove first, the HashMap keeps the old key object (reference) on put.
+        Object old = data.remove(lookupKey(key));
+        Object mapKey = wrapKey(key);
+        data.put(mapKey, wrapValue(mapKey, value));
+        if (old == null) {
+            return null;
+        }
+
+        V oldValue = unwrapValue(old);
+        if (oldValue != null && listener != null) {
+            listener.onRemoval(key, oldValue, RemovalCause.REPLACED);
+        }
+        return oldValue;
+    }
+
+    @Override
+    public V remove(Object key) {
+        cleanUp();
+        if (key == null) {
+            return null;
+        }
+        Object mapValue = data.remove(lookupKey(key));
+        if (mapValue == null) {
+            return null;
+        }
+
+        V value = unwrapValue(mapValue);
+        if (value != null && listener != null) {
+            listener.onRemoval(unwrapKey(key), value, RemovalCause.EXPLICIT);
+        }
+        return value;
+    }
+
+    @Override
+    public void clear() {
+        if (listener != null) {
+            data.forEach((k, v) -> notifyRemoval(k, v, RemovalCause.EXPLICIT));
+        }
+        data.clear();
+        // Cleared entries are no longer needed.
+        while (queue.poll() != null) ;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                // Snapshot of the live entries, the referents may be collected during iteration.
+                cleanUp();
+                List<Entry<K, V>> entries = new ArrayList<>(data.size());
+                for (Entry<Object, Object> entry : data.entrySet()) {
+                    K key = unwrapKey(entry.getKey());
+                    V value = unwrapValue(entry.getValue());
+                    if (key != null && value != null) {
+                        entries.add(new SimpleImmutableEntry<>(key, value));
+                    }
+                }
+
+                Iterator<Entry<K, V>> iterator = entries.iterator();
+                return new Iterator<>() {
+                    private Entry<K, V> last = null;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        return last = iterator.next();
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        ReferenceMap.this.remove(last.getKey());
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ReferenceMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                ReferenceMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Reference strength
+     */
+    public enum Strength {
+        /**
+         * Normal (strong) reference, never collected while in the map.
+         */
+        STRONG,
+        /**
+         * Weak reference, collected when it is no longer strongly referenced elsewhere.
+         */
+        WEAK,
+        /**
+         * Soft reference, collected when the memory is low (in least recently used order).
+         */
+        SOFT
+    }
+
+    // region reference classes
+    private interface KeyHolder {
+        Object key();
+    }
+
+    private static boolean keyEquals(KeyHolder self, Object o) {
+        if (self == o) {
+            return true;
+        }
+        // Collected key is equal only to itself.
+        Object key = self.key();
+        return key != null && o instanceof KeyHolder h && key.equals(h.key());
+    }
+
+    private final static class KeyReference<K> extends WeakReference<K> implements KeyHolder {
+        private final int hash;
+
+        private KeyReference(K referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = referent.hashCode();
+        }
+
+        @Override
+        public Object key() {
+            return get();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return keyEquals(this, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final static class LookupKey implements KeyHolder {
+        private final Object key;
+
+        private LookupKey(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public Object key() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return keyEquals(this, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+
+    private interface ValueReference {
+        Object mapKey();
+    }
+
+    private final static class WeakValue<V> extends WeakReference<V> implements ValueReference {
+        private final Object mapKey;
+
+        private WeakValue(Object mapKey, V referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.mapKey = mapKey;
+        }
+
+        @Override
+        public Object mapKey() {
+            return mapKey;
+        }
+    }
+
+    private final static class SoftValue<V> extends SoftReference<V> implements ValueReference {
+        private final Object mapKey;
+
+        private SoftValue(Object mapKey, V referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.mapKey = mapKey;
+        }
+
+        @Override
+        public Object mapKey() {
+            return mapKey;
+        }
+    }
+    // endregion
+}
@@ -0,0 +1,36 @@
+package jp.jyn.jbukkitlib.cache;
+
+/**
+ * The reason why the entry was removed.
+ */
+public enum RemovalCause {
+    /**
+     * Removed by user (e.g. {@link java.util.Map#remove(Object)}, {@link java.util.Map#clear()})
+     */
+    EXPLICIT,
+    /**
+     * The value was replaced by user (e.g. {@link java.util.Map#put(Object, Object)})
+     */
+    REPLACED,
+    /**
+     * Evicted because the size (or weight) exceeded the maximum.
+     */
+    SIZE,
+    /**
+     * Evicted because the entry expired.
+     */
+    EXPIRED,
+    /**
+     * The key or value was collected by GC, see {@link ReferenceMap}.
+     */
+    COLLECTED;
+
+    /**
+     * Whether the entry was removed automatically (not by user).
+     *
+     * @return true if {@link #SIZE}, {@link #EXPIRED} or {@link #COLLECTED}
+     */
+    public boolean wasEvicted() {
+        return this == SIZE || this == EXPIRED || this == COLLECTED;
+    }
+}
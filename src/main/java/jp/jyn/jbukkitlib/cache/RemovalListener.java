@@ -0,0 +1,37 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Listener notified when the entry is removed from the cache.</p>
+ * <p>Note: The listener is called in the thread that removed the entry, while holding the lock of the map (if thread-safe).
+ * Do not modify the map in the listener, and use {@link #batched(RemovalListener, Executor)} for heavy work.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+    /**
+     * Called when the entry is removed.
+     *
+     * @param key   key
+     * @param value value
+     * @param cause reason
+     */
+    void onRemoval(K key, V value, RemovalCause cause);
+
+    /**
+     * <p>Create listener that delivers notifications in batch on the executor.</p>
+     * <p>Notifications are queued, and delivered in order by one task at a time.</p>
+     *
+     * @param listener listener
+     * @param executor executor
+     * @param <K>      Key type
+     * @param <V>      Value type
+     * @return batched listener
+     */
+    static <K, V> RemovalListener<K, V> batched(RemovalListener<K, V> listener, Executor executor) {
+        return new BatchedRemovalListener<>(listener, executor);
+    }
+}
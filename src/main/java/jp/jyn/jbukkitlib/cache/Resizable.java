@@ -0,0 +1,65 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * <p>Bounded cache whose maximum can be changed at runtime without losing the contents.</p>
+ * <p>When the maximum is reduced, the exceeding entries are not evicted at once.
+ * They are evicted by {@link #trim(int)} little by little, use {@link #resize(Plugin, Resizable, long, int)} to do it over several ticks.
+ * Until then, the insertion evicts only as much as necessary to keep the current size.</p>
+ * <pre>
+ * {@code
+ * // config reload
+ * Resizable.resize(plugin, (Resizable) cache, config.getInt("cache"), 1000);
+ * }
+ * </pre>
+ */
+public interface Resizable {
+    /**
+     * Get the maximum.
+     *
+     * @return Maximum number of entries, or maximum total weight for weighted cache.
+     */
+    long getMaximum();
+
+    /**
+     * Change the maximum. The exceeding entries are evicted by {@link #trim(int)}.
+     *
+     * @param maximum Maximum number of entries, or maximum total weight for weighted cache.
+     */
+    void setMaximum(long maximum);
+
+    /**
+     * Evict the entries exceeding the maximum.
+     *
+     * @param limit Maximum number of entries to evict at once.
+     * @return Number of evicted entries, less than limit if no more entries exceed.
+     */
+    int trim(int limit);
+
+    /**
+     * <p>Change the maximum, and evict the exceeding entries over several ticks in the main thread.</p>
+     * <p>Note: The cache must be used only from the main thread, or be thread-safe.</p>
+     *
+     * @param plugin  Plugin
+     * @param cache   Cache
+     * @param maximum New maximum
+     * @param perTick Maximum number of entries to evict per tick.
+     */
+    static void resize(Plugin plugin, Resizable cache, long maximum, int perTick) {
+        if (perTick < 1) {
+            throw new IllegalArgumentException("perTick must be greater than 0");
+        }
+
+        cache.setMaximum(maximum);
+        if (cache.trim(perTick) < perTick) {
+            return;
+        }
+        Bukkit.getScheduler().runTaskTimer(plugin, task -> {
+            if (cache.trim(perTick) < perTick) {
+                task.cancel();
+            }
+        }, 1, 1);
+    }
+}
@@ -0,0 +1,105 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Convert the object from/to bytes, it is used to store the object outside of the heap.
+ *
+ * @param <T> Object type
+ */
+public interface Serializer<T> {
+    /**
+     * Object to bytes.
+     *
+     * @param value object, not null.
+     * @return bytes
+     */
+    byte[] serialize(T value);
+
+    /**
+     * Bytes to object.
+     *
+     * @param buffer buffer, the bytes between position and limit are the serialized object.
+     * @return object
+     */
+    T deserialize(ByteBuffer buffer);
+
+    /**
+     * UTF-8 String serializer.
+     *
+     * @return serializer
+     */
+    static Serializer<String> string() {
+        return new Serializer<>() {
+            @Override
+            public byte[] serialize(String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String deserialize(ByteBuffer buffer) {
+                return StandardCharsets.UTF_8.decode(buffer).toString();
+            }
+        };
+    }
+
+    /**
+     * UUID serializer (16 bytes).
+     *
+     * @return serializer
+     */
+    static Serializer<UUID> uuid() {
+        return new Serializer<>() {
+            @Override
+            public byte[] serialize(UUID value) {
+                return ByteBuffer.allocate(16)
+                    .putLong(value.getMostSignificantBits())
+                    .putLong(value.getLeastSignificantBits())
+                    .array();
+            }
+
+            @Override
+            public UUID deserialize(ByteBuffer buffer) {
+                return new UUID(buffer.getLong(), buffer.getLong());
+            }
+        };
+    }
+
+    /**
+     * Optional serializer, empty Optional is serialized as 0 bytes.
+     *
+     * @param serializer serializer of the value
+     * @param <T>        Value type
+     * @return serializer
+     */
+    static <T> Serializer<Optional<T>> optional(Serializer<T> serializer) {
+        Objects.requireNonNull(serializer);
+        return new Serializer<>() {
+            @Override
+            public byte[] serialize(Optional<T> value) {
+                if (value.isEmpty()) {
+                    return new byte[0];
+                }
+
+                byte[] bytes = serializer.serialize(value.get());
+                byte[] result = new byte[bytes.length + 1];
+                result[0] = 1; // present
+                System.arraycopy(bytes, 0, result, 1, bytes.length);
+                return result;
+            }
+
+            @Override
+            public Optional<T> deserialize(ByteBuffer buffer) {
+                if (!buffer.hasRemaining()) {
+                    return Optional.empty();
+                }
+                buffer.get();
+                return Optional.of(serializer.deserialize(buffer));
+            }
+        };
+    }
+}
@@ -1,43 +1,88 @@
 package jp.jyn.jbukkitlib.cache;
 
-import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
 
 /**
- * Size-specifiable cache
+ * <p>Size-specifiable cache</p>
+ * <p>The bounded caches created by this factory implement {@link Resizable}, the size can be changed without losing the contents.</p>
  */
 public class SizedFactory implements CacheFactory {
     private final int size;
+    private final Policy policy;
+    private final RemovalListener<Object, Object> listener;
     private final CacheFactory factory;
 
     /**
-     * <p>Initialize the factory by specifying the size.</p>
-     * <p>Infinite if size is less than 0, disable if 0, use LRU of the specified size if greater than 1.</p>
+     * <p>Initialize the factory by specifying the size, eviction policy and removal listener.</p>
+     * <p>Infinite if size is less than 0, disable if 0, use the specified policy of the specified size if greater than 1.</p>
+     * <p>Note: The listener is used only for bounded cache (size is greater than 1).</p>
      *
-     * @param size Cache size
+     * @param size     Cache size
+     * @param policy   Eviction policy
+     * @param listener Removal listener, nullable.
      */
-    public SizedFactory(int size) {
+    public SizedFactory(int size, Policy policy, RemovalListener<Object, Object> listener) {
         this.size = size;
+        this.policy = Objects.requireNonNull(policy);
+        this.listener = listener;
         if (size < 0) {
             factory = CacheFactory.INFINITY;
         } else if (size == 0) {
             factory = CacheFactory.DISABLE;
         } else {
-            factory = this::lru;
+            factory = this::bounded;
         }
     }
 
-    private <K, V> Map<K, V> lru(boolean concurrency) {
-        if (concurrency) {
-            // TODO: More efficient implementation
-            return Collections.synchronizedMap(new LRUMap<>(size));
-        } else {
-            return new LRUMap<>(size);
-        }
+    /**
+     * <p>Initialize the factory by specifying the size and eviction policy.</p>
+     * <p>Infinite if size is less than 0, disable if 0, use the specified policy of the specified size if greater than 1.</p>
+     *
+     * @param size   Cache size
+     * @param policy Eviction policy
+     */
+    public SizedFactory(int size, Policy policy) {
+        this(size, policy, null);
+    }
+
+    /**
+     * <p>Initialize the factory by specifying the size.</p>
+     * <p>Infinite if size is less than 0, disable if 0, use LRU of the specified size if greater than 1.</p>
+     *
+     * @param size Cache size
+     */
+    public SizedFactory(int size) {
+        this(size, Policy.LRU);
+    }
+
+    private <K, V> Map<K, V> bounded(boolean concurrency) {
+        return switch (policy) {
+            case LRU -> concurrency
+                ? new ConcurrentLRUMap<>(size, StripedMap.defaultStripes(size), listener)
+                : new LRUMap<>(size, listener);
+            case TINY_LFU -> concurrency
+                ? new ConcurrentTinyLFUMap<>(size, StripedMap.defaultStripes(size), listener)
+                : new TinyLFUMap<>(size, listener);
+        };
     }
 
     @Override
     public <K, V> Map<K, V> create(boolean concurrency) throws UnsupportedOperationException {
         return factory.create(concurrency);
     }
+
+    /**
+     * Eviction policy
+     */
+    public enum Policy {
+        /**
+         * Least recently used, see {@link LRUMap}
+         */
+        LRU,
+        /**
+         * Frequency-aware W-TinyLFU, see {@link TinyLFUMap}
+         */
+        TINY_LFU
+    }
 }
@@ -0,0 +1,95 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Thread-safe cache statistics counter.</p>
+ * <p>All counters are {@link LongAdder}, so recording does not contend between threads.</p>
+ */
+public class StatsCounter {
+    private final LongAdder hit = new LongAdder();
+    private final LongAdder miss = new LongAdder();
+    private final LongAdder loadSuccess = new LongAdder();
+    private final LongAdder loadFailure = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder eviction = new LongAdder();
+    private final LongAdder[] loadLatency = new LongAdder[CacheStats.HISTOGRAM_SIZE];
+
+    public StatsCounter() {
+        for (int i = 0; i < loadLatency.length; i++) {
+            loadLatency[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record cache hits.
+     *
+     * @param count number of hits
+     */
+    public void recordHits(int count) {
+        hit.add(count);
+    }
+
+    /**
+     * Record cache misses.
+     *
+     * @param count number of misses
+     */
+    public void recordMisses(int count) {
+        miss.add(count);
+    }
+
+    /**
+     * Record successful load.
+     *
+     * @param nanos load time in nanoseconds
+     */
+    public void recordLoadSuccess(long nanos) {
+        loadSuccess.increment();
+        recordLoadTime(nanos);
+    }
+
+    /**
+     * Record failed load (exception or no value).
+     *
+     * @param nanos load time in nanoseconds
+     */
+    public void recordLoadFailure(long nanos) {
+        loadFailure.increment();
+        recordLoadTime(nanos);
+    }
+
+    private void recordLoadTime(long nanos) {
+        nanos = Math.max(0, nanos);
+        totalLoadTime.add(nanos);
+        loadLatency[CacheStats.histogramIndex(nanos)].increment();
+    }
+
+    /**
+     * Record evictions.
+     *
+     * @param count number of evictions
+     */
+    public void recordEvictions(long count) {
+        eviction.add(count);
+    }
+
+    /**
+     * Get snapshot of the statistics.
+     *
+     * @param size current number of entries
+     * @return snapshot
+     */
+    public CacheStats snapshot(long size) {
+        long[] histogram = new long[loadLatency.length];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = loadLatency[i].sum();
+        }
+
+        return new CacheStats(
+            hit.sum(), miss.sum(),
+            loadSuccess.sum(), loadFailure.sum(), totalLoadTime.sum(),
+            eviction.sum(), size, histogram
+        );
+    }
+}
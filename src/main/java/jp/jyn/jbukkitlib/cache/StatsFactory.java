@@ -0,0 +1,78 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * <p>Cache factory that records the statistics of created caches, see {@link RecordingMap}.</p>
+ * <pre>
+ * {@code
+ * StatsFactory cache = StatsFactory.withListener(listener -> new SizedFactory(1000, SizedFactory.Policy.LRU, listener));
+ * UUIDRegistry registry = new UUIDRegistry(plugin, cache);
+ * LazyLocale<Message> locale = new LazyLocale<>("en_us", loader, () -> cache.create(true));
+ *
+ * sender.sendMessage(cache.stats().toString());
+ * }
+ * </pre>
+ */
+public class StatsFactory implements CacheFactory {
+    private final Function<RemovalListener<Object, Object>, CacheFactory> factory;
+    private final Queue<WeakReference<RecordingMap<?, ?>>> maps = new ConcurrentLinkedQueue<>();
+
+    private StatsFactory(Function<RemovalListener<Object, Object>, CacheFactory> factory) {
+        this.factory = Objects.requireNonNull(factory);
+    }
+
+    /**
+     * <p>Wrap the factory to record the statistics.</p>
+     * <p>Note: The evictions are not recorded, use {@link #withListener(Function)} to record them.</p>
+     *
+     * @param factory Cache factory
+     */
+    public StatsFactory(CacheFactory factory) {
+        Objects.requireNonNull(factory);
+        this.factory = listener -> factory;
+    }
+
+    /**
+     * <p>Wrap the factory to record the statistics, including the evictions.</p>
+     * <p>The function is called for each cache with the removal listener that records the evictions of that cache.</p>
+     *
+     * @param factory Function to create the cache factory with the removal listener.
+     * @return factory
+     */
+    public static StatsFactory withListener(Function<RemovalListener<Object, Object>, CacheFactory> factory) {
+        return new StatsFactory(factory);
+    }
+
+    @Override
+    public <K, V> Map<K, V> create(boolean concurrency) throws UnsupportedOperationException {
+        StatsCounter counter = new StatsCounter();
+        RecordingMap<K, V> map = new RecordingMap<>(factory.apply(RecordingMap.listener(counter, null)).create(concurrency), counter);
+        maps.add(new WeakReference<>(map));
+        return map;
+    }
+
+    /**
+     * Get the sum of the statistics of all caches created by this factory.
+     *
+     * @return statistics
+     */
+    public CacheStats stats() {
+        CacheStats stats = CacheStats.empty();
+        var iterator = maps.iterator();
+        while (iterator.hasNext()) {
+            RecordingMap<?, ?> map = iterator.next().get();
+            if (map == null) {
+                iterator.remove();
+                continue;
+            }
+            stats = stats.plus(map.stats());
+        }
+        return stats;
+    }
+}
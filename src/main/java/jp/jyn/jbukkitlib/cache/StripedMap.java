@@ -0,0 +1,496 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+
+/**
+ * <p>Thread-safe Map using lock striping.</p>
+ * <p>The map is split into multiple segments, and each segment is guarded by its own lock.
+ * Operations on different segments do not contend with each other.
+ * Segment can be any non thread-safe Map (e.g. {@link LRUMap}).</p>
+ * <p>Note: Operations that affect the whole map (e.g. {@link #size()}, iteration) are not atomic.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class StripedMap<K, V> extends AbstractMap<K, V> {
+    private final Map<K, V>[] segments;
+    private final int shift;
+
+    /**
+     * Create striped map.
+     *
+     * @param stripes Number of segments, rounded up to a power of 2.
+     * @param segment Segment supplier, the argument is the index of the segment. Must return a new Map each time.
+     */
+    @SuppressWarnings("unchecked")
+    public StripedMap(int stripes, IntFunction<Map<K, V>> segment) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes must be greater than 0");
+        }
+        Objects.requireNonNull(segment);
+
+        int n = roundStripes(stripes);
+        this.segments = new Map[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = Objects.requireNonNull(segment.apply(i));
+        }
+        this.shift = 32 - Integer.numberOfTrailingZeros(n);
+    }
+
+    /**
+     * Get the number of segments to use by default.
+     *
+     * @param capacity Total capacity of the map, used to avoid too small segments. Ignored if less than 0.
+     * @return Number of segments (power of 2)
+     */
+    public static int defaultStripes(int capacity) {
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+        if (capacity >= 0) {
+            // 1セグメントが小さすぎるとLRUの精度が落ちるので、ある程度の大きさを確保する
+            stripes = Math.min(stripes, Integer.highestOneBit(Math.max(1, capacity / 16)));
+        }
+        return Math.max(1, stripes);
+    }
+
+    /**
+     * Round up the number of segments to a power of 2.
+     *
+     * @param stripes Number of segments
+     * @return Actual number of segments
+     */
+    protected static int roundStripes(int stripes) {
+        return stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+    }
+
+    /**
+     * Limit the number of segments so that every segment can hold at least one entry.
+     *
+     * @param stripes  Number of segments
+     * @param capacity Total capacity
+     * @return Number of segments (power of 2), not greater than capacity.
+     * @throws IllegalArgumentException If capacity is less than 1.
+     */
+    protected static int limitStripes(int stripes, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        return Math.min(roundStripes(stripes), Integer.highestOneBit(capacity));
+    }
+
+    /**
+     * Split capacity into segments.
+     *
+     * @param capacity Total capacity
+     * @param stripes  Number of segments, same value as passed to the constructor.
+     * @param index    Index of segment
+     * @return Capacity of the segment, the sum of all segments is equal to capacity.
+     */
+    protected static int segmentCapacity(int capacity, int stripes, int index) {
+        int n = roundStripes(stripes);
+        return capacity / n + (index < capacity % n ? 1 : 0);
+    }
+
+    /**
+     * Get the segment for the specified key. Caller must be synchronized with the returned segment.
+     *
+     * @param key key
+     * @return segment
+     */
+    protected final Map<K, V> segment(Object key) {
+        return segments[segmentIndex(key)];
+    }
+
+    private int segmentIndex(Object key) {
+        if (shift == 32) {
+            return 0;
+        }
+        int h = key == null ? 0 : key.hashCode();
+        // Use upper bits, lower bits are used by HashMap in segment.
+        return ((h ^ (h >>> 16)) * 0x9E3779B9) >>> shift;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T>[] groupBySegment(Collection<? extends T> items, Function<? super T, Object> key) {
+        List<T>[] groups = new List[segments.length];
+        for (T item : items) {
+            int index = segmentIndex(key.apply(item));
+            List<T> group = groups[index];
+            if (group == null) {
+                groups[index] = group = new ArrayList<>();
+            }
+            group.add(item);
+        }
+        return groups;
+    }
+
+    /**
+     * Get all segments. Caller must be synchronized with each segment.
+     *
+     * @return segments
+     */
+    protected final Map<K, V>[] segments() {
+        return segments;
+    }
+
+    /**
+     * Change the maximum of each segment, segments must implement {@link Resizable}.
+     *
+     * @param maximum Function to get the maximum of the segment from the index.
+     */
+    protected final void setSegmentMaximum(IntToLongFunction maximum) {
+        for (int i = 0; i < segments.length; i++) {
+            synchronized (segments[i]) {
+                ((Resizable) segments[i]).setMaximum(maximum.applyAsLong(i));
+            }
+        }
+    }
+
+    /**
+     * Evict the entries exceeding the maximum of each segment, segments must implement {@link Resizable}.
+     *
+     * @param limit Maximum number of entries to evict at once.
+     * @return Number of evicted entries.
+     * @see Resizable#trim(int)
+     */
+    protected final int trimSegments(int limit) {
+        int count = 0;
+        // Lock one segment at a time, so as not to block the other threads for a long time.
+        for (int i = 0; i < segments.length && count < limit; i++) {
+            synchronized (segments[i]) {
+                count += ((Resizable) segments[i]).trim(limit - count);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (Map<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Map<K, V> segment : segments) {
+            synchronized (segment) {
+                if (!segment.isEmpty()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.containsKey(key);
+        }
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (Map<K, V> segment : segments) {
+            synchronized (segment) {
+                if (segment.containsValue(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.getOrDefault(key, defaultValue);
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.put(key, value);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        if (m.size() <= 1) {
+            for (Entry<? extends K, ? extends V> e : m.entrySet()) {
+                put(e.getKey(), e.getValue());
+            }
+            return;
+        }
+
+        // Lock each segment only once.
+        List<Entry<? extends K, ? extends V>>[] groups = groupBySegment(m.entrySet(), Entry::getKey);
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == null) {
+                continue;
+            }
+            Map<K, V> segment = segments[i];
+            synchronized (segment) {
+                for (Entry<? extends K, ? extends V> e : groups[i]) {
+                    segment.put(e.getKey(), e.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Get the values of multiple keys.</p>
+     * <p>Keys are grouped by segment, and each segment is locked only once.</p>
+     *
+     * @param keys keys
+     * @return Map of the keys present in this map and their values (null values are excluded).
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys) {
+        Map<K, V> result = new HashMap<>((keys.size() * 4) / 3 + 1);
+        List<? extends K>[] groups = groupBySegment(keys, k -> k);
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == null) {
+                continue;
+            }
+            Map<K, V> segment = segments[i];
+            synchronized (segment) {
+                for (K key : groups[i]) {
+                    V value = segment.get(key);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        for (Map<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.putIfAbsent(key, value);
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.remove(key, value);
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.replace(key, oldValue, newValue);
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.replace(key, value);
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.computeIfAbsent(key, mappingFunction);
+        }
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.computeIfPresent(key, remappingFunction);
+        }
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.compute(key, remappingFunction);
+        }
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Map<K, V> segment = segment(key);
+        synchronized (segment) {
+            return segment.merge(key, value, remappingFunction);
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(action);
+        for (Map<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.forEach(action);
+            }
+        }
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        for (Map<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.replaceAll(function);
+            }
+        }
+    }
+
+    /**
+     * <p>Entry set view.</p>
+     * <p>Note: Iterator is weakly consistent. It iterates a snapshot of each segment.</p>
+     *
+     * @return entry set
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return StripedMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Entry<?, ?> e)) {
+                    return false;
+                }
+                Map<K, V> segment = segment(e.getKey());
+                synchronized (segment) {
+                    return segment.entrySet().contains(e);
+                }
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                return o instanceof Entry<?, ?> e && StripedMap.this.remove(e.getKey(), e.getValue());
+            }
+
+            @Override
+            public void clear() {
+                StripedMap.this.clear();
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private int index = 0;
+        private Iterator<Entry<K, V>> current = null;
+        private Entry<K, V> last = null;
+
+        @Override
+        public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+                if (index >= segments.length) {
+                    return false;
+                }
+
+                Map<K, V> segment = segments[index++];
+                List<Entry<K, V>> snapshot;
+                synchronized (segment) {
+                    snapshot = new ArrayList<>(segment.size());
+                    for (Entry<K, V> e : segment.entrySet()) {
+                        snapshot.add(new WriteThroughEntry(e.getKey(), e.getValue()));
+                    }
+                }
+                current = snapshot.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return last = current.next();
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            StripedMap.this.remove(last.getKey(), last.getValue());
+            last = null;
+        }
+    }
+
+    private final class WriteThroughEntry extends SimpleEntry<K, V> {
+        private WriteThroughEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            StripedMap.this.put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>Two-level cache, small heap LRU in front of the large off-heap store, see {@link TieredMap}.</p>
+ * <pre>
+ * {@code
+ * // 1000 entries in heap, 16MB off-heap
+ * CacheFactory factory = new TieredFactory(1000, 16 * 1024 * 1024, Serializer.uuid(), Serializer.optional(Serializer.string()));
+ * }
+ * </pre>
+ * <p>Note: The key and value types of the created map must be the types of the serializers.</p>
+ */
+public class TieredFactory implements CacheFactory {
+    private final int heapSize;
+    private final int offHeapBytes;
+    private final Serializer<Object> keySerializer;
+    private final Serializer<Object> valueSerializer;
+
+    /**
+     * Initialize the factory by specifying the size of each tier.
+     *
+     * @param heapSize        Maximum number of entries in heap.
+     * @param offHeapBytes    Size of the off-heap buffer in bytes, split into segments if thread-safe.
+     * @param keySerializer   Key serializer
+     * @param valueSerializer Value serializer
+     */
+    @SuppressWarnings("unchecked")
+    public TieredFactory(int heapSize, int offHeapBytes, Serializer<?> keySerializer, Serializer<?> valueSerializer) {
+        if (heapSize < 1) {
+            throw new IllegalArgumentException("heapSize must be greater than 0");
+        }
+        if (offHeapBytes < 1) {
+            throw new IllegalArgumentException("offHeapBytes must be greater than 0");
+        }
+        this.heapSize = heapSize;
+        this.offHeapBytes = offHeapBytes;
+        this.keySerializer = (Serializer<Object>) Objects.requireNonNull(keySerializer);
+        this.valueSerializer = (Serializer<Object>) Objects.requireNonNull(valueSerializer);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <K, V> Map<K, V> create(boolean concurrency) throws UnsupportedOperationException {
+        if (!concurrency) {
+            return (Map<K, V>) new TieredMap<>(heapSize, offHeapBytes, keySerializer, valueSerializer);
+        }
+
+        int stripes = StripedMap.defaultStripes(heapSize);
+        return (Map<K, V>) new StripedMap<Object, Object>(stripes, i -> new TieredMap<>(
+            Math.max(1, StripedMap.segmentCapacity(heapSize, stripes, i)),
+            Math.max(64, StripedMap.segmentCapacity(offHeapBytes, stripes, i)),
+            keySerializer, valueSerializer
+        ));
+    }
+}
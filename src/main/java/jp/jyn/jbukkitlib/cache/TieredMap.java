@@ -0,0 +1,165 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>Two-level cache, the small heap LRU (L1) in front of the large off-heap store (L2).</p>
+ * <p>The entry evicted from L1 is serialized and moved to L2 (demotion),
+ * and the entry found in L2 is moved back to L1 (promotion).
+ * L2 evicts the oldest entries (FIFO) when it is full.</p>
+ * <p>Note: Non thread-safe, null value is not allowed.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class TieredMap<K, V> extends AbstractMap<K, V> {
+    private final LRUMap<K, V> heap;
+    private final OffHeapStore<K, V> offHeap;
+
+    /**
+     * Create tiered map.
+     *
+     * @param heapSize        Maximum number of entries in heap.
+     * @param offHeapBytes    Size of the off-heap buffer in bytes.
+     * @param keySerializer   Key serializer
+     * @param valueSerializer Value serializer
+     */
+    public TieredMap(int heapSize, int offHeapBytes, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this.offHeap = new OffHeapStore<>(offHeapBytes, keySerializer, valueSerializer);
+        this.heap = new LRUMap<>(heapSize) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (super.removeEldestEntry(eldest)) {
+                    offHeap.put(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the number of entries in heap.
+     *
+     * @return heap size
+     */
+    public int heapSize() {
+        return heap.size();
+    }
+
+    /**
+     * Get the number of entries in off-heap.
+     *
+     * @return off-heap size
+     */
+    public int offHeapSize() {
+        return offHeap.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        V value = heap.get(key);
+        if (value != null || key == null) {
+            return value;
+        }
+
+        value = offHeap.remove(key);
+        if (value != null) {
+            // promotion
+            heap.put((K) key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        V old = heap.put(key, value);
+        if (old == null) {
+            old = offHeap.remove(key);
+        }
+        return old;
+    }
+
+    @Override
+    public V remove(Object key) {
+        V old = heap.remove(key);
+        return old != null ? old : offHeap.remove(key);
+    }
+
+    @Override
+    public int size() {
+        return heap.size() + offHeap.size();
+    }
+
+    @Override
+    public void clear() {
+        heap.clear();
+        offHeap.clear();
+    }
+
+    /**
+     * <p>Entry set view.</p>
+     * <p>Note: Iterator iterates a snapshot, all off-heap entries are deserialized.</p>
+     *
+     * @return entry set
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                List<Entry<K, V>> snapshot = new ArrayList<>(size());
+                heap.forEach((k, v) -> snapshot.add(new SimpleImmutableEntry<>(k, v)));
+                offHeap.forEach((k, v) -> snapshot.add(new SimpleImmutableEntry<>(k, v)));
+
+                Iterator<Entry<K, V>> iterator = snapshot.iterator();
+                return new Iterator<>() {
+                    private Entry<K, V> last = null;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        return last = iterator.next();
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        TieredMap.this.remove(last.getKey());
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return TieredMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                TieredMap.this.clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,171 @@
+package jp.jyn.jbukkitlib.cache;
+
+import jp.jyn.jbukkitlib.util.PackagePrivate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * <p>Hierarchical timer wheel.</p>
+ * <p>Each level of wheel has buckets of a coarser time span (about 1 second, 1 minute, 1 hour, 1 day and 6 days),
+ * a timer is placed in the bucket that matches its remaining time and is cascaded down when the wheel turns.
+ * Schedule/deschedule are O(1), and {@link #advance(long, Predicate)} only visits the buckets that have expired.</p>
+ * <p>Note: Non thread-safe</p>
+ */
+@PackagePrivate
+class TimerWheel {
+    private final static int[] BUCKETS = {64, 64, 32, 4, 1};
+    private final static long[] SPANS = {
+        ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1)), // 1.07s
+        ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1)), // 1.14m
+        ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1)), // 1.22h
+        ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 1.63d
+        BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 6.5d
+        BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 6.5d
+    };
+    private final static int[] SHIFT = {
+        Long.numberOfTrailingZeros(SPANS[0]),
+        Long.numberOfTrailingZeros(SPANS[1]),
+        Long.numberOfTrailingZeros(SPANS[2]),
+        Long.numberOfTrailingZeros(SPANS[3]),
+        Long.numberOfTrailingZeros(SPANS[4]),
+    };
+
+    private final Timer[][] wheel;
+    private long nanos;
+
+    /**
+     * @param nanos current time
+     */
+    TimerWheel(long nanos) {
+        this.nanos = nanos;
+        this.wheel = new Timer[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Timer[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                Timer sentinel = new Timer();
+                sentinel.prev = sentinel.next = sentinel;
+                wheel[i][j] = sentinel;
+            }
+        }
+    }
+
+    private static long ceilingPowerOfTwo(long x) {
+        return 1L << -Long.numberOfLeadingZeros(x - 1);
+    }
+
+    /**
+     * Schedule the timer, the timer will fire at {@link Timer#time}.
+     * If the timer is already scheduled, it is rescheduled.
+     *
+     * @param timer timer
+     */
+    void schedule(Timer timer) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+        }
+
+        Timer sentinel = findBucket(timer.time);
+        timer.prev = sentinel.prev;
+        timer.next = sentinel;
+        sentinel.prev.next = timer;
+        sentinel.prev = timer;
+    }
+
+    /**
+     * Remove the timer from the wheel, do nothing if not scheduled.
+     *
+     * @param timer timer
+     */
+    void deschedule(Timer timer) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+        }
+    }
+
+    /**
+     * Turn the wheel to the current time.
+     *
+     * @param currentNanos current time
+     * @param expire       Called with the expired timer, return false to reschedule it (e.g. the time was extended).
+     */
+    void advance(long currentNanos, Predicate<Timer> expire) {
+        long previousNanos = nanos;
+        nanos = currentNanos;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previousNanos >>> SHIFT[i];
+            long currentTicks = currentNanos >>> SHIFT[i];
+            long delta = currentTicks - previousTicks;
+            if (delta <= 0) {
+                break;
+            }
+            expire(i, previousTicks, delta, expire);
+        }
+    }
+
+    private void expire(int index, long previousTicks, long delta, Predicate<Timer> expire) {
+        Timer[] timerWheel = wheel[index];
+        int mask = timerWheel.length - 1;
+        int steps = (int) Math.min(1 + delta, timerWheel.length);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+
+        for (int i = start; i < end; i++) {
+            Timer sentinel = timerWheel[i & mask];
+            Timer timer = sentinel.next;
+            // detach all timers in the bucket.
+            sentinel.prev = sentinel.next = sentinel;
+
+            while (timer != sentinel) {
+                Timer next = timer.next;
+                timer.prev = timer.next = null;
+                if (timer.time - nanos > 0 || !expire.test(timer)) {
+                    schedule(timer);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    private Timer findBucket(long time) {
+        long duration = time - nanos;
+        int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = time >>> SHIFT[i];
+                return wheel[i][(int) (ticks & (wheel[i].length - 1))];
+            }
+        }
+        return wheel[length][0];
+    }
+
+    private static void unlink(Timer timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = timer.next = null;
+    }
+
+    /**
+     * Timer scheduled in the wheel.
+     */
+    @PackagePrivate
+    static class Timer {
+        /**
+         * Expiration time
+         */
+        @PackagePrivate
+        long time;
+        private Timer prev = null;
+        private Timer next = null;
+
+        /**
+         * Check whether the timer is in the wheel.
+         *
+         * @return true if scheduled
+         */
+        @PackagePrivate
+        boolean isScheduled() {
+            return next != null;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>Frequency-aware Map using W-TinyLFU policy.</p>
+ * <p>New entries are stored in a small LRU window (1% of capacity).
+ * When the window overflows, the entry is admitted to the main segmented LRU (probation/protected)
+ * only if its estimated access frequency is higher than the main's victim.
+ * Therefore, one-off scans do not flush the frequently used entries, unlike {@link LRUMap}.</p>
+ * <p>Note: Non thread-safe</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class TinyLFUMap<K, V> extends AbstractMap<K, V> implements Resizable {
+    private final static int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+    private final Map<K, Node<K, V>> data;
+    private final FrequencySketch sketch;
+
+    private final NodeList<K, V> window = new NodeList<>();
+    private final NodeList<K, V> probation = new NodeList<>();
+    private final NodeList<K, V> protect = new NodeList<>();
+
+    private int maxSize;
+    private int windowMax;
+    private int mainMax;
+    private int protectedMax;
+    private final RemovalListener<? super K, ? super V> listener;
+
+    /**
+     * Create W-TinyLFU map with removal listener.
+     *
+     * @param maxSize  Maximum number of entries
+     * @param listener Removal listener, nullable.
+     */
+    public TinyLFUMap(int maxSize, RemovalListener<? super K, ? super V> listener) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+
+        this.data = new HashMap<>((maxSize * 4) / 3);
+        this.sketch = new FrequencySketch(maxSize);
+        this.listener = listener;
+        setMaximumSize(maxSize);
+    }
+
+    public TinyLFUMap(int maxSize) {
+        this(maxSize, null);
+    }
+
+    private void notifyRemoval(Node<K, V> node, V value, RemovalCause cause) {
+        if (listener != null) {
+            listener.onRemoval(node.key, value, cause);
+        }
+    }
+
+    /**
+     * Get maximum number of entries.
+     *
+     * @return maximum size
+     */
+    public int getMaximumSize() {
+        return maxSize;
+    }
+
+    /**
+     * <p>Change maximum number of entries. The exceeding entries are evicted by {@link #trim(int)}.</p>
+     * <p>Note: The frequency sketch keeps the initial size, the accuracy decreases if the size is greatly increased.</p>
+     *
+     * @param maxSize Maximum number of entries
+     */
+    public void setMaximumSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        this.windowMax = Math.max(1, maxSize / 100);
+        this.mainMax = maxSize - windowMax;
+        this.protectedMax = (int) (mainMax * 0.8);
+
+        // The window is small (1%), move the overflow to the main (not evicted).
+        while (window.size > windowMax) {
+            Node<K, V> node = window.head;
+            window.remove(node);
+            node.queue = PROBATION;
+            probation.addLast(node);
+        }
+    }
+
+    @Override
+    public long getMaximum() {
+        return maxSize;
+    }
+
+    @Override
+    public void setMaximum(long maximum) {
+        setMaximumSize((int) Math.min(maximum, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public int trim(int limit) {
+        int count = 0;
+        while (count < limit && data.size() > maxSize) {
+            // The probation has the least valuable entries.
+            Node<K, V> victim = probation.head != null ? probation.head
+                : protect.head != null ? protect.head : window.head;
+            list(victim).remove(victim);
+            data.remove(victim.key);
+            count++;
+            notifyRemoval(victim, victim.value, RemovalCause.SIZE);
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return data.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+
+        onHit(node);
+        return node.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            V old = node.value;
+            node.value = value;
+            onHit(node);
+            notifyRemoval(node, old, RemovalCause.REPLACED);
+            return old;
+        }
+
+        node = new Node<>(key, value);
+        data.put(key, node);
+        window.addLast(node);
+        if (window.size > windowMax) {
+            evict();
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<K, V> node = data.remove(key);
+        if (node == null) {
+            return null;
+        }
+
+        list(node).remove(node);
+        notifyRemoval(node, node.value, RemovalCause.EXPLICIT);
+        return node.value;
+    }
+
+    @Override
+    public void clear() {
+        if (listener != null) {
+            for (Node<K, V> node : data.values()) {
+                notifyRemoval(node, node.value, RemovalCause.EXPLICIT);
+            }
+        }
+        data.clear();
+        window.clear();
+        probation.clear();
+        protect.clear();
+    }
+
+    private NodeList<K, V> list(Node<K, V> node) {
+        return switch (node.queue) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            default -> protect;
+        };
+    }
+
+    private void onHit(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW -> window.moveToLast(node);
+            case PROBATION -> {
+                // promote
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protect.addLast(node);
+                if (protect.size > protectedMax) {
+                    Node<K, V> demote = protect.head;
+                    protect.remove(demote);
+                    demote.queue = PROBATION;
+                    probation.addLast(demote);
+                }
+            }
+            default -> protect.moveToLast(node);
+        }
+    }
+
+    private void evict() {
+        // Window overflowed, the candidate try to enter the main.
+        Node<K, V> candidate = window.head;
+        window.remove(candidate);
+        candidate.queue = PROBATION;
+
+        if (probation.size + protect.size < mainMax) {
+            probation.addLast(candidate);
+            return;
+        }
+
+        Node<K, V> victim = probation.head != null ? probation.head : protect.head;
+        if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            list(victim).remove(victim);
+            data.remove(victim.key);
+            probation.addLast(candidate);
+            notifyRemoval(victim, victim.value, RemovalCause.SIZE);
+        } else {
+            data.remove(candidate.key);
+            notifyRemoval(candidate, candidate.value, RemovalCause.SIZE);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                Iterator<Node<K, V>> iterator = data.values().iterator();
+                return new Iterator<>() {
+                    private Node<K, V> last = null;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        return last = iterator.next();
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        iterator.remove();
+                        list(last).remove(last);
+                        notifyRemoval(last, last.value, RemovalCause.EXPLICIT);
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return data.size();
+            }
+
+            @Override
+            public void clear() {
+                TinyLFUMap.this.clear();
+            }
+        };
+    }
+
+    private final static class Node<K, V> implements Entry<K, V> {
+        private final K key;
+        private V value;
+        private int queue = WINDOW;
+
+        private Node<K, V> prev = null;
+        private Node<K, V> next = null;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry<?, ?> e
+                && Objects.equals(key, e.getKey())
+                && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private final static class NodeList<K, V> {
+        private Node<K, V> head = null;
+        private Node<K, V> tail = null;
+        private int size = 0;
+
+        private void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        private void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = node.next = null;
+            size--;
+        }
+
+        private void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        private void clear() {
+            head = tail = null;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package jp.jyn.jbukkitlib.cache;
+
+/**
+ * Calculate the weight (e.g. estimated retained size in bytes) of the cache entry.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+    /**
+     * Calculate the weight of the entry. It must not change while the entry is in the cache.
+     *
+     * @param key   key
+     * @param value value
+     * @return weight, must be 0 or greater.
+     */
+    int weigh(K key, V value);
+
+    /**
+     * Weigher that always returns 1, the weighted size is the same as the number of entries.
+     *
+     * @param <K> Key type
+     * @param <V> Value type
+     * @return Weigher
+     */
+    static <K, V> Weigher<K, V> singleton() {
+        return (k, v) -> 1;
+    }
+}
@@ -0,0 +1,56 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>Weight-bounded cache, for example, it can be limited by the estimated memory size.</p>
+ * <pre>
+ * {@code
+ * // about 32MB
+ * CacheFactory factory = new WeightedFactory(32 * 1024 * 1024, (key, value) -> estimateSize(value));
+ * }
+ * </pre>
+ * <p>The current total weight is available from {@link WeightedLRUMap#weightedSize()} and
+ * {@link ConcurrentWeightedLRUMap#weightedSize()}.</p>
+ * <p>The thread-safe map has {@link ConcurrentWeightedLRUMap#DEFAULT_STRIPES} segments,
+ * a single entry heavier than {@code maxWeight / DEFAULT_STRIPES} is not stored.</p>
+ */
+public class WeightedFactory implements CacheFactory {
+    private final long maxWeight;
+    private final Weigher<Object, Object> weigher;
+    private final RemovalListener<Object, Object> listener;
+
+    /**
+     * Initialize the factory by specifying the maximum weight and removal listener.
+     *
+     * @param maxWeight Maximum total weight
+     * @param weigher   Weigher
+     * @param listener  Removal listener, nullable.
+     */
+    public WeightedFactory(long maxWeight, Weigher<Object, Object> weigher, RemovalListener<Object, Object> listener) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("maxWeight must be 0 or greater");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = Objects.requireNonNull(weigher);
+        this.listener = listener;
+    }
+
+    /**
+     * Initialize the factory by specifying the maximum weight.
+     *
+     * @param maxWeight Maximum total weight
+     * @param weigher   Weigher
+     */
+    public WeightedFactory(long maxWeight, Weigher<Object, Object> weigher) {
+        this(maxWeight, weigher, null);
+    }
+
+    @Override
+    public <K, V> Map<K, V> create(boolean concurrency) throws UnsupportedOperationException {
+        return concurrency
+            ? new ConcurrentWeightedLRUMap<>(maxWeight, weigher, ConcurrentWeightedLRUMap.DEFAULT_STRIPES, listener)
+            : new WeightedLRUMap<>(maxWeight, weigher, listener);
+    }
+}
@@ -0,0 +1,249 @@
+package jp.jyn.jbukkitlib.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>LRU Map bounded by the total weight of entries instead of the number of entries.</p>
+ * <p>An entry heavier than the maximum weight is not stored (the removal listener receives it with {@link RemovalCause#SIZE}),
+ * and the other entries are not evicted for it.</p>
+ * <p>Note: Non thread-safe</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class WeightedLRUMap<K, V> extends AbstractMap<K, V> implements Resizable {
+    private final Map<K, Node<K, V>> data = new LinkedHashMap<>(16, 0.75f, true);
+    private final Weigher<? super K, ? super V> weigher;
+    private long maxWeight;
+    private final RemovalListener<? super K, ? super V> listener;
+    private long weightedSize = 0;
+
+    /**
+     * Create weight-bounded LRU map with removal listener.
+     *
+     * @param maxWeight Maximum total weight
+     * @param weigher   Weigher
+     * @param listener  Removal listener, nullable.
+     */
+    public WeightedLRUMap(long maxWeight, Weigher<? super K, ? super V> weigher, RemovalListener<? super K, ? super V> listener) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("maxWeight must be 0 or greater");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = Objects.requireNonNull(weigher);
+        this.listener = listener;
+    }
+
+    /**
+     * Create weight-bounded LRU map.
+     *
+     * @param maxWeight Maximum total weight
+     * @param weigher   Weigher
+     */
+    public WeightedLRUMap(long maxWeight, Weigher<? super K, ? super V> weigher) {
+        this(maxWeight, weigher, null);
+    }
+
+    /**
+     * Get maximum total weight.
+     *
+     * @return maximum weight
+     */
+    public long getMaximumWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Change maximum total weight. The exceeding entries are evicted by {@link #trim(int)}.
+     *
+     * @param maxWeight Maximum total weight
+     */
+    public void setMaximumWeight(long maxWeight) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("maxWeight must be 0 or greater");
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    @Override
+    public long getMaximum() {
+        return maxWeight;
+    }
+
+    @Override
+    public void setMaximum(long maximum) {
+        setMaximumWeight(maximum);
+    }
+
+    @Override
+    public int trim(int limit) {
+        int count = 0;
+        Iterator<Node<K, V>> iterator = data.values().iterator();
+        while (count < limit && weightedSize > maxWeight && iterator.hasNext()) {
+            Node<K, V> eldest = iterator.next();
+            iterator.remove();
+            weightedSize -= eldest.weight;
+            count++;
+            notifyRemoval(eldest, RemovalCause.SIZE);
+        }
+        return count;
+    }
+
+    /**
+     * Get current total weight.
+     *
+     * @return total weight
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    private int weigh(K key, V value) {
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be 0 or greater");
+        }
+        return weight;
+    }
+
+    private void notifyRemoval(Node<K, V> node, RemovalCause cause) {
+        if (listener != null) {
+            listener.onRemoval(node.getKey(), node.getValue(), cause);
+        }
+    }
+
+    private void evict(long limit) {
+        Iterator<Node<K, V>> iterator = data.values().iterator();
+        while (weightedSize > limit && iterator.hasNext()) {
+            Node<K, V> eldest = iterator.next();
+            iterator.remove();
+            weightedSize -= eldest.weight;
+            notifyRemoval(eldest, RemovalCause.SIZE);
+        }
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return data.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = data.get(key);
+        return node == null ? null : node.getValue();
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Node<K, V> node = new Node<>(key, value, weigh(key, value));
+        if (node.weight > maxWeight) {
+            // It can never fit, do not flush the whole map for it. The old value must not remain either.
+            Node<K, V> old = data.remove(key);
+            if (old != null) {
+                weightedSize -= old.weight;
+                notifyRemoval(old, RemovalCause.REPLACED);
+            }
+            notifyRemoval(node, RemovalCause.SIZE);
+            return old == null ? null : old.getValue();
+        }
+
+        // If the maximum has been reduced, evict only as much as necessary, the rest is evicted by trim.
+        long limit = Math.max(maxWeight, weightedSize);
+        Node<K, V> old = data.put(key, node);
+        weightedSize += node.weight;
+        if (old != null) {
+            weightedSize -= old.weight;
+            notifyRemoval(old, RemovalCause.REPLACED);
+        }
+
+        evict(limit);
+        return old == null ? null : old.getValue();
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<K, V> node = data.remove(key);
+        if (node == null) {
+            return null;
+        }
+
+        weightedSize -= node.weight;
+        notifyRemoval(node, RemovalCause.EXPLICIT);
+        return node.getValue();
+    }
+
+    @Override
+    public void clear() {
+        if (listener != null) {
+            for (Node<K, V> node : data.values()) {
+                notifyRemoval(node, RemovalCause.EXPLICIT);
+            }
+        }
+        data.clear();
+        weightedSize = 0;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                Iterator<Node<K, V>> iterator = data.values().iterator();
+                return new Iterator<>() {
+                    private Node<K, V> last = null;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        return last = iterator.next();
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        iterator.remove();
+                        weightedSize -= last.weight;
+                        notifyRemoval(last, RemovalCause.EXPLICIT);
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return data.size();
+            }
+
+            @Override
+            public void clear() {
+                WeightedLRUMap.this.clear();
+            }
+        };
+    }
+
+    private final static class Node<K, V> extends SimpleImmutableEntry<K, V> {
+        private final int weight;
+
+        private Node(K key, V value, int weight) {
+            super(key, value);
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * <p>Map decorator that writes the changes to the backing store (e.g. database) in batches.</p>
+ * <p>Changes are recorded as dirty entries, and multiple changes to the same key are coalesced into one write.
+ * The dirty entries are kept until they are written, even if the entry is evicted from the cache.</p>
+ * <pre>
+ * {@code
+ * WriteBehindMap<UUID, Integer> map = new WriteBehindMap<>(new ConcurrentLRUMap<>(1000), database, 100);
+ * BukkitTask task = map.start(plugin, 20 * 60); // flush every minute
+ * // onDisable: task.cancel(); map.flush();
+ * }
+ * </pre>
+ * <p>Thread-safety depends on the delegate map, the writer is called from one thread at a time.
+ * The cached value and the dirty entry of a key are updated under the same lock,
+ * so with a thread-safe delegate, the last written value is always the cached one.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class WriteBehindMap<K, V> implements Map<K, V> {
+    private final static Object DELETED = new Object();
+
+    private final Map<K, V> delegate;
+    private final Writer<K, V> writer;
+    private final int batchSize;
+    private final Map<K, Object> dirty = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+
+    /**
+     * Create write-behind map.
+     *
+     * @param delegate  Map to cache the values
+     * @param writer    Backing store writer
+     * @param batchSize Maximum number of entries passed to the writer at once.
+     */
+    public WriteBehindMap(Map<K, V> delegate, Writer<K, V> writer, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be greater than 0");
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.writer = Objects.requireNonNull(writer);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Get the number of entries not yet written.
+     *
+     * @return dirty count
+     */
+    public int dirtyCount() {
+        return dirty.size();
+    }
+
+    // region flush
+
+    /**
+     * <p>Write the dirty entries to the writer in the current thread.</p>
+     * <p>If the writer throws exception, the entries of the failed batch are marked as dirty again
+     * (unless they have been changed after that), and the exception is rethrown.</p>
+     */
+    @SuppressWarnings("unchecked")
+    public void flush() {
+        synchronized (flushLock) {
+            Map<K, V> writes = new HashMap<>();
+            Set<K> deletes = new HashSet<>();
+            for (Iterator<Entry<K, Object>> iterator = dirty.entrySet().iterator(); iterator.hasNext(); ) {
+                Entry<K, Object> entry = iterator.next();
+                K key = entry.getKey();
+                Object value = entry.getValue();
+                // Remove only if it has not been changed after iterator returned.
+                if (!dirty.remove(key, value)) {
+                    continue;
+                }
+
+                if (value == DELETED) {
+                    deletes.add(key);
+                } else {
+                    writes.put(key, (V) value);
+                }
+
+                if (writes.size() + deletes.size() >= batchSize) {
+                    write(writes, deletes);
+                    writes = new HashMap<>();
+                    deletes = new HashSet<>();
+                }
+            }
+
+            if (!writes.isEmpty() || !deletes.isEmpty()) {
+                write(writes, deletes);
+            }
+        }
+    }
+
+    private void write(Map<K, V> writes, Set<K> deletes) {
+        try {
+            writer.write(writes, deletes);
+        } catch (RuntimeException | Error e) {
+            // The newer change takes precedence.
+            writes.forEach(dirty::putIfAbsent);
+            deletes.forEach(key -> dirty.putIfAbsent(key, DELETED));
+            throw e;
+        }
+    }
+
+    /**
+     * Write the dirty entries with executor.
+     *
+     * @param executor executor
+     * @return {@link CompletableFuture}
+     */
+    public CompletableFuture<Void> flushAsync(Executor executor) {
+        return CompletableFuture.runAsync(this::flush, executor);
+    }
+
+    /**
+     * Flush periodically in Bukkit asynchronous task.
+     *
+     * @param plugin Plugin
+     * @param period Period in ticks
+     * @return Task, cancel it on disable (and call {@link #flush()} to write remaining entries).
+     */
+    public BukkitTask start(Plugin plugin, long period) {
+        return Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flush, period, period);
+    }
+    // endregion
+
+    // Update the delegate and mark the key dirty under the same per-key lock (the bin of the dirty map),
+    // otherwise concurrent updates may leave the cache and the dirty entry with different values.
+    // mark returns the new dirty value of the result, or null if unchanged.
+    @SuppressWarnings("unchecked")
+    private <R> R update(K key, Supplier<R> update, Function<? super R, Object> mark) {
+        Object[] result = new Object[1];
+        dirty.compute(key, (k, d) -> {
+            R r = update.get();
+            result[0] = r;
+            Object m = mark.apply(r);
+            return m == null ? d : m;
+        });
+        return (R) result[0];
+    }
+
+    private static Object dirtyValue(Object value) {
+        return value == null ? DELETED : value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return update(key, () -> delegate.put(key, value), old -> value);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return update(key, () -> delegate.putIfAbsent(key, value), old -> old == null ? value : null);
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Entry<? extends K, ? extends V> e : m.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Remove the value, the deletion is always written even if the value is not cached (e.g. evicted).
+     *
+     * @param key key
+     * @return removed value
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        return update((K) key, () -> delegate.remove(key), old -> DELETED);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object key, Object value) {
+        return update((K) key, () -> delegate.remove(key, value), removed -> removed ? DELETED : null);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return update(key, () -> delegate.replace(key, oldValue, newValue), replaced -> replaced ? newValue : null);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return update(key, () -> delegate.replace(key, value), old -> old != null ? value : null);
+    }
+
+    /**
+     * Get the value, or compute it if absent. The computed value is treated as loaded from the backing store, it is not written.
+     *
+     * @param key             key
+     * @param mappingFunction loader
+     * @return value
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return delegate.computeIfAbsent(key, mappingFunction);
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        boolean[] present = {false};
+        return update(key, () -> delegate.computeIfPresent(key, (k, v) -> {
+            present[0] = true;
+            return remappingFunction.apply(k, v);
+        }), value -> present[0] ? dirtyValue(value) : null);
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return update(key, () -> delegate.compute(key, remappingFunction), WriteBehindMap::dirtyValue);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        return update(key, () -> delegate.merge(key, value, remappingFunction), WriteBehindMap::dirtyValue);
+    }
+
+    /**
+     * Replace each value. It is applied key by key, the keys added during the call may not be replaced.
+     *
+     * @param function the function to apply to each entry
+     */
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        Objects.requireNonNull(function);
+        // Not delegate.replaceAll(), the function runs under the lock of the delegate and the lock order is reversed.
+        for (K key : new ArrayList<>(delegate.keySet())) {
+            computeIfPresent(key, function);
+        }
+    }
+
+    /**
+     * Remove all cached values, this is not written as deletion.
+     */
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    // region delegate
+    @Override
+    public V get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        return delegate.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return delegate.containsValue(value);
+    }
+
+    /**
+     * Key set view. Note: The changes via the view are not written.
+     *
+     * @return key set
+     */
+    @Override
+    public Set<K> keySet() {
+        return delegate.keySet();
+    }
+
+    /**
+     * Values view. Note: The changes via the view are not written.
+     *
+     * @return values
+     */
+    @Override
+    public Collection<V> values() {
+        return delegate.values();
+    }
+
+    /**
+     * Entry set view. Note: The changes via the view are not written.
+     *
+     * @return entry set
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return delegate.entrySet();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || delegate.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+    // endregion
+
+    /**
+     * Backing store writer, for example, {@link jp.jyn.jbukkitlib.sql.SQLTemplate} subclass.
+     *
+     * @param <K> Key type
+     * @param <V> Value type
+     */
+    @FunctionalInterface
+    public interface Writer<K, V> {
+        /**
+         * Write the changes.
+         *
+         * @param writes  Inserted or updated entries
+         * @param deletes Deleted keys
+         */
+        void write(Map<K, V> writes, Set<K> deletes);
+    }
+}
@@ -0,0 +1,369 @@
+package jp.jyn.jbukkitlib.sql;
+
+import jp.jyn.jbukkitlib.JBukkitLib;
+import jp.jyn.jbukkitlib.util.BukkitCompletableFuture;
+import jp.jyn.jbukkitlib.util.PackagePrivate;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * <p>{@link SQLTemplate} that runs the queries in the dedicated executor and returns {@link BukkitCompletableFuture}.</p>
+ * <p>Use {@link BukkitCompletableFuture#thenAcceptSync(java.util.function.Consumer)} to get the result in the main thread.
+ * The executor has the bounded queue. When the queue is full, the call from the main thread fails immediately
+ * (the future is completed with {@link RejectedExecutionException}) so the tick is never blocked,
+ * and the call from other threads waits until the queue has space (backpressure).</p>
+ * <p>The latency is recorded per SQL, see {@link #getQueryStats()}.</p>
+ * <p>Note: Call {@link #shutdown(long, TimeUnit)} on disable.</p>
+ */
+public abstract class AsyncSQLTemplate extends SQLTemplate {
+    private final Plugin plugin;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, QueryStats> stats = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Create template.
+     *
+     * @param plugin    plugin
+     * @param pool      Connection pool
+     * @param threads   Number of DB threads, it should not exceed the pool size.
+     * @param queueSize Maximum number of queries waiting for the thread.
+     */
+    protected AsyncSQLTemplate(Plugin plugin, ConnectionPool pool, int threads, int queueSize) {
+        this(plugin, pool, threads, queueSize, Bukkit::isPrimaryThread);
+    }
+
+    @PackagePrivate
+    AsyncSQLTemplate(Plugin plugin, ConnectionPool pool, int threads, int queueSize, BooleanSupplier mainThread) {
+        super(pool);
+        this.plugin = plugin;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            r -> {
+                Thread thread = new Thread(r, String.format("%s-%s AsyncSQL-%d", plugin.getName(), JBukkitLib.NAME, count.incrementAndGet()));
+                thread.setDaemon(true);
+                return thread;
+            },
+            (r, e) -> {
+                if (e.isShutdown()) {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Executor has been shut down");
+                }
+                if (mainThread.getAsBoolean()) {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Queue is full");
+                }
+
+                // backpressure
+                try {
+                    e.getQueue().put(r);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    rejected.increment();
+                    throw new RejectedExecutionException(ex);
+                }
+                // Shut down while waiting, the workers may have already exited and the task would never run.
+                if (e.isShutdown() && e.getQueue().remove(r)) {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Executor has been shut down");
+                }
+            }
+        );
+    }
+
+    /**
+     * Stop accepting the queries, and wait for the queued queries.
+     *
+     * @param timeout maximum time to wait
+     * @param unit    unit of timeout
+     * @return true if all queries completed, false if the timeout elapsed.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Run the task in the DB executor.
+     *
+     * @param sql  SQL, the key of the statistics.
+     * @param task Task
+     * @param <T>  Result type
+     * @return {@link BukkitCompletableFuture}
+     */
+    protected <T> BukkitCompletableFuture<T> submit(String sql, Supplier<T> task) {
+        QueryStats stat = stats.computeIfAbsent(sql, k -> new QueryStats());
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queued = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    T value = task.get();
+                    stat.record(queued, start, true);
+                    future.complete(value);
+                } catch (RuntimeException | Error e) {
+                    stat.record(queued, start, false);
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return BukkitCompletableFuture.wrap(plugin, future);
+    }
+
+    // region async
+
+    /**
+     * Asynchronous {@link SQLTemplate#selectInsert(String, PreparedParameter, String, PreparedParameter, ResultMapper)}.
+     *
+     * @param select          SELECT SQL
+     * @param selectParameter SELECT {@link PreparedStatement} parameter
+     * @param insert          INSERT SQL
+     * @param insertParameter SELECT {@link PreparedStatement} parameter
+     * @param mapper          The mapping function to apply to a {@link ResultSet}.
+     *                        If the SELECT returns nothing, it must return null.
+     * @param <T>             The type of the value returned from the mapping function.
+     * @return {@link BukkitCompletableFuture}, completed with {@link RuntimeSQLException} if failed.
+     */
+    protected <T> BukkitCompletableFuture<T> selectInsertAsync(String select, PreparedParameter selectParameter,
+                                                               String insert, PreparedParameter insertParameter,
+                                                               ResultMapper<T> mapper) {
+        return submit(select, () -> selectInsert(select, selectParameter, insert, insertParameter, mapper));
+    }
+
+    /**
+     * Asynchronous {@link SQLTemplate#selectInsert(String, String, PreparedParameter, ResultMapper)}.
+     *
+     * @param select    SELECT SQL
+     * @param insert    INSERT SQL
+     * @param parameter SELECT and INSERT {@link PreparedStatement} parameter
+     * @param mapper    The mapping function to apply to a {@link ResultSet}.
+     *                  If the SELECT returns nothing, it must return null.
+     * @param <T>       The type of the value returned from the mapping function.
+     * @return {@link BukkitCompletableFuture}, completed with {@link RuntimeSQLException} if failed.
+     */
+    protected <T> BukkitCompletableFuture<T> selectInsertAsync(String select, String insert, PreparedParameter parameter,
+                                                               ResultMapper<T> mapper) {
+        return selectInsertAsync(select, parameter, insert, parameter, mapper);
+    }
+
+    /**
+     * Asynchronous {@link SQLTemplate#upsert(String, PreparedParameter, String, PreparedParameter)}.
+     *
+     * @param update          UPDATE SQL
+     * @param updateParameter UPDATE {@link PreparedStatement} parameter
+     * @param insert          INSERT SQL
+     * @param insertParameter INSERT {@link PreparedStatement} parameter
+     * @return {@link BukkitCompletableFuture}, completed with {@link RuntimeSQLException} if failed.
+     */
+    protected BukkitCompletableFuture<Integer> upsertAsync(String update, PreparedParameter updateParameter,
+                                                           String insert, PreparedParameter insertParameter) {
+        return submit(update, () -> upsert(update, updateParameter, insert, insertParameter));
+    }
+
+    /**
+     * Asynchronous {@link SQLTemplate#select(String, PreparedParameter, ResultMapper)}.
+     *
+     * @param select    SELECT SQL
+     * @param parameter SELECT {@link PreparedStatement} parameter
+     * @param mapper    The mapping function to apply to a {@link ResultSet}.
+     * @param <T>       The type of the value returned from the mapping function.
+     * @return {@link BukkitCompletableFuture}, completed with {@link RuntimeSQLException} if failed.
+     */
+    protected <T> BukkitCompletableFuture<T> selectAsync(String select, PreparedParameter parameter, ResultMapper<T> mapper) {
+        return submit(select, () -> select(select, parameter, mapper));
+    }
+
+    /**
+     * Asynchronous {@link SQLTemplate#executeUpdate(String, PreparedParameter)}.
+     *
+     * @param sql       SQL
+     * @param parameter {@link PreparedStatement} parameter
+     * @return {@link BukkitCompletableFuture}, completed with {@link RuntimeSQLException} if failed.
+     */
+    protected BukkitCompletableFuture<Integer> executeUpdateAsync(String sql, PreparedParameter parameter) {
+        return submit(sql, () -> executeUpdate(sql, parameter));
+    }
+
+    /**
+     * Asynchronous {@link SQLTemplate#executeBatch(String, Collection, BatchParameter)}.
+     *
+     * @param sql       SQL
+     * @param items     Items, one item is one batch entry.
+     * @param parameter {@link PreparedStatement} parameter for each item
+     * @param <T>       Item type
+     * @return {@link BukkitCompletableFuture}, completed with {@link RuntimeSQLException} if failed.
+     */
+    protected <T> BukkitCompletableFuture<int[]> executeBatchAsync(String sql, Collection<T> items, BatchParameter<? super T> parameter) {
+        return submit(sql, () -> executeBatch(sql, items, parameter));
+    }
+    // endregion
+
+    // region alias
+
+    /**
+     * Alias of {@link AsyncSQLTemplate#executeUpdateAsync(String, PreparedParameter)}.
+     * This method is used for readability.
+     *
+     * @param insert    INSERT SQL
+     * @param parameter INSERT {@link PreparedStatement} parameter
+     * @return {@link BukkitCompletableFuture}, completed with {@link RuntimeSQLException} if failed.
+     */
+    protected BukkitCompletableFuture<Integer> insertAsync(String insert, PreparedParameter parameter) {
+        return executeUpdateAsync(insert, parameter);
+    }
+
+    /**
+     * Alias of {@link AsyncSQLTemplate#executeUpdateAsync(String, PreparedParameter)}.
+     * This method is used for readability.
+     *
+     * @param update    UPDATE SQL
+     * @param parameter UPDATE {@link PreparedStatement} parameter
+     * @return {@link BukkitCompletableFuture}, completed with {@link RuntimeSQLException} if failed.
+     */
+    protected BukkitCompletableFuture<Integer> updateAsync(String update, PreparedParameter parameter) {
+        return executeUpdateAsync(update, parameter);
+    }
+
+    /**
+     * Alias of {@link AsyncSQLTemplate#executeUpdateAsync(String, PreparedParameter)}.
+     * This method is used for readability.
+     *
+     * @param delete    DELETE SQL
+     * @param parameter DELETE {@link PreparedStatement} parameter
+     * @return {@link BukkitCompletableFuture}, completed with {@link RuntimeSQLException} if failed.
+     */
+    protected BukkitCompletableFuture<Integer> deleteAsync(String delete, PreparedParameter parameter) {
+        return executeUpdateAsync(delete, parameter);
+    }
+    // endregion
+
+    // region metrics
+
+    /**
+     * Get the number of queries waiting for the thread.
+     *
+     * @return queue size
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Get the number of queries rejected (queue is full in the main thread, or after shutdown).
+     *
+     * @return count
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * <p>Get the statistics per SQL.</p>
+     * <p>For selectInsert and upsert, the first SQL (SELECT/UPDATE) is the key.</p>
+     *
+     * @return Unmodifiable live view, SQL to statistics.
+     */
+    public Map<String, QueryStats> getQueryStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Latency statistics of the query.
+     */
+    public final static class QueryStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalTime = new LongAdder();
+        private final LongAdder totalWait = new LongAdder();
+        private final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+
+        private QueryStats() {}
+
+        private void record(long queued, long start, boolean success) {
+            long time = System.nanoTime() - start;
+            count.increment();
+            if (!success) {
+                errors.increment();
+            }
+            totalTime.add(time);
+            totalWait.add(start - queued);
+            maxTime.accumulate(time);
+        }
+
+        /**
+         * Get the number of executions (including failures).
+         *
+         * @return count
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Get the number of failures.
+         *
+         * @return count
+         */
+        public long getErrorCount() {
+            return errors.sum();
+        }
+
+        /**
+         * Get the average execution time.
+         *
+         * @param unit time unit
+         * @return average time
+         */
+        public double getAverageTime(TimeUnit unit) {
+            long c = count.sum();
+            return c == 0 ? 0.0 : (double) totalTime.sum() / c / unit.toNanos(1);
+        }
+
+        /**
+         * Get the maximum execution time.
+         *
+         * @param unit time unit
+         * @return maximum time
+         */
+        public long getMaxTime(TimeUnit unit) {
+            return unit.convert(maxTime.get(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Get the average time from queued to started.
+         *
+         * @param unit time unit
+         * @return average wait time
+         */
+        public double getAverageWaitTime(TimeUnit unit) {
+            long c = count.sum();
+            return c == 0 ? 0.0 : (double) totalWait.sum() / c / unit.toNanos(1);
+        }
+    }
+    // endregion
+}
@@ -4,6 +4,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 
 /**
  * Abstract class to make common SQL easier to handle using Lambda.
@@ -179,6 +180,44 @@ public abstract class SQLTemplate {
         }
     }
 
+    /**
+     * <p>Execute {@link PreparedStatement#executeBatch()} in a transaction.</p>
+     * <p>This is useful to write many rows at once (e.g. {@link jp.jyn.jbukkitlib.cache.WriteBehindMap.Writer}).</p>
+     * <p>Note: This method uses a transaction. Change the auto-commit mode.</p>
+     *
+     * @param sql       SQL
+     * @param items     Items, one item is one batch entry.
+     * @param parameter {@link PreparedStatement} parameter for each item
+     * @param <T>       Item type
+     * @return Row counts
+     * @throws RuntimeSQLException Wrapped {@link SQLException}
+     */
+    protected <T> int[] executeBatch(String sql, Collection<T> items, BatchParameter<? super T> parameter) throws RuntimeSQLException {
+        if (items.isEmpty()) {
+            return new int[0];
+        }
+
+        try (var connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            try (var statement = connection.prepareStatement(sql)) {
+                for (T item : items) {
+                    parameter.set(statement, item);
+                    statement.addBatch();
+                }
+                int[] result = statement.executeBatch();
+                connection.commit();
+                return result;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw new RuntimeSQLException(e);
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeSQLException(e);
+        }
+    }
+
     // region alias
 
     /**
@@ -238,6 +277,16 @@ public abstract class SQLTemplate {
         void set(PreparedStatement statement) throws SQLException;
     }
 
+    /**
+     * {@link PreparedStatement} parameter for each batch item
+     *
+     * @param <T> Item type
+     */
+    @FunctionalInterface
+    protected interface BatchParameter<T> {
+        void set(PreparedStatement statement, T item) throws SQLException;
+    }
+
     /**
      * Map a {@link ResultSet} to an arbitrary object.
      *
@@ -0,0 +1,65 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import jp.jyn.jbukkitlib.util.updater.HttpNotOKException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The API responded 429 Too Many Requests.
+ */
+public class RateLimitedException extends HttpNotOKException {
+    private final long retryAfter;
+
+    /**
+     * Create exception.
+     *
+     * @param retryAfter Milliseconds to wait before retry, -1 if unknown.
+     */
+    public RateLimitedException(long retryAfter) {
+        super(429, "Too Many Requests");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Create exception from the value of Retry-After header.
+     *
+     * @param retryAfter Retry-After header, nullable.
+     * @return exception
+     */
+    public static RateLimitedException fromHeader(String retryAfter) {
+        return new RateLimitedException(parseRetryAfter(retryAfter));
+    }
+
+    /**
+     * Get the time to wait before retry.
+     *
+     * @param unit time unit
+     * @return time to wait, -1 if unknown.
+     */
+    public long getRetryAfter(TimeUnit unit) {
+        return retryAfter < 0 ? -1 : unit.convert(retryAfter, TimeUnit.MILLISECONDS);
+    }
+
+    private static long parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        value = value.trim();
+
+        // delay-seconds / HTTP-date
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+        } catch (NumberFormatException ignore) {
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(), date).toMillis());
+        } catch (DateTimeParseException ignore) {
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,353 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import jp.jyn.jbukkitlib.JBukkitLib;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>Rate-limit-aware scheduler for the API requests, see {@link UUIDConverter#setScheduler(RequestScheduler)}.</p>
+ * <p>The requests are limited by token bucket, and sent in order of priority (FIFO in the same priority).
+ * If the API responds 429 ({@link RateLimitedException}), all requests are paused until Retry-After, and the request is retried.
+ * I/O errors are retried with exponential backoff.</p>
+ */
+public class RequestScheduler {
+    private final static long BACKOFF_BASE = TimeUnit.SECONDS.toNanos(1);
+    private final static long BACKOFF_MAX = TimeUnit.MINUTES.toNanos(1);
+
+    private final ScheduledExecutorService executor;
+    private final double capacity;
+    private final double tokensPerNano;
+    private final int maxRetries;
+
+    // region guarded by this
+    private final PriorityQueue<Request> queue = new PriorityQueue<>();
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+    private long sequence = 0;
+    private boolean drainScheduled = false;
+    // waiting for the backoff, not yet in the queue.
+    private int delayed = 0;
+    // endregion
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder totalWait = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * Create scheduler.
+     *
+     * @param permits    Number of requests allowed per period, it is also the maximum burst.
+     * @param period     Period
+     * @param unit       Unit of period
+     * @param maxRetries Maximum number of retries per request.
+     * @param executor   Executor to wake up the scheduler, single thread is enough.
+     */
+    public RequestScheduler(int permits, long period, TimeUnit unit, int maxRetries, ScheduledExecutorService executor) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits must be greater than 0");
+        }
+        if (period < 1) {
+            throw new IllegalArgumentException("period must be greater than 0");
+        }
+        this.executor = executor;
+        this.capacity = permits;
+        this.tokensPerNano = permits / (double) unit.toNanos(period);
+        this.maxRetries = maxRetries;
+
+        this.tokens = permits;
+        this.lastRefill = System.nanoTime();
+        this.pausedUntil = lastRefill;
+    }
+
+    /**
+     * Create scheduler with own daemon thread.
+     *
+     * @param permits Number of requests allowed per period, it is also the maximum burst.
+     * @param period  Period
+     * @param unit    Unit of period
+     */
+    public RequestScheduler(int permits, long period, TimeUnit unit) {
+        this(permits, period, unit, 5, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, JBukkitLib.NAME + " RequestScheduler");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Get the scheduler suitable for Mojang API (600 requests per 10 minutes).
+     *
+     * @return shared scheduler
+     */
+    public static RequestScheduler mojang() {
+        return MojangHolder.INSTANCE;
+    }
+
+    private final static class MojangHolder {
+        private final static RequestScheduler INSTANCE = new RequestScheduler(600, 10, TimeUnit.MINUTES);
+    }
+
+    // region dispatch
+    private CompletableFuture<Void> acquire(Priority priority, long delay) {
+        Request request = new Request(priority);
+        if (delay > 0) {
+            synchronized (this) {
+                delayed++;
+            }
+            executor.schedule(() -> enqueue(request, true), delay, TimeUnit.NANOSECONDS);
+        } else {
+            enqueue(request, false);
+        }
+        return request.future;
+    }
+
+    private void enqueue(Request request, boolean delayed) {
+        synchronized (this) {
+            if (delayed) {
+                this.delayed--;
+            }
+            request.sequence = sequence++;
+            request.enqueued = System.nanoTime();
+            queue.add(request);
+        }
+        drain();
+    }
+
+    private void drain() {
+        List<Request> ready = new ArrayList<>();
+        synchronized (this) {
+            drainScheduled = false;
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+
+            while (!queue.isEmpty()) {
+                long wait = pausedUntil - now;
+                if (wait <= 0 && tokens < 1) {
+                    wait = (long) Math.ceil((1 - tokens) / tokensPerNano);
+                }
+                if (wait > 0) {
+                    if (!drainScheduled) {
+                        drainScheduled = true;
+                        executor.schedule(this::drain, wait, TimeUnit.NANOSECONDS);
+                    }
+                    break;
+                }
+
+                tokens -= 1;
+                Request request = queue.poll();
+                dispatched.increment();
+                totalWait.add(now - request.enqueued);
+                ready.add(request);
+            }
+        }
+
+        // Complete outside the lock, the request is sent in the continuation.
+        for (Request request : ready) {
+            request.future.complete(null);
+        }
+    }
+
+    private long retryDelay(Throwable e, int attempt) {
+        long backoff = Math.min(BACKOFF_MAX, BACKOFF_BASE << Math.min(attempt, 30));
+
+        // Even if it is not retried, the other requests must wait.
+        if (e instanceof RateLimitedException r) {
+            rateLimited.increment();
+            long retryAfter = r.getRetryAfter(TimeUnit.NANOSECONDS);
+            long until = System.nanoTime() + (retryAfter < 0 ? backoff : retryAfter);
+            synchronized (this) {
+                // 429 is per IP, stop all requests.
+                if (until - pausedUntil > 0) {
+                    pausedUntil = until;
+                }
+            }
+            if (attempt >= maxRetries) {
+                return -1;
+            }
+            retries.increment();
+            return 0;
+        }
+
+        if (attempt >= maxRetries) {
+            return -1;
+        }
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof IOException || t instanceof UncheckedIOException) {
+                retries.increment();
+                return backoff;
+            }
+        }
+        return -1;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+    // endregion
+
+    /**
+     * Execute the request in the current thread when permitted, blocks until completion.
+     *
+     * @param priority Priority
+     * @param task     Request
+     * @param <T>      Result type
+     * @return result
+     * @throws Exception If the request failed and cannot be retried.
+     */
+    public <T> T execute(Priority priority, Callable<T> task) throws Exception {
+        long delay = 0;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                acquire(priority, delay).get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ex ? ex : e;
+            }
+
+            try {
+                return task.call();
+            } catch (Exception e) {
+                delay = retryDelay(e, attempt);
+                if (delay < 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Send the asynchronous request when permitted.
+     *
+     * @param priority Priority
+     * @param task     Request, it is called in the scheduler thread, so it must not block.
+     * @param <T>      Result type
+     * @return {@link CompletableFuture}
+     */
+    public <T> CompletableFuture<T> submit(Priority priority, Supplier<? extends CompletionStage<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        submit(priority, task, result, 0, 0);
+        return result;
+    }
+
+    private <T> void submit(Priority priority, Supplier<? extends CompletionStage<T>> task,
+                            CompletableFuture<T> result, int attempt, long delay) {
+        acquire(priority, delay).thenCompose(ignore -> task.get()).whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+                return;
+            }
+
+            Throwable cause = unwrap(e);
+            long retry = retryDelay(cause, attempt);
+            if (retry < 0) {
+                result.completeExceptionally(cause);
+            } else {
+                submit(priority, task, result, attempt + 1, retry);
+            }
+        });
+    }
+
+    // region metrics
+
+    /**
+     * Get the number of requests waiting for permission, including the retries waiting for the backoff.
+     *
+     * @return queue size
+     */
+    public synchronized int getQueueSize() {
+        return queue.size() + delayed;
+    }
+
+    /**
+     * Get the number of requests sent (including retries).
+     *
+     * @return count
+     */
+    public long getDispatchedCount() {
+        return dispatched.sum();
+    }
+
+    /**
+     * Get the number of 429 responses.
+     *
+     * @return count
+     */
+    public long getRateLimitedCount() {
+        return rateLimited.sum();
+    }
+
+    /**
+     * Get the number of retries.
+     *
+     * @return count
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Get the average time from queued to sent.
+     *
+     * @param unit time unit
+     * @return average wait time
+     */
+    public double getAverageWaitTime(TimeUnit unit) {
+        long count = dispatched.sum();
+        return count == 0 ? 0.0 : (double) totalWait.sum() / count / unit.toNanos(1);
+    }
+    // endregion
+
+    /**
+     * Request priority
+     */
+    public enum Priority {
+        /**
+         * For example, the player who is joining.
+         */
+        HIGH,
+        /**
+         * Normal requests
+         */
+        NORMAL,
+        /**
+         * For example, background resolves for the leaderboard.
+         */
+        LOW
+    }
+
+    private final static class Request implements Comparable<Request> {
+        private final Priority priority;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private long sequence;
+        private long enqueued;
+
+        private Request(Priority priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(Request o) {
+            int c = priority.compareTo(o.priority);
+            return c != 0 ? c : Long.compare(sequence, o.sequence);
+        }
+    }
+}
@@ -1,12 +1,27 @@
 package jp.jyn.jbukkitlib.uuid;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.UUID;
 
 /**
- * UUID from/to byte array converter.
+ * <p>UUID from/to byte array converter.</p>
+ * <p>The UUID is 16 bytes big-endian (most significant bits first), it is the same as MySQL binary(16).
+ * The methods that take the array/buffer and offset do not allocate, regardless of the byte order of the buffer.</p>
  */
 public class UUIDBytes {
+    /**
+     * Bytes per UUID
+     */
+    public final static int BYTES = 16;
+
+    private final static VarHandle ARRAY = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private final static VarHandle BUFFER = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
     private UUIDBytes() {}
 
     /**
@@ -16,10 +31,9 @@ public class UUIDBytes {
      * @return byte array
      */
     public static byte[] toBytes(UUID uuid) {
-        return ByteBuffer.allocate(16)
-            .putLong(uuid.getMostSignificantBits())
-            .putLong(uuid.getLeastSignificantBits())
-            .array();
+        byte[] bytes = new byte[BYTES];
+        write(uuid, bytes, 0);
+        return bytes;
     }
 
     /**
@@ -29,9 +43,217 @@ public class UUIDBytes {
      * @return UUID
      */
     public static UUID fromBytes(byte[] bytes) {
-        ByteBuffer bb = ByteBuffer.wrap(bytes);
-        long most = bb.getLong();
-        long least = bb.getLong();
-        return new UUID(most, least);
+        return read(bytes, 0);
+    }
+
+    // region byte[]
+
+    /**
+     * Write UUID to byte array.
+     *
+     * @param uuid   uuid
+     * @param dst    destination
+     * @param offset offset of destination
+     */
+    public static void write(UUID uuid, byte[] dst, int offset) {
+        write(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), dst, offset);
+    }
+
+    /**
+     * Write UUID to byte array.
+     *
+     * @param mostBits  most significant bits of UUID
+     * @param leastBits least significant bits of UUID
+     * @param dst       destination
+     * @param offset    offset of destination
+     */
+    public static void write(long mostBits, long leastBits, byte[] dst, int offset) {
+        ARRAY.set(dst, offset, mostBits);
+        ARRAY.set(dst, offset + 8, leastBits);
+    }
+
+    /**
+     * Read UUID from byte array.
+     *
+     * @param src    source
+     * @param offset offset of source
+     * @return UUID
+     */
+    public static UUID read(byte[] src, int offset) {
+        return new UUID(mostBits(src, offset), leastBits(src, offset));
+    }
+
+    /**
+     * Read the most significant bits without creating UUID.
+     *
+     * @param src    source
+     * @param offset offset of UUID
+     * @return most significant bits
+     */
+    public static long mostBits(byte[] src, int offset) {
+        return (long) ARRAY.get(src, offset);
+    }
+
+    /**
+     * Read the least significant bits without creating UUID.
+     *
+     * @param src    source
+     * @param offset offset of UUID
+     * @return least significant bits
+     */
+    public static long leastBits(byte[] src, int offset) {
+        return (long) ARRAY.get(src, offset + 8);
+    }
+    // endregion
+
+    // region ByteBuffer
+
+    /**
+     * Write UUID to the current position of buffer, and increment the position.
+     *
+     * @param uuid uuid
+     * @param dst  destination
+     */
+    public static void write(UUID uuid, ByteBuffer dst) {
+        int position = dst.position();
+        if (dst.limit() - position < BYTES) {
+            throw new BufferOverflowException();
+        }
+        write(uuid, dst, position);
+        dst.position(position + BYTES);
+    }
+
+    /**
+     * Write UUID to buffer at the index, the position is not changed.
+     *
+     * @param uuid  uuid
+     * @param dst   destination
+     * @param index index of destination
+     */
+    public static void write(UUID uuid, ByteBuffer dst, int index) {
+        BUFFER.set(dst, index, uuid.getMostSignificantBits());
+        BUFFER.set(dst, index + 8, uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Read UUID from the current position of buffer, and increment the position.
+     *
+     * @param src source
+     * @return UUID
+     */
+    public static UUID read(ByteBuffer src) {
+        int position = src.position();
+        if (src.limit() - position < BYTES) {
+            throw new BufferUnderflowException();
+        }
+        UUID uuid = read(src, position);
+        src.position(position + BYTES);
+        return uuid;
+    }
+
+    /**
+     * Read UUID from buffer at the index, the position is not changed.
+     *
+     * @param src   source
+     * @param index index of source
+     * @return UUID
+     */
+    public static UUID read(ByteBuffer src, int index) {
+        return new UUID((long) BUFFER.get(src, index), (long) BUFFER.get(src, index + 8));
+    }
+    // endregion
+
+    // region bulk
+
+    /**
+     * UUIDs to contiguous byte array.
+     *
+     * @param uuids uuids
+     * @return byte array ({@code uuids.length * 16} bytes)
+     */
+    public static byte[] toBytes(UUID[] uuids) {
+        byte[] bytes = new byte[uuids.length * BYTES];
+        write(uuids, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Contiguous byte array to UUIDs.
+     *
+     * @param bytes byte array, the length must be a multiple of 16.
+     * @return UUIDs
+     */
+    public static UUID[] fromBytesArray(byte[] bytes) {
+        if (bytes.length % BYTES != 0) {
+            throw new IllegalArgumentException("Length is not a multiple of 16: " + bytes.length);
+        }
+        UUID[] uuids = new UUID[bytes.length / BYTES];
+        read(bytes, 0, uuids);
+        return uuids;
+    }
+
+    /**
+     * Write UUIDs to byte array contiguously.
+     *
+     * @param src    source
+     * @param dst    destination
+     * @param offset offset of destination
+     */
+    public static void write(UUID[] src, byte[] dst, int offset) {
+        for (UUID uuid : src) {
+            write(uuid, dst, offset);
+            offset += BYTES;
+        }
+    }
+
+    /**
+     * Read UUIDs from byte array contiguously.
+     *
+     * @param src    source
+     * @param offset offset of source
+     * @param dst    destination, fills the whole array.
+     */
+    public static void read(byte[] src, int offset, UUID[] dst) {
+        for (int i = 0; i < dst.length; i++) {
+            dst[i] = read(src, offset);
+            offset += BYTES;
+        }
+    }
+
+    /**
+     * Write UUIDs to the current position of buffer contiguously, and increment the position.
+     *
+     * @param src source
+     * @param dst destination
+     */
+    public static void write(UUID[] src, ByteBuffer dst) {
+        int position = dst.position();
+        if (dst.limit() - position < src.length * BYTES) {
+            throw new BufferOverflowException();
+        }
+        for (UUID uuid : src) {
+            write(uuid, dst, position);
+            position += BYTES;
+        }
+        dst.position(position);
+    }
+
+    /**
+     * Read UUIDs from the current position of buffer contiguously, and increment the position.
+     *
+     * @param src source
+     * @param dst destination, fills the whole array.
+     */
+    public static void read(ByteBuffer src, UUID[] dst) {
+        int position = src.position();
+        if (src.limit() - position < dst.length * BYTES) {
+            throw new BufferUnderflowException();
+        }
+        for (int i = 0; i < dst.length; i++) {
+            dst[i] = read(src, position);
+            position += BYTES;
+        }
+        src.position(position);
     }
+    // endregion
 }
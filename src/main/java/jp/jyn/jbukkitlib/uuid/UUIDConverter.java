@@ -1,45 +1,190 @@
 package jp.jyn.jbukkitlib.uuid;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import jp.jyn.jbukkitlib.util.PackagePrivate;
 
-import javax.net.ssl.HttpsURLConnection;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.URL;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
 
 /**
  * Minecraft UUID/Name Converter
  */
 public class UUIDConverter {
+    private final static String API_URL = "https://api.mojang.com";
     private final static Gson gson = new Gson();
+    // Shared by all requests, the connections are pooled and reused (HTTP/2 multiplexing).
+    private final static HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private static volatile RequestScheduler scheduler = RequestScheduler.mojang();
 
     private UUIDConverter() {}
 
+    /**
+     * Set the scheduler used by all converter requests, default is {@link RequestScheduler#mojang()}.
+     *
+     * @param scheduler Scheduler, null to send requests without rate limit.
+     */
+    public static void setScheduler(RequestScheduler scheduler) {
+        UUIDConverter.scheduler = scheduler;
+    }
+
+    /**
+     * Get the scheduler used by all converter requests.
+     *
+     * @return Scheduler, nullable.
+     */
+    public static RequestScheduler getScheduler() {
+        return scheduler;
+    }
+
+    private static <T> T execute(RequestScheduler.Priority priority, Callable<T> task) throws Exception {
+        RequestScheduler scheduler = UUIDConverter.scheduler;
+        return scheduler == null ? task.call() : scheduler.execute(priority, task);
+    }
+
+    private static <T> CompletableFuture<T> submit(RequestScheduler.Priority priority, Supplier<CompletableFuture<T>> task) {
+        RequestScheduler scheduler = UUIDConverter.scheduler;
+        return scheduler == null ? task.get() : scheduler.submit(priority, task);
+    }
+
+    private static HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+
+        if (response.statusCode() == 429) {
+            response.body().close();
+            throw RateLimitedException.fromHeader(response.headers().firstValue("Retry-After").orElse(null));
+        }
+        return response;
+    }
+
+    // region json
+
+    /**
+     * Read the last name from the name history ({@code [{"name":"..."}, ...]}).
+     *
+     * @param reader response body
+     * @return name
+     * @throws IOException If the JSON is malformed.
+     */
+    @PackagePrivate
+    static Optional<String> readLastName(Reader reader) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        String name = null;
+        json.beginArray();
+        while (json.hasNext()) {
+            json.beginObject();
+            while (json.hasNext()) {
+                if (json.nextName().equals("name")) {
+                    name = json.nextString();
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        json.endArray();
+        return Optional.ofNullable(name);
+    }
+
+    /**
+     * <p>Read the profiles ({@code [{"id":"...","name":"..."}, ...]}) without building the JSON tree.</p>
+     * <p>{@link JsonReader} returns the id as a String, it is decoded by {@link UUIDHex#parse(CharSequence)}
+     * without building the dashed string and re-parsing it.</p>
+     *
+     * @param reader response body
+     * @param result Map to store the name and UUID.
+     * @throws IOException If the JSON is malformed.
+     */
+    @PackagePrivate
+    static void readProfiles(Reader reader, Map<String, UUID> result) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        json.beginArray();
+        while (json.hasNext()) {
+            String id = null, name = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "id" -> id = json.nextString();
+                    case "name" -> name = json.nextString();
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+
+            if (id != null && name != null) {
+                result.put(name, UUIDHex.parse(id));
+            }
+        }
+        json.endArray();
+    }
+    // endregion
+
     /**
      * UUID to Name Converter
      */
     public static class NameGetter implements Callable<Optional<String>> {
         private final UUID uuid;
+        private RequestScheduler.Priority priority = RequestScheduler.Priority.NORMAL;
 
         public NameGetter(UUID uuid) {
             this.uuid = uuid;
         }
 
+        /**
+         * Set the priority of the request.
+         *
+         * @param priority priority
+         * @return for method chain
+         */
+        public NameGetter priority(RequestScheduler.Priority priority) {
+            this.priority = Objects.requireNonNull(priority);
+            return this;
+        }
+
         public Optional<String> callEx() {
             try {
                 return call();
+            } catch (RuntimeException e) {
+                throw e;
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -47,26 +192,183 @@ public class UUIDConverter {
 
         @Override
         public Optional<String> call() throws Exception {
-            var connection = getConnection();
-            if (connection.getResponseCode() != 200) {
-                return Optional.empty();
+            return execute(priority, this::request);
+        }
+
+        private Optional<String> request() throws IOException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(API_URL + "/user/profiles/" + UUIDHex.toString(uuid, false) + "/names"))
+                .GET()
+                .build();
+            HttpResponse<InputStream> response = send(request);
+            try (var reader = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+                if (response.statusCode() != 200) {
+                    return Optional.empty();
+                }
+                return readLastName(reader);
             }
+        }
+    }
 
-            try (var reader = new InputStreamReader(connection.getInputStream())) {
-                JsonArray array = gson.fromJson(reader, JsonArray.class);
-                JsonObject json = array.get(array.size() - 1).getAsJsonObject();
-                return Optional.ofNullable(json.get("name").getAsString());
+    /**
+     * <p>UUID to Name Converter for multiple UUIDs.</p>
+     * <p>The Mojang API does not have an API to convert multiple UUIDs to names,
+     * so the requests are sent concurrently (HTTP/2 multiplexing) with bounded parallelism.</p>
+     */
+    public static class ParallelNameGetter {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final int parallelism;
+
+        /**
+         * Create getter.
+         *
+         * @param client      HTTP client
+         * @param baseUrl     Base URL of the API (e.g. {@code https://api.mojang.com})
+         * @param parallelism Maximum number of concurrent requests.
+         */
+        public ParallelNameGetter(HttpClient client, String baseUrl, int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be greater than 0");
             }
+            this.client = Objects.requireNonNull(client);
+            this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+            this.parallelism = parallelism;
+        }
+
+        /**
+         * Create getter using Mojang API.
+         *
+         * @param parallelism Maximum number of concurrent requests.
+         */
+        public ParallelNameGetter(int parallelism) {
+            this(UUIDConverter.client, API_URL, parallelism);
+        }
+
+        /**
+         * Get the name of UUID.
+         *
+         * @param uuid UUID
+         * @return {@link CompletableFuture}, empty if the user does not exist.
+         */
+        public CompletableFuture<Optional<String>> get(UUID uuid) {
+            return get(uuid, RequestScheduler.Priority.NORMAL);
+        }
+
+        /**
+         * Get the name of UUID.
+         *
+         * @param uuid     UUID
+         * @param priority Priority of the request
+         * @return {@link CompletableFuture}, empty if the user does not exist.
+         */
+        public CompletableFuture<Optional<String>> get(UUID uuid, RequestScheduler.Priority priority) {
+            return submit(priority, () -> request(uuid));
+        }
+
+        private CompletableFuture<Optional<String>> request(UUID uuid) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/user/profiles/" + UUIDHex.toString(uuid, false) + "/names"))
+                .GET()
+                .build();
+            return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+                if (response.statusCode() == 429) {
+                    throw RateLimitedException.fromHeader(response.headers().firstValue("Retry-After").orElse(null));
+                }
+                if (response.statusCode() != 200) {
+                    return Optional.empty();
+                }
+
+                try {
+                    return readLastName(new StringReader(response.body()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
         }
 
-        private HttpsURLConnection getConnection() throws IOException {
-            final String API_URL = "https://api.mojang.com/user/profiles/" + uuid.toString().replace("-", "") + "/names";
+        /**
+         * <p>Get the names of UUIDs with low priority.</p>
+         * <p>If any request fails, the returned future fails and no more requests are sent.</p>
+         *
+         * @param uuids    UUIDs
+         * @param onResult Called each time the result arrives (in the HTTP client thread), nullable.
+         * @return {@link CompletableFuture}, empty if the user does not exist.
+         */
+        public CompletableFuture<Map<UUID, Optional<String>>> get(Collection<UUID> uuids,
+                                                                  BiConsumer<? super UUID, ? super Optional<String>> onResult) {
+            return get(uuids, RequestScheduler.Priority.LOW, onResult);
+        }
+
+        /**
+         * <p>Get the names of UUIDs.</p>
+         * <p>If any request fails, the returned future fails and no more requests are sent.</p>
+         *
+         * @param uuids    UUIDs
+         * @param priority Priority of the requests
+         * @param onResult Called each time the result arrives (in the HTTP client thread), nullable.
+         * @return {@link CompletableFuture}, empty if the user does not exist.
+         */
+        public CompletableFuture<Map<UUID, Optional<String>>> get(Collection<UUID> uuids, RequestScheduler.Priority priority,
+                                                                  BiConsumer<? super UUID, ? super Optional<String>> onResult) {
+            CompletableFuture<Map<UUID, Optional<String>>> future = new CompletableFuture<>();
+            Map<UUID, Optional<String>> result = new ConcurrentHashMap<>();
+            if (uuids.isEmpty()) {
+                future.complete(result);
+                return future;
+            }
+
+            Iterator<UUID> queue = new ArrayList<>(uuids).iterator();
+            AtomicInteger remaining = new AtomicInteger(uuids.size());
+            // true if the next request should be sent.
+            BiPredicate<UUID, Optional<String>> accept = (uuid, name) -> {
+                result.put(uuid, name);
+                if (onResult != null) {
+                    try {
+                        onResult.accept(uuid, name);
+                    } catch (RuntimeException ex) {
+                        future.completeExceptionally(ex);
+                        return false;
+                    }
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    future.complete(result);
+                    return false;
+                }
+                return true;
+            };
+            Runnable next = new Runnable() {
+                @Override
+                public void run() {
+                    // The future may complete in this thread (e.g. failed, cached by the HTTP client),
+                    // then the next request is sent by this loop, not by the recursion.
+                    while (true) {
+                        UUID uuid;
+                        synchronized (queue) {
+                            if (future.isDone() || !queue.hasNext()) {
+                                return;
+                            }
+                            uuid = queue.next();
+                        }
+
+                        // If the callback has already run, this loop continues, otherwise the callback calls run().
+                        AtomicBoolean pending = new AtomicBoolean(true);
+                        get(uuid, priority).whenComplete((name, e) -> {
+                            if (e != null) {
+                                future.completeExceptionally(e);
+                            } else if (accept.test(uuid, name) && !pending.compareAndSet(true, false)) {
+                                run();
+                            }
+                        });
+                        if (pending.compareAndSet(true, false)) {
+                            return;
+                        }
+                    }
+                }
+            };
 
-            var connection = (HttpsURLConnection) (new URL(API_URL).openConnection());
-            connection.setRequestMethod("GET");
-            connection.setUseCaches(false);
-            connection.setInstanceFollowRedirects(true);
-            return connection;
+            for (int i = 0; i < Math.min(parallelism, uuids.size()); i++) {
+                next.run();
+            }
+            return future;
         }
     }
 
@@ -75,14 +377,28 @@ public class UUIDConverter {
      */
     public static class UUIDGetter implements Callable<Optional<Map.Entry<String, UUID>>> {
         private final String name;
+        private RequestScheduler.Priority priority = RequestScheduler.Priority.NORMAL;
 
         public UUIDGetter(String name) {
             this.name = name;
         }
 
+        /**
+         * Set the priority of the request.
+         *
+         * @param priority priority
+         * @return for method chain
+         */
+        public UUIDGetter priority(RequestScheduler.Priority priority) {
+            this.priority = Objects.requireNonNull(priority);
+            return this;
+        }
+
         public Optional<Map.Entry<String, UUID>> callEx() {
             try {
                 return call();
+            } catch (RuntimeException e) {
+                throw e;
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -90,7 +406,7 @@ public class UUIDConverter {
 
         @Override
         public Optional<Map.Entry<String, UUID>> call() throws Exception {
-            final var getter = new MultipleUUIDGetter(name);
+            final var getter = new MultipleUUIDGetter(name).priority(priority);
             for (var entry : getter.call().entrySet()) {
                 return Optional.of(entry);
             }
@@ -103,8 +419,8 @@ public class UUIDConverter {
      */
     public static class MultipleUUIDGetter implements Callable<Map<String, UUID>> {
         private final static int API_MAXSIZE = 100;
-        private final static String API_URL = "https://api.mojang.com/profiles/minecraft";
         private final List<String> name;
+        private RequestScheduler.Priority priority = RequestScheduler.Priority.NORMAL;
 
         public MultipleUUIDGetter(String... name) {
             this.name = Arrays.asList(name);
@@ -114,9 +430,22 @@ public class UUIDConverter {
             this.name = new ArrayList<>(name);
         }
 
+        /**
+         * Set the priority of the requests.
+         *
+         * @param priority priority
+         * @return for method chain
+         */
+        public MultipleUUIDGetter priority(RequestScheduler.Priority priority) {
+            this.priority = Objects.requireNonNull(priority);
+            return this;
+        }
+
         public Map<String, UUID> callEx() {
             try {
                 return call();
+            } catch (RuntimeException e) {
+                throw e;
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -124,77 +453,42 @@ public class UUIDConverter {
 
         @Override
         public Map<String, UUID> call() throws Exception {
-            final StringBuilder builder = new StringBuilder(36);
-
             Map<String, UUID> result = new HashMap<>((name.size() * 4) / 3);
 
+            // Each API call is scheduled separately.
             for (List<String> subList : subLists()) {
-                HttpsURLConnection connection = getConnection();
-                String body = gson.toJson(subList);
-                requestBody(connection, body);
-                if (connection.getResponseCode() != 200) {
-                    continue;
-                }
-
-                try (var reader = new InputStreamReader(connection.getInputStream())) {
-                    JsonArray array = gson.fromJson(reader, JsonArray.class);
-                    for (JsonElement obj : array) {
-                        JsonObject json = obj.getAsJsonObject();
-                        String id = json.get("id").getAsString();
-                        String name = json.get("name").getAsString();
-
-                        result.put(name, toUUID(builder, id));
-                    }
-                }
+                execute(priority, () -> {
+                    request(subList, result);
+                    return null;
+                });
             }
 
             return result;
         }
 
-        private void requestBody(HttpsURLConnection connection, String body) throws IOException {
-            try (var stream = connection.getOutputStream()) {
-                stream.write(body.getBytes());
-                stream.flush();
+        private void request(List<String> subList, Map<String, UUID> result) throws IOException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(API_URL + "/profiles/minecraft"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(subList)))
+                .build();
+            HttpResponse<InputStream> response = send(request);
+            try (var reader = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+                if (response.statusCode() == 200) {
+                    readProfiles(reader, result);
+                }
             }
         }
 
-        private HttpsURLConnection getConnection() throws IOException {
-            var connection = (HttpsURLConnection) (new URL(API_URL).openConnection());
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setUseCaches(false);
-            connection.setInstanceFollowRedirects(true);
-            connection.setDoOutput(true);
-            return connection;
-        }
-
         private List<List<String>> subLists() {
             int max = (int) Math.ceil(name.size() / (double) API_MAXSIZE);
             List<List<String>> lists = new ArrayList<>(max);
 
             for (int i = 0; i < max; i++) {
-                List<String> sub = name.subList(i * API_MAXSIZE, Math.min((i + 1) * 100, name.size()));
+                List<String> sub = name.subList(i * API_MAXSIZE, Math.min((i + 1) * API_MAXSIZE, name.size()));
                 lists.add(sub);
             }
 
             return lists;
         }
-
-        private UUID toUUID(StringBuilder builder, String id) {
-            builder.setLength(0);
-
-            // 3,d,4,1,8,7,e,5,-, 5, 5, 6, 5, -, 4, 8, a, 3, -, 8, 9, 9, f, -, 0, f, c, c, 3, 6, 5, e, 7, 0, 8, 4
-            // 1,2,3,4,5,6,7,8,   9,10,11,12,    13,14,15,16,   17,18,19,20,   21,22,23,24,25,26,27,28,29,30,31,32
-            builder.append(id, 0, 8);
-            builder.append('-');
-            builder.append(id, 8, 12);
-            builder.append('-');
-            builder.append(id, 12, 16);
-            builder.append('-');
-            builder.append(id, 16, 20);
-            builder.append('-');
-            builder.append(id, 20, 32);
-            return UUID.fromString(builder.toString());
-        }
     }
 }
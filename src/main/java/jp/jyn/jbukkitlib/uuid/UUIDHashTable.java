@@ -0,0 +1,285 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import jp.jyn.jbukkitlib.util.PackagePrivate;
+
+import java.util.UUID;
+
+/**
+ * <p>Open addressing (linear probing) hash table keyed by UUID.</p>
+ * <p>Keys are stored in two long arrays (most/least significant bits), no object is allocated per entry.
+ * The nil UUID (all bits 0) is used as the empty slot marker, so it is stored in the extra slot at the end of the table.
+ * Removal uses backward shift deletion, so there are no tombstones.</p>
+ * <p>Subclass holds the values in an array of the same length as the keys.</p>
+ * <p>Note: Non thread-safe</p>
+ */
+@PackagePrivate
+abstract class UUIDHashTable {
+    private final static int MIN_CAPACITY = 16;
+    private final static float LOAD_FACTOR = 0.5f;
+
+    private long[] most;
+    private long[] least;
+    private int mask;
+    private int threshold;
+    private int size = 0;
+    private boolean hasNil = false;
+
+    /**
+     * Initialize the table. Subclass must call this in constructor.
+     *
+     * @param expected expected number of entries
+     */
+    protected final void init(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expected) {
+            capacity <<= 1;
+        }
+        allocateKeys(capacity);
+        allocate(capacity + 1);
+    }
+
+    private void allocateKeys(int capacity) {
+        most = new long[capacity + 1];
+        least = new long[capacity + 1];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Allocate new value array.
+     *
+     * @param length array length
+     */
+    protected abstract void allocate(int length);
+
+    /**
+     * Get current value array.
+     *
+     * @return value array
+     */
+    protected abstract Object values();
+
+    /**
+     * Copy value from old array (before rehash) to current array.
+     *
+     * @param oldValues old value array
+     * @param from      index of old array
+     * @param to        index of current array
+     */
+    protected abstract void transfer(Object oldValues, int from, int to);
+
+    /**
+     * Move value in current array.
+     *
+     * @param from from index
+     * @param to   to index
+     */
+    protected abstract void move(int from, int to);
+
+    /**
+     * Clear value (e.g. for GC)
+     *
+     * @param index index
+     */
+    protected abstract void clearValue(int index);
+
+    private int slot(long mostBits, long leastBits) {
+        // murmur3 fmix64
+        long h = mostBits ^ leastBits;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return ((int) h) & mask;
+    }
+
+    /**
+     * Find the key.
+     *
+     * @param mostBits  most significant bits
+     * @param leastBits least significant bits
+     * @return index of the key, or -1 if not found.
+     */
+    protected final int find(long mostBits, long leastBits) {
+        if (mostBits == 0 && leastBits == 0) {
+            return hasNil ? mask + 1 : -1;
+        }
+
+        for (int i = slot(mostBits, leastBits); ; i = (i + 1) & mask) {
+            long m = most[i], l = least[i];
+            if (m == mostBits && l == leastBits) {
+                return i;
+            }
+            if (m == 0 && l == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Find the key, insert if not found.
+     *
+     * @param mostBits  most significant bits
+     * @param leastBits least significant bits
+     * @return index of the key, or {@code ~index} (negative) if newly inserted.
+     */
+    protected final int insert(long mostBits, long leastBits) {
+        if (mostBits == 0 && leastBits == 0) {
+            if (hasNil) {
+                return mask + 1;
+            }
+            hasNil = true;
+            size++;
+            return ~(mask + 1);
+        }
+
+        int i = slot(mostBits, leastBits);
+        for (; ; i = (i + 1) & mask) {
+            long m = most[i], l = least[i];
+            if (m == mostBits && l == leastBits) {
+                return i;
+            }
+            if (m == 0 && l == 0) {
+                break;
+            }
+        }
+
+        most[i] = mostBits;
+        least[i] = leastBits;
+        if (++size - (hasNil ? 1 : 0) > threshold) {
+            rehash((mask + 1) << 1);
+            return ~find(mostBits, leastBits);
+        }
+        return ~i;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldMost = most, oldLeast = least;
+        int oldCapacity = mask + 1;
+        Object oldValues = values();
+
+        allocateKeys(capacity);
+        allocate(capacity + 1);
+        for (int i = 0; i < oldCapacity; i++) {
+            long m = oldMost[i], l = oldLeast[i];
+            if (m == 0 && l == 0) {
+                continue;
+            }
+
+            int j = slot(m, l);
+            while (most[j] != 0 || least[j] != 0) {
+                j = (j + 1) & mask;
+            }
+            most[j] = m;
+            least[j] = l;
+            transfer(oldValues, i, j);
+        }
+        if (hasNil) {
+            transfer(oldValues, oldCapacity, capacity);
+        }
+    }
+
+    /**
+     * Remove the entry at the index.
+     *
+     * @param index index returned by {@link #find(long, long)}
+     */
+    protected final void removeAt(int index) {
+        size--;
+        clearValue(index);
+        if (index == mask + 1) {
+            hasNil = false;
+            return;
+        }
+
+        // backward shift deletion
+        int hole = index;
+        for (int j = (index + 1) & mask; ; j = (j + 1) & mask) {
+            long m = most[j], l = least[j];
+            if (m == 0 && l == 0) {
+                break;
+            }
+
+            // It can be moved if the hole is between the ideal slot and the current slot.
+            int ideal = slot(m, l);
+            if (((j - ideal) & mask) >= ((j - hole) & mask)) {
+                most[hole] = m;
+                least[hole] = l;
+                move(j, hole);
+                hole = j;
+            }
+        }
+        most[hole] = 0;
+        least[hole] = 0;
+        clearValue(hole);
+    }
+
+    /**
+     * Remove all entries.
+     */
+    protected final void clear() {
+        allocateKeys(MIN_CAPACITY);
+        allocate(MIN_CAPACITY + 1);
+        size = 0;
+        hasNil = false;
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return size
+     */
+    protected final int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the table is empty.
+     *
+     * @return true if empty
+     */
+    protected final boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the index of the next entry.
+     *
+     * @param from start index (inclusive)
+     * @return index, or -1 if there are no more entries.
+     */
+    protected final int next(int from) {
+        for (int i = from; i <= mask; i++) {
+            if (most[i] != 0 || least[i] != 0) {
+                return i;
+            }
+        }
+        return (hasNil && from <= mask + 1) ? mask + 1 : -1;
+    }
+
+    /**
+     * Get the key at the index.
+     *
+     * @param index index
+     * @return UUID
+     */
+    protected final UUID keyAt(int index) {
+        return new UUID(most[index], least[index]);
+    }
+
+    /**
+     * Copy all keys (snapshot for iteration).
+     *
+     * @return keys, {@code [most0, least0, most1, least1, ...]}
+     */
+    protected final long[] keys() {
+        long[] keys = new long[size * 2];
+        int n = 0;
+        for (int i = next(0); i != -1; i = next(i + 1)) {
+            keys[n++] = most[i];
+            keys[n++] = least[i];
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,158 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * <p>UUID from/to hex string converter.</p>
+ * <p>It supports both the dashed form ({@code 3d4187e5-5565-48a3-899f-0fcc365e7084})
+ * and the undashed form used by Mojang API ({@code 3d4187e5556548a3899f0fcc365e7084}).
+ * The digits are converted directly to/from two longs, without intermediate string or re-parse.
+ * The methods that take the array and offset do not allocate.</p>
+ */
+public class UUIDHex {
+    /**
+     * Length of the undashed form
+     */
+    public final static int UNDASHED_LENGTH = 32;
+    /**
+     * Length of the dashed form
+     */
+    public final static int DASHED_LENGTH = 36;
+
+    private final static byte[] DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private final static byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private UUIDHex() {}
+
+    // Index of the nibble in the string, the dashes are at 8, 13, 18, 23.
+    private static int index(int nibble, boolean dashes) {
+        if (!dashes || nibble < 8) {
+            return nibble;
+        }
+        return nibble + (nibble < 12 ? 1 : nibble < 16 ? 2 : nibble < 20 ? 3 : 4);
+    }
+
+    // region parse
+
+    /**
+     * Parse UUID, dashed or undashed.
+     *
+     * @param str 32 or 36 characters
+     * @return UUID
+     * @throws IllegalArgumentException If the string is not UUID.
+     */
+    public static UUID parse(CharSequence str) {
+        boolean dashes;
+        if (str.length() == UNDASHED_LENGTH) {
+            dashes = false;
+        } else if (str.length() == DASHED_LENGTH
+            && str.charAt(8) == '-' && str.charAt(13) == '-' && str.charAt(18) == '-' && str.charAt(23) == '-') {
+            dashes = true;
+        } else {
+            throw new IllegalArgumentException("Invalid UUID: " + str);
+        }
+
+        long most = 0, least = 0;
+        for (int i = 0; i < 16; i++) {
+            most = (most << 4) | digit(str, index(i, dashes));
+            least = (least << 4) | digit(str, index(i + 16, dashes));
+        }
+        return new UUID(most, least);
+    }
+
+    private static int digit(CharSequence str, int index) {
+        char c = str.charAt(index);
+        int value = c < 128 ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid UUID: " + str);
+        }
+        return value;
+    }
+    // endregion
+
+    // region format
+
+    /**
+     * Format UUID into char array.
+     *
+     * @param uuid   uuid
+     * @param dashes true for the dashed form
+     * @param dst    destination
+     * @param offset offset of destination
+     * @return offset after the last written character
+     */
+    public static int format(UUID uuid, boolean dashes, char[] dst, int offset) {
+        long most = uuid.getMostSignificantBits(), least = uuid.getLeastSignificantBits();
+        int length = dashes ? DASHED_LENGTH : UNDASHED_LENGTH;
+        if (offset < 0 || dst.length - offset < length) {
+            throw new IndexOutOfBoundsException("Out of bounds: " + offset);
+        }
+
+        for (int i = 15; i >= 0; i--) {
+            dst[offset + index(i, dashes)] = (char) DIGITS[(int) most & 0xF];
+            dst[offset + index(i + 16, dashes)] = (char) DIGITS[(int) least & 0xF];
+            most >>>= 4;
+            least >>>= 4;
+        }
+        if (dashes) {
+            dst[offset + 8] = dst[offset + 13] = dst[offset + 18] = dst[offset + 23] = '-';
+        }
+        return offset + length;
+    }
+
+    /**
+     * Format UUID into byte array (ASCII).
+     *
+     * @param uuid   uuid
+     * @param dashes true for the dashed form
+     * @param dst    destination
+     * @param offset offset of destination
+     * @return offset after the last written byte
+     */
+    public static int format(UUID uuid, boolean dashes, byte[] dst, int offset) {
+        long most = uuid.getMostSignificantBits(), least = uuid.getLeastSignificantBits();
+        int length = dashes ? DASHED_LENGTH : UNDASHED_LENGTH;
+        if (offset < 0 || dst.length - offset < length) {
+            throw new IndexOutOfBoundsException("Out of bounds: " + offset);
+        }
+
+        for (int i = 15; i >= 0; i--) {
+            dst[offset + index(i, dashes)] = DIGITS[(int) most & 0xF];
+            dst[offset + index(i + 16, dashes)] = DIGITS[(int) least & 0xF];
+            most >>>= 4;
+            least >>>= 4;
+        }
+        if (dashes) {
+            dst[offset + 8] = dst[offset + 13] = dst[offset + 18] = dst[offset + 23] = '-';
+        }
+        return offset + length;
+    }
+
+    /**
+     * Format UUID into string.
+     *
+     * @param uuid   uuid
+     * @param dashes true for the dashed form
+     * @return string
+     */
+    public static String toString(UUID uuid, boolean dashes) {
+        byte[] bytes = new byte[dashes ? DASHED_LENGTH : UNDASHED_LENGTH];
+        format(uuid, dashes, bytes, 0);
+        // Latin-1 string can use the bytes as is (compact strings).
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+    // endregion
+}
@@ -0,0 +1,245 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import java.util.UUID;
+
+/**
+ * <p>UUID to long map.</p>
+ * <p>Keys and values are stored in primitive arrays, so no object is allocated per entry.</p>
+ * <p>Note: Non thread-safe</p>
+ */
+public class UUIDLongMap {
+    private final Table table;
+    private final long noEntryValue;
+
+    /**
+     * Create map.
+     *
+     * @param expected     expected number of entries
+     * @param noEntryValue the value returned when the key is not found.
+     */
+    public UUIDLongMap(int expected, long noEntryValue) {
+        this.table = new Table(expected);
+        this.noEntryValue = noEntryValue;
+    }
+
+    public UUIDLongMap(int expected) {
+        this(expected, 0);
+    }
+
+    public UUIDLongMap() {
+        this(0, 0);
+    }
+
+    /**
+     * The value returned when the key is not found.
+     *
+     * @return no entry value
+     */
+    public long getNoEntryValue() {
+        return noEntryValue;
+    }
+
+    /**
+     * Get value.
+     *
+     * @param mostBits  most significant bits of UUID
+     * @param leastBits least significant bits of UUID
+     * @return value, or no entry value if not found.
+     */
+    public long get(long mostBits, long leastBits) {
+        int i = table.find(mostBits, leastBits);
+        return i < 0 ? noEntryValue : table.values[i];
+    }
+
+    /**
+     * Get value.
+     *
+     * @param key UUID, not null.
+     * @return value, or no entry value if not found.
+     */
+    public long get(UUID key) {
+        return get(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    /**
+     * Put value.
+     *
+     * @param mostBits  most significant bits of UUID
+     * @param leastBits least significant bits of UUID
+     * @param value     value
+     * @return previous value, or no entry value if not found.
+     */
+    public long put(long mostBits, long leastBits, long value) {
+        int i = table.insert(mostBits, leastBits);
+        if (i < 0) {
+            table.values[~i] = value;
+            return noEntryValue;
+        }
+
+        long old = table.values[i];
+        table.values[i] = value;
+        return old;
+    }
+
+    /**
+     * Put value.
+     *
+     * @param key   UUID, not null.
+     * @param value value
+     * @return previous value, or no entry value if not found.
+     */
+    public long put(UUID key, long value) {
+        return put(key.getMostSignificantBits(), key.getLeastSignificantBits(), value);
+    }
+
+    /**
+     * Add to the value, if the key is not found, it is treated as 0.
+     *
+     * @param mostBits  most significant bits of UUID
+     * @param leastBits least significant bits of UUID
+     * @param delta     value to add
+     * @return new value
+     */
+    public long addTo(long mostBits, long leastBits, long delta) {
+        int i = table.insert(mostBits, leastBits);
+        if (i < 0) {
+            return table.values[~i] = delta;
+        }
+        return table.values[i] += delta;
+    }
+
+    /**
+     * Add to the value, if the key is not found, it is treated as 0.
+     *
+     * @param key   UUID, not null.
+     * @param delta value to add
+     * @return new value
+     */
+    public long addTo(UUID key, long delta) {
+        return addTo(key.getMostSignificantBits(), key.getLeastSignificantBits(), delta);
+    }
+
+    /**
+     * Remove value.
+     *
+     * @param mostBits  most significant bits of UUID
+     * @param leastBits least significant bits of UUID
+     * @return removed value, or no entry value if not found.
+     */
+    public long remove(long mostBits, long leastBits) {
+        int i = table.find(mostBits, leastBits);
+        if (i < 0) {
+            return noEntryValue;
+        }
+
+        long old = table.values[i];
+        table.removeAt(i);
+        return old;
+    }
+
+    /**
+     * Remove value.
+     *
+     * @param key UUID, not null.
+     * @return removed value, or no entry value if not found.
+     */
+    public long remove(UUID key) {
+        return remove(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    /**
+     * Check whether the key exists, use it to distinguish the no entry value from the stored value.
+     *
+     * @param mostBits  most significant bits of UUID
+     * @param leastBits least significant bits of UUID
+     * @return true if exists
+     */
+    public boolean containsKey(long mostBits, long leastBits) {
+        return table.find(mostBits, leastBits) >= 0;
+    }
+
+    /**
+     * Check whether the key exists.
+     *
+     * @param key UUID, not null.
+     * @return true if exists
+     */
+    public boolean containsKey(UUID key) {
+        return containsKey(key.getMostSignificantBits(), key.getLeastSignificantBits());
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return size
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Check whether the map has no entries.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return table.isEmpty();
+    }
+
+    /**
+     * Remove all entries, the arrays are shrunk to the minimum capacity.
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * <p>Performs the action for each entry.</p>
+     * <p>Note: Do not modify the map in the action.</p>
+     *
+     * @param action action
+     */
+    public void forEach(Consumer action) {
+        for (int i = table.next(0); i != -1; i = table.next(i + 1)) {
+            action.accept(table.keyAt(i), table.values[i]);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(UUID key, long value);
+    }
+
+    private final static class Table extends UUIDHashTable {
+        private long[] values;
+
+        private Table(int expected) {
+            init(expected);
+        }
+
+        @Override
+        protected void allocate(int length) {
+            values = new long[length];
+        }
+
+        @Override
+        protected Object values() {
+            return values;
+        }
+
+        @Override
+        protected void transfer(Object oldValues, int from, int to) {
+            values[to] = ((long[]) oldValues)[from];
+        }
+
+        @Override
+        protected void move(int from, int to) {
+            values[to] = values[from];
+        }
+
+        @Override
+        protected void clearValue(int index) {
+            values[index] = 0;
+        }
+    }
+}
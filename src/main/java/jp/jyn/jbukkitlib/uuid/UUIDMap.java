@@ -0,0 +1,298 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import jp.jyn.jbukkitlib.cache.CacheFactory;
+import jp.jyn.jbukkitlib.cache.StripedMap;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * <p>Map specialized for UUID keys.</p>
+ * <p>Keys are stored as two long arrays, so no {@link UUID} object or node is allocated per entry.
+ * The methods that take most/least significant bits can be used without UUID object.</p>
+ * <p>Note: Non thread-safe, null key is not allowed.</p>
+ *
+ * @param <V> Value type
+ */
+public class UUIDMap<V> extends AbstractMap<UUID, V> {
+    /**
+     * <p>CacheFactory of UUIDMap, thread-safe map is striped by {@link StripedMap}.</p>
+     * <p>Note: The key type must be UUID. The created map is unchecked,
+     * so putting the non-UUID key throws {@link ClassCastException} (get/remove/containsKey return null/false).</p>
+     */
+    public final static CacheFactory FACTORY = new CacheFactory() {
+        @SuppressWarnings("unchecked")
+        @Override
+        public <K, V> Map<K, V> create(boolean concurrency) throws UnsupportedOperationException {
+            if (!concurrency) {
+                return (Map<K, V>) new UUIDMap<V>();
+            }
+            return (Map<K, V>) new StripedMap<UUID, V>(StripedMap.defaultStripes(-1), i -> new UUIDMap<>());
+        }
+    };
+
+    private final Table<V> table;
+
+    /**
+     * Create map.
+     *
+     * @param expected expected number of entries
+     */
+    public UUIDMap(int expected) {
+        this.table = new Table<>(expected);
+    }
+
+    public UUIDMap() {
+        this(0);
+    }
+
+    /**
+     * Get value.
+     *
+     * @param mostBits  most significant bits of UUID
+     * @param leastBits least significant bits of UUID
+     * @return value, or null if not found.
+     */
+    public V get(long mostBits, long leastBits) {
+        int i = table.find(mostBits, leastBits);
+        return i < 0 ? null : table.values[i];
+    }
+
+    /**
+     * Put value.
+     *
+     * @param mostBits  most significant bits of UUID
+     * @param leastBits least significant bits of UUID
+     * @param value     value
+     * @return previous value, or null if not found.
+     */
+    public V put(long mostBits, long leastBits, V value) {
+        int i = table.insert(mostBits, leastBits);
+        if (i < 0) {
+            table.values[~i] = value;
+            return null;
+        }
+
+        V old = table.values[i];
+        table.values[i] = value;
+        return old;
+    }
+
+    /**
+     * Remove value.
+     *
+     * @param mostBits  most significant bits of UUID
+     * @param leastBits least significant bits of UUID
+     * @return removed value, or null if not found.
+     */
+    public V remove(long mostBits, long leastBits) {
+        int i = table.find(mostBits, leastBits);
+        if (i < 0) {
+            return null;
+        }
+
+        V old = table.values[i];
+        table.removeAt(i);
+        return old;
+    }
+
+    /**
+     * Check whether the key exists.
+     *
+     * @param mostBits  most significant bits of UUID
+     * @param leastBits least significant bits of UUID
+     * @return true if exists
+     */
+    public boolean containsKey(long mostBits, long leastBits) {
+        return table.find(mostBits, leastBits) >= 0;
+    }
+
+    /**
+     * Get value.
+     *
+     * @param key UUID, the other types are not found.
+     * @return value, or null if not found.
+     */
+    @Override
+    public V get(Object key) {
+        return key instanceof UUID u ? get(u.getMostSignificantBits(), u.getLeastSignificantBits()) : null;
+    }
+
+    /**
+     * Put value.
+     *
+     * @param key   UUID, not null.
+     * @param value value
+     * @return previous value, or null if not found.
+     */
+    @Override
+    public V put(UUID key, V value) {
+        return put(key.getMostSignificantBits(), key.getLeastSignificantBits(), value);
+    }
+
+    /**
+     * Remove value.
+     *
+     * @param key UUID, the other types are not found.
+     * @return removed value, or null if not found.
+     */
+    @Override
+    public V remove(Object key) {
+        return key instanceof UUID u ? remove(u.getMostSignificantBits(), u.getLeastSignificantBits()) : null;
+    }
+
+    /**
+     * Check whether the key exists.
+     *
+     * @param key UUID, the other types are not found.
+     * @return true if exists
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof UUID u && containsKey(u.getMostSignificantBits(), u.getLeastSignificantBits());
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = table.next(0); i != -1; i = table.next(i + 1)) {
+            if (Objects.equals(value, table.values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return size
+     */
+    @Override
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Check whether the map has no entries.
+     *
+     * @return true if empty
+     */
+    @Override
+    public boolean isEmpty() {
+        return table.isEmpty();
+    }
+
+    /**
+     * Remove all entries, the arrays are shrunk to the minimum capacity.
+     */
+    @Override
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * <p>Entry set view.</p>
+     * <p>Note: Iterator iterates a snapshot of the keys, and the entry is created for each iteration.</p>
+     *
+     * @return entry set
+     */
+    @Override
+    public Set<Entry<UUID, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<UUID, V>> iterator() {
+                long[] keys = table.keys();
+                return new Iterator<>() {
+                    private int index = 0;
+                    private Entry<UUID, V> last = null;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys.length;
+                    }
+
+                    @Override
+                    public Entry<UUID, V> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        long most = keys[index++], least = keys[index++];
+                        return last = new WriteThroughEntry(new UUID(most, least), get(most, least));
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        UUIDMap.this.remove(last.getKey());
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return table.size();
+            }
+
+            @Override
+            public void clear() {
+                table.clear();
+            }
+        };
+    }
+
+    private final class WriteThroughEntry extends SimpleEntry<UUID, V> {
+        private WriteThroughEntry(UUID key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            UUIDMap.this.put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    private final static class Table<V> extends UUIDHashTable {
+        private V[] values;
+
+        private Table(int expected) {
+            init(expected);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected void allocate(int length) {
+            values = (V[]) new Object[length];
+        }
+
+        @Override
+        protected Object values() {
+            return values;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected void transfer(Object oldValues, int from, int to) {
+            values[to] = ((V[]) oldValues)[from];
+        }
+
+        @Override
+        protected void move(int from, int to) {
+            values[to] = values[from];
+        }
+
+        @Override
+        protected void clearValue(int index) {
+            values[index] = null;
+        }
+    }
+}
@@ -0,0 +1,689 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import jp.jyn.jbukkitlib.util.PackagePrivate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * <p>Compact bidirectional store of UUID and name, for the cache of {@link UUIDRegistry}.</p>
+ * <p>The names are packed as Latin-1 bytes into the shared arena, and the UUID to name entry reuses the bytes of the name to UUID entry.
+ * The names are hashed and compared case-insensitively in place, so no lower case copy is kept.
+ * Optional.empty() ("user does not exist") is stored as the sentinel, no {@link Optional}, {@link String} or {@link UUID} object is kept per entry.</p>
+ * <p>{@link #nameToUUID()} and {@link #uuidToName()} are the views with the same semantics as the maps of {@link UUIDRegistry}.
+ * The name keys are case-insensitive, and the names that longer than 127 characters or containing non Latin-1 characters are not stored.</p>
+ * <p>Note: Thread-safe, there is no eviction.</p>
+ */
+public class UUIDNameStore {
+    private final static int MIN_CAPACITY = 16;
+    private final static int MIN_ARENA = 1024;
+    private final static float LOAD_FACTOR = 0.5f;
+    private final static int MAX_NAME = Byte.MAX_VALUE;
+
+    // region arena
+    private byte[] arena;
+    private int arenaSize = 0;
+    // Upper bound, the bytes shared by both tables may be counted.
+    private int garbage = 0;
+    // endregion
+
+    // region name -> UUID (open addressing, linear probing)
+    private int[] nameOffset;
+    // 0: empty slot, positive: name length (with UUID), negative: -(name length) (Optional.empty())
+    private byte[] nameLength;
+    private long[] most;
+    private long[] least;
+    private int nameMask;
+    private int nameThreshold;
+    private int nameSize = 0;
+    // endregion
+
+    // UUID -> name, value length -1 is Optional.empty()
+    private final UUIDTable uuids;
+
+    private final Map<String, Optional<UUID>> nameView = new NameView();
+    private final Map<UUID, Optional<String>> uuidView = new UUIDView();
+
+    /**
+     * Create store.
+     *
+     * @param expected expected number of users
+     */
+    public UUIDNameStore(int expected) {
+        allocateNames(capacity(expected));
+        this.arena = new byte[Math.max(MIN_ARENA, expected * 8)];
+        this.uuids = new UUIDTable(expected);
+    }
+
+    public UUIDNameStore() {
+        this(0);
+    }
+
+    /**
+     * Get name to UUID view.
+     *
+     * @return Map view, the key is case-insensitive.
+     */
+    public Map<String, Optional<UUID>> nameToUUID() {
+        return nameView;
+    }
+
+    /**
+     * Get UUID to name view.
+     *
+     * @return Map view
+     */
+    public Map<UUID, Optional<String>> uuidToName() {
+        return uuidView;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear() {
+        allocateNames(MIN_CAPACITY);
+        nameSize = 0;
+        uuids.clear();
+        arena = new byte[MIN_ARENA];
+        arenaSize = 0;
+        garbage = 0;
+    }
+
+    @PackagePrivate
+    synchronized int arenaSize() {
+        return arenaSize;
+    }
+
+    // region bytes
+    private static boolean encodable(String name) {
+        int length = name.length();
+        if (length == 0 || length > MAX_NAME) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same as toLowerCase(Locale.ROOT) in Latin-1
+    private static int fold(int c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 0xC0 && c <= 0xDE && c != 0xD7) ? c + 0x20 : c;
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + fold(name.charAt(i));
+        }
+        return mix(h);
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + fold(bytes[i] & 0xFF);
+        }
+        return mix(h);
+    }
+
+    private boolean equalsIgnoreCase(int offset, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (fold(arena[offset + i] & 0xFF) != fold(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean equalsIgnoreCase(int offset, byte[] bytes, int from, int length) {
+        for (int i = 0; i < length; i++) {
+            if (fold(arena[offset + i] & 0xFF) != fold(bytes[from + i] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean equalsExact(int offset, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if ((arena[offset + i] & 0xFF) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write(int offset, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            arena[offset + i] = (byte) name.charAt(i);
+        }
+    }
+
+    private String read(int offset, int length) {
+        return new String(arena, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private int append(String name) {
+        int length = name.length();
+        if (arenaSize + length > arena.length) {
+            if (garbage >= arenaSize / 2) {
+                compact();
+            }
+            if (arenaSize + length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+            }
+        }
+
+        int offset = arenaSize;
+        write(offset, name);
+        arenaSize += length;
+        return offset;
+    }
+
+    /**
+     * Get the bytes of the name, reuse the bytes of the name to UUID entry if exists with the same case.
+     *
+     * @param name correct name
+     * @return offset in arena
+     */
+    private int intern(String name) {
+        int i = findName(name);
+        if (i < 0) {
+            return append(name);
+        }
+
+        int offset = nameOffset[i];
+        if (!equalsExact(offset, name)) {
+            // The bytes may be shared by other UUID entries, do not rewrite them in place.
+            // The key is case-insensitive, so it is moved to the correct case, the old bytes are reclaimed by compact.
+            offset = append(name);
+            nameOffset[i] = offset;
+            garbage += name.length();
+        }
+        return offset;
+    }
+
+    private void compact() {
+        byte[] old = arena;
+        arena = new byte[old.length];
+        arenaSize = 0;
+
+        for (int i = 0; i <= nameMask; i++) {
+            int length = Math.abs(nameLength[i]);
+            if (length != 0) {
+                System.arraycopy(old, nameOffset[i], arena, arenaSize, length);
+                nameOffset[i] = arenaSize;
+                arenaSize += length;
+            }
+        }
+
+        for (int i = uuids.next(0); i != -1; i = uuids.next(i + 1)) {
+            int length = uuids.length[i];
+            if (length <= 0) {
+                continue;
+            }
+
+            int from = uuids.offset[i];
+            int j = findName(old, from, length);
+            if (j >= 0 && Arrays.equals(arena, nameOffset[j], nameOffset[j] + length, old, from, from + length)) {
+                uuids.offset[i] = nameOffset[j];
+            } else {
+                System.arraycopy(old, from, arena, arenaSize, length);
+                uuids.offset[i] = arenaSize;
+                arenaSize += length;
+            }
+        }
+        garbage = 0;
+    }
+    // endregion
+
+    // region name table
+    private static int capacity(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expected) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocateNames(int capacity) {
+        nameOffset = new int[capacity];
+        nameLength = new byte[capacity];
+        most = new long[capacity];
+        least = new long[capacity];
+        nameMask = capacity - 1;
+        nameThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(int index) {
+        return hash(arena, nameOffset[index], Math.abs(nameLength[index])) & nameMask;
+    }
+
+    private int findName(String name) {
+        int length = name.length();
+        for (int i = hash(name) & nameMask; ; i = (i + 1) & nameMask) {
+            int l = Math.abs(nameLength[i]);
+            if (l == 0) {
+                return -1;
+            }
+            if (l == length && equalsIgnoreCase(nameOffset[i], name)) {
+                return i;
+            }
+        }
+    }
+
+    private int findName(byte[] bytes, int offset, int length) {
+        for (int i = hash(bytes, offset, length) & nameMask; ; i = (i + 1) & nameMask) {
+            int l = Math.abs(nameLength[i]);
+            if (l == 0) {
+                return -1;
+            }
+            if (l == length && equalsIgnoreCase(nameOffset[i], bytes, offset, length)) {
+                return i;
+            }
+        }
+    }
+
+    private Optional<UUID> nameValue(int index) {
+        return nameLength[index] < 0 ? Optional.empty() : Optional.of(new UUID(most[index], least[index]));
+    }
+
+    private void setNameValue(int index, Optional<UUID> value) {
+        int length = Math.abs(nameLength[index]);
+        if (value.isPresent()) {
+            nameLength[index] = (byte) length;
+            most[index] = value.get().getMostSignificantBits();
+            least[index] = value.get().getLeastSignificantBits();
+        } else {
+            nameLength[index] = (byte) -length;
+            most[index] = 0;
+            least[index] = 0;
+        }
+    }
+
+    private void rehashNames(int capacity) {
+        int[] oldOffset = nameOffset;
+        byte[] oldLength = nameLength;
+        long[] oldMost = most, oldLeast = least;
+
+        allocateNames(capacity);
+        for (int i = 0; i < oldLength.length; i++) {
+            if (oldLength[i] == 0) {
+                continue;
+            }
+
+            int j = hash(arena, oldOffset[i], Math.abs(oldLength[i])) & nameMask;
+            while (nameLength[j] != 0) {
+                j = (j + 1) & nameMask;
+            }
+            nameOffset[j] = oldOffset[i];
+            nameLength[j] = oldLength[i];
+            most[j] = oldMost[i];
+            least[j] = oldLeast[i];
+        }
+    }
+
+    private synchronized Optional<UUID> getUUID(String name) {
+        int i = findName(name);
+        return i < 0 ? null : nameValue(i);
+    }
+
+    private synchronized Optional<UUID> putUUID(String name, Optional<UUID> value) {
+        int i = findName(name);
+        if (i >= 0) {
+            Optional<UUID> old = nameValue(i);
+            setNameValue(i, value);
+            return old;
+        }
+        if (!encodable(name)) {
+            return null;
+        }
+
+        if (nameSize + 1 > nameThreshold) {
+            rehashNames((nameMask + 1) << 1);
+        }
+        // append may compact the arena, the slot is searched after that.
+        int offset = append(name);
+        i = hash(name) & nameMask;
+        while (nameLength[i] != 0) {
+            i = (i + 1) & nameMask;
+        }
+        nameOffset[i] = offset;
+        nameLength[i] = (byte) name.length();
+        setNameValue(i, value);
+        nameSize++;
+        return null;
+    }
+
+    private synchronized Optional<UUID> removeUUID(String name) {
+        int index = findName(name);
+        if (index < 0) {
+            return null;
+        }
+
+        Optional<UUID> old = nameValue(index);
+        garbage += Math.abs(nameLength[index]);
+        nameSize--;
+
+        // backward shift deletion
+        int hole = index;
+        for (int j = (index + 1) & nameMask; nameLength[j] != 0; j = (j + 1) & nameMask) {
+            // It can be moved if the hole is between the ideal slot and the current slot.
+            int ideal = slot(j);
+            if (((j - ideal) & nameMask) >= ((j - hole) & nameMask)) {
+                nameOffset[hole] = nameOffset[j];
+                nameLength[hole] = nameLength[j];
+                most[hole] = most[j];
+                least[hole] = least[j];
+                hole = j;
+            }
+        }
+        nameLength[hole] = 0;
+        most[hole] = 0;
+        least[hole] = 0;
+        return old;
+    }
+
+    private synchronized List<Map.Entry<String, Optional<UUID>>> nameEntries() {
+        List<Map.Entry<String, Optional<UUID>>> entries = new ArrayList<>(nameSize);
+        for (int i = 0; i <= nameMask; i++) {
+            if (nameLength[i] != 0) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(read(nameOffset[i], Math.abs(nameLength[i])), nameValue(i)));
+            }
+        }
+        return entries;
+    }
+    // endregion
+
+    // region uuid table
+    private Optional<String> uuidValue(int index) {
+        int length = uuids.length[index];
+        return length < 0 ? Optional.empty() : Optional.of(read(uuids.offset[index], length));
+    }
+
+    private synchronized Optional<String> getName(long mostBits, long leastBits) {
+        int i = uuids.find(mostBits, leastBits);
+        return i < 0 ? null : uuidValue(i);
+    }
+
+    private synchronized Optional<String> putName(long mostBits, long leastBits, Optional<String> value) {
+        if (value.isPresent() && !encodable(value.get())) {
+            return removeName(mostBits, leastBits);
+        }
+
+        Optional<String> old = null;
+        int i = uuids.insert(mostBits, leastBits);
+        if (i >= 0) {
+            old = uuidValue(i);
+            garbage += Math.max(0, uuids.length[i]);
+        } else {
+            i = ~i;
+        }
+
+        // intern may compact the arena, the slot must not be copied.
+        uuids.length[i] = 0;
+        if (value.isPresent()) {
+            uuids.offset[i] = intern(value.get());
+            uuids.length[i] = (byte) value.get().length();
+        } else {
+            uuids.length[i] = -1;
+        }
+        return old;
+    }
+
+    private synchronized Optional<String> removeName(long mostBits, long leastBits) {
+        int i = uuids.find(mostBits, leastBits);
+        if (i < 0) {
+            return null;
+        }
+
+        Optional<String> old = uuidValue(i);
+        garbage += Math.max(0, uuids.length[i]);
+        uuids.removeAt(i);
+        return old;
+    }
+
+    private synchronized List<Map.Entry<UUID, Optional<String>>> uuidEntries() {
+        List<Map.Entry<UUID, Optional<String>>> entries = new ArrayList<>(uuids.size());
+        for (int i = uuids.next(0); i != -1; i = uuids.next(i + 1)) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(uuids.keyAt(i), uuidValue(i)));
+        }
+        return entries;
+    }
+    // endregion
+
+    // region view
+    private final class NameView extends AbstractMap<String, Optional<UUID>> {
+        @Override
+        public Optional<UUID> get(Object key) {
+            return key instanceof String s ? getUUID(s) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Optional<UUID> put(String key, Optional<UUID> value) {
+            return putUUID(key, value);
+        }
+
+        @Override
+        public Optional<UUID> putIfAbsent(String key, Optional<UUID> value) {
+            synchronized (UUIDNameStore.this) {
+                Optional<UUID> old = get(key);
+                return old != null ? old : put(key, value);
+            }
+        }
+
+        @Override
+        public Optional<UUID> replace(String key, Optional<UUID> value) {
+            synchronized (UUIDNameStore.this) {
+                return get(key) != null ? put(key, value) : null;
+            }
+        }
+
+        @Override
+        public Optional<UUID> remove(Object key) {
+            return key instanceof String s ? removeUUID(s) : null;
+        }
+
+        @Override
+        public int size() {
+            synchronized (UUIDNameStore.this) {
+                return nameSize;
+            }
+        }
+
+        @Override
+        public void clear() {
+            synchronized (UUIDNameStore.this) {
+                allocateNames(MIN_CAPACITY);
+                garbage += arenaSize;
+                nameSize = 0;
+            }
+        }
+
+        @Override
+        public Set<Entry<String, Optional<UUID>>> entrySet() {
+            return new EntrySet<>(this) {
+                @Override
+                public Iterator<Entry<String, Optional<UUID>>> iterator() {
+                    return new SnapshotIterator<>(nameEntries(), NameView.this);
+                }
+            };
+        }
+    }
+
+    private final class UUIDView extends AbstractMap<UUID, Optional<String>> {
+        @Override
+        public Optional<String> get(Object key) {
+            return key instanceof UUID u ? getName(u.getMostSignificantBits(), u.getLeastSignificantBits()) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Optional<String> put(UUID key, Optional<String> value) {
+            return putName(key.getMostSignificantBits(), key.getLeastSignificantBits(), value);
+        }
+
+        @Override
+        public Optional<String> putIfAbsent(UUID key, Optional<String> value) {
+            synchronized (UUIDNameStore.this) {
+                Optional<String> old = get(key);
+                return old != null ? old : put(key, value);
+            }
+        }
+
+        @Override
+        public Optional<String> replace(UUID key, Optional<String> value) {
+            synchronized (UUIDNameStore.this) {
+                return get(key) != null ? put(key, value) : null;
+            }
+        }
+
+        @Override
+        public Optional<String> remove(Object key) {
+            return key instanceof UUID u ? removeName(u.getMostSignificantBits(), u.getLeastSignificantBits()) : null;
+        }
+
+        @Override
+        public int size() {
+            synchronized (UUIDNameStore.this) {
+                return uuids.size();
+            }
+        }
+
+        @Override
+        public void clear() {
+            synchronized (UUIDNameStore.this) {
+                uuids.clear();
+                garbage += arenaSize;
+            }
+        }
+
+        @Override
+        public Set<Entry<UUID, Optional<String>>> entrySet() {
+            return new EntrySet<>(this) {
+                @Override
+                public Iterator<Entry<UUID, Optional<String>>> iterator() {
+                    return new SnapshotIterator<>(uuidEntries(), UUIDView.this);
+                }
+            };
+        }
+    }
+
+    private abstract static class EntrySet<K, V> extends AbstractSet<Map.Entry<K, V>> {
+        private final Map<K, V> map;
+
+        private EntrySet(Map<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+    }
+
+    private final static class SnapshotIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Iterator<Map.Entry<K, V>> iterator;
+        private final Map<K, V> map;
+        private Map.Entry<K, V> last = null;
+
+        private SnapshotIterator(List<Map.Entry<K, V>> snapshot, Map<K, V> map) {
+            this.iterator = snapshot.iterator();
+            this.map = map;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return last = iterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            map.remove(last.getKey());
+            last = null;
+        }
+    }
+    // endregion
+
+    private final static class UUIDTable extends UUIDHashTable {
+        private int[] offset;
+        private byte[] length;
+
+        private UUIDTable(int expected) {
+            init(expected);
+        }
+
+        @Override
+        protected void allocate(int length) {
+            this.offset = new int[length];
+            this.length = new byte[length];
+        }
+
+        @Override
+        protected Object values() {
+            return new Object[]{offset, length};
+        }
+
+        @Override
+        protected void transfer(Object oldValues, int from, int to) {
+            Object[] values = (Object[]) oldValues;
+            offset[to] = ((int[]) values[0])[from];
+            length[to] = ((byte[]) values[1])[from];
+        }
+
+        @Override
+        protected void move(int from, int to) {
+            offset[to] = offset[from];
+            length[to] = length[from];
+        }
+
+        @Override
+        protected void clearValue(int index) {
+            offset[index] = 0;
+            length[index] = 0;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import jp.jyn.jbukkitlib.util.PackagePrivate;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * <p>Listener to fill the {@link UUIDRegistry} cache before it is used.</p>
+ * <p>On login, the name/UUID of the player is recorded.
+ * On join, the users declared by the sources (e.g. friends list, claim co-owners) are resolved in the background,
+ * so that the later lookups from the main thread hit the cache.
+ * The sources are called in the asynchronous thread, and the online players are looked up in the main thread.</p>
+ * <pre>
+ * {@code
+ * new UUIDPrefetcher(plugin, registry)
+ *     .addNameSource(player -> friends.get(player))
+ *     .register();
+ * }
+ * </pre>
+ */
+public class UUIDPrefetcher implements Listener {
+    private final Plugin plugin;
+    private final UUIDRegistry registry;
+
+    private final List<Function<UUID, ? extends Collection<UUID>>> nameSources = new CopyOnWriteArrayList<>();
+    private final List<Function<UUID, ? extends Collection<String>>> uuidSources = new CopyOnWriteArrayList<>();
+
+    private final Executor async;
+    private final Executor sync;
+
+    public UUIDPrefetcher(Plugin plugin, UUIDRegistry registry) {
+        this(
+            plugin, registry,
+            r -> Bukkit.getScheduler().runTaskAsynchronously(plugin, r),
+            r -> Bukkit.getScheduler().runTask(plugin, r)
+        );
+    }
+
+    @PackagePrivate
+    UUIDPrefetcher(Plugin plugin, UUIDRegistry registry, Executor async, Executor sync) {
+        this.plugin = Objects.requireNonNull(plugin);
+        this.registry = Objects.requireNonNull(registry);
+        this.async = Objects.requireNonNull(async);
+        this.sync = Objects.requireNonNull(sync);
+    }
+
+    /**
+     * Register this listener.
+     *
+     * @return for method chain
+     */
+    public UUIDPrefetcher register() {
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+        return this;
+    }
+
+    /**
+     * Add the source of UUIDs whose names will be needed for the joined player.
+     *
+     * @param source Function that receives the UUID of the joined player, it is called in the asynchronous thread.
+     * @return for method chain
+     */
+    public UUIDPrefetcher addNameSource(Function<UUID, ? extends Collection<UUID>> source) {
+        nameSources.add(Objects.requireNonNull(source));
+        return this;
+    }
+
+    /**
+     * Add the source of names whose UUIDs will be needed for the joined player.
+     *
+     * @param source Function that receives the UUID of the joined player, it is called in the asynchronous thread.
+     * @return for method chain
+     */
+    public UUIDPrefetcher addUUIDSource(Function<UUID, ? extends Collection<String>> source) {
+        uuidSources.add(Objects.requireNonNull(source));
+        return this;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent e) {
+        // The pair verified by the server, it is free.
+        if (e.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            registry.put(e.getUniqueId(), e.getName());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent e) {
+        if (nameSources.isEmpty() && uuidSources.isEmpty()) {
+            return;
+        }
+
+        prefetch(e.getPlayer().getUniqueId());
+    }
+
+    @PackagePrivate
+    void prefetch(UUID player) {
+        // The sources may block (e.g. database)
+        async.execute(() -> {
+            Set<UUID> uuids = collect(nameSources, player);
+            Set<String> names = collect(uuidSources, player);
+            if (!uuids.isEmpty() || !names.isEmpty()) {
+                // The registry looks up the online players first, it is not thread-safe.
+                sync.execute(() -> request(uuids, names));
+            }
+        });
+    }
+
+    private void request(Set<UUID> uuids, Set<String> names) {
+        // The player is waiting, so the requests are sent before the background requests.
+        if (!uuids.isEmpty()) {
+            registry.getMultipleNameAsync(uuids, RequestScheduler.Priority.HIGH).whenComplete(this::log);
+        }
+        if (!names.isEmpty()) {
+            registry.getMultipleUUIDAsync(names, RequestScheduler.Priority.HIGH).whenComplete(this::log);
+        }
+    }
+
+    private <T> Set<T> collect(List<Function<UUID, ? extends Collection<T>>> sources, UUID player) {
+        Set<T> result = new HashSet<>();
+        for (Function<UUID, ? extends Collection<T>> source : sources) {
+            try {
+                Collection<T> values = source.apply(player);
+                if (values != null) {
+                    result.addAll(values);
+                }
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.WARNING, "Prefetch source failed", e);
+            }
+        }
+        return result;
+    }
+
+    private void log(Object ignore, Throwable e) {
+        if (e != null) {
+            plugin.getLogger().log(Level.WARNING, "Failed to prefetch", e);
+        }
+    }
+}
@@ -1,24 +1,39 @@
 package jp.jyn.jbukkitlib.uuid;
 
 import jp.jyn.jbukkitlib.JBukkitLib;
+import jp.jyn.jbukkitlib.cache.BatchingLoader;
 import jp.jyn.jbukkitlib.cache.CacheFactory;
+import jp.jyn.jbukkitlib.cache.LoadingCache;
 import jp.jyn.jbukkitlib.util.BukkitCompletableFuture;
+import jp.jyn.jbukkitlib.util.PackagePrivate;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.logging.Level;
 
 /**
  * Registry managing UUID conversion and caching
@@ -26,12 +41,26 @@ import java.util.function.Supplier;
 // In this class, we use null for "no value exists" and Optional.empty() for "user does not exist".
 @SuppressWarnings("OptionalAssignedToNull")
 public class UUIDRegistry {
+    private final static int DEFAULT_PARALLELISM = 8;
+    // Maximum number of names per Mojang API call.
+    private final static int BATCH_SIZE = 100;
+    private final static long BATCH_WINDOW = 50; // ms, 1 tick
+
     private final ExecutorService executor;
 
     private final Map<String, Optional<UUID>> nameToUUIDCache;
     private final Map<UUID, Optional<String>> uuidToNameCache;
+    // Concurrent requests for the same user are coalesced into one API call.
+    private final LoadingCache<String, Optional<UUID>> uuidLoader;
+    private final LoadingCache<UUID, Optional<String>> nameLoader;
+    // Single-name misses within the window are merged into one API call.
+    private final BatchingLoader<String, Optional<UUID>> uuidBatcher;
 
     private final Plugin plugin;
+    private volatile UUIDStore store = null;
+    private volatile UUIDConverter.ParallelNameGetter nameGetter = new UUIDConverter.ParallelNameGetter(DEFAULT_PARALLELISM);
+    // sorted by cost
+    private final List<UUIDResolver> resolvers = new CopyOnWriteArrayList<>();
 
     private UUIDRegistry(Plugin plugin,
                          Map<String, Optional<UUID>> nameToUUIDCache,
@@ -41,12 +70,27 @@ public class UUIDRegistry {
         this.nameToUUIDCache = nameToUUIDCache;
         this.uuidToNameCache = uuidToNameCache;
         this.executor = executor;
+        this.uuidLoader = new LoadingCache<>(nameToUUIDCache, this::loadUUID, executor);
+        this.nameLoader = new LoadingCache<>(uuidToNameCache, this::loadName, executor);
+        this.uuidBatcher = new BatchingLoader<>(names -> fetchUUIDs(names, RequestScheduler.Priority.NORMAL),
+            BATCH_SIZE, BATCH_WINDOW, TimeUnit.MILLISECONDS, executor);
     }
 
     public UUIDRegistry(Plugin plugin, CacheFactory cache, ExecutorService executor) {
         this(plugin, cache.create(true), cache.create(true), executor);
     }
 
+    /**
+     * Create registry with the compact name store, suitable for the large number of users.
+     *
+     * @param plugin   plugin
+     * @param store    Store used as the cache.
+     * @param executor executor
+     */
+    public UUIDRegistry(Plugin plugin, UUIDNameStore store, ExecutorService executor) {
+        this(plugin, store.nameToUUID(), store.uuidToName(), executor);
+    }
+
     public UUIDRegistry(Plugin plugin, CacheFactory cache) {
         this(plugin, cache, Executors.newSingleThreadExecutor());
         this.executor.submit(() -> Thread.currentThread().setName(String.format("%s-%s UUIDRegistry", plugin.getName(), JBukkitLib.NAME)));
@@ -104,30 +148,252 @@ public class UUIDRegistry {
         return getSharedCacheRegistry(plugin, null);
     }
 
+    /**
+     * <p>Set the disk-backed store, it is used as the second tier of the cache and survives restarts.</p>
+     * <p>Note: The store is not closed by registry.</p>
+     *
+     * @param store Store, null to disable.
+     * @return for method chain
+     */
+    public UUIDRegistry setStore(UUIDStore store) {
+        this.store = store;
+        return this;
+    }
+
+    /**
+     * Set the getter used by {@link #getMultipleNameAsync(Collection)}, for example, to change the parallelism or API URL.
+     *
+     * @param nameGetter Name getter
+     * @return for method chain
+     */
+    public UUIDRegistry setNameGetter(UUIDConverter.ParallelNameGetter nameGetter) {
+        this.nameGetter = Objects.requireNonNull(nameGetter);
+        return this;
+    }
+
+    /**
+     * <p>Add the resolver, it is queried in order of cost after the cache and before the Mojang API.</p>
+     * <p>Resolvers with the same cost are queried in the order they were added.</p>
+     *
+     * @param resolver Resolver
+     * @return for method chain
+     */
+    public UUIDRegistry addResolver(UUIDResolver resolver) {
+        Objects.requireNonNull(resolver);
+        synchronized (resolvers) {
+            int i = 0;
+            while (i < resolvers.size() && resolvers.get(i).getCost() <= resolver.getCost()) {
+                i++;
+            }
+            resolvers.add(i, resolver);
+        }
+        return this;
+    }
+
+    /**
+     * Remove the resolver.
+     *
+     * @param resolver Resolver
+     * @return for method chain
+     */
+    public UUIDRegistry removeResolver(UUIDResolver resolver) {
+        synchronized (resolvers) {
+            resolvers.remove(resolver);
+        }
+        return this;
+    }
+
+    // region usercache
+
+    /**
+     * <p>Import usercache.json into the cache without blocking thread.</p>
+     * <p>Note: The users already in the cache are not overwritten.</p>
+     *
+     * @param importer Importer
+     * @return {@link jp.jyn.jbukkitlib.util.BukkitCompletableFuture}, number of imported users, -1 if not modified.
+     */
+    public BukkitCompletableFuture<Integer> preloadUserCache(UserCacheImporter importer) {
+        return BukkitCompletableFuture.supplyAsync(plugin, () -> {
+            try {
+                return importer.importIfModified(this::preload);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * <p>Import usercache.json into the cache now, and re-import when the file is modified.</p>
+     * <p>Note: The users already in the cache are not overwritten.</p>
+     *
+     * @param importer Importer
+     * @param period   Period to check the modified time in ticks.
+     * @return Task, cancel it on disable.
+     */
+    public BukkitTask preloadUserCache(UserCacheImporter importer, long period) {
+        return Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> {
+            try {
+                importer.importIfModified(this::preload);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to import " + importer.getFile(), e);
+            }
+        }, 0, period);
+    }
+
+    private void preload(UUID uuid, String name) {
+        // usercache.json is updated only when the player logs in, it may be older than the cache.
+        // Only the unknown users are filled, so the renamed users are not reverted to the old name.
+        if (uuidToNameCache.putIfAbsent(uuid, Optional.of(name)) == null) {
+            nameToUUIDCache.putIfAbsent(lower(name), Optional.of(uuid));
+        }
+    }
+    // endregion
+
+    private <K, V> Map<K, V> query(UUIDResolver resolver, Set<K> keys, Function<Set<K>, Map<K, V>> function) {
+        Map<K, V> result = new HashMap<>();
+        try {
+            if (resolver.isBatchSupported()) {
+                Map<K, V> values = function.apply(Collections.unmodifiableSet(keys));
+                if (values != null) {
+                    result.putAll(values);
+                }
+            } else {
+                for (K key : keys) {
+                    Map<K, V> values = function.apply(Collections.singleton(key));
+                    if (values != null) {
+                        result.putAll(values);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // fall through to the next resolver.
+            plugin.getLogger().log(Level.WARNING, "UUIDResolver " + resolver.getClass().getName() + " failed", e);
+        }
+        return result;
+    }
+
+    /**
+     * Resolve the UUIDs with resolvers, the results are not cached.
+     *
+     * @param names Target names (lower case), the resolved names are removed.
+     * @return resolved UUIDs (lower case name)
+     */
+    @PackagePrivate
+    Map<String, Optional<UUID>> resolveUUIDs(Set<String> names) {
+        Map<String, Optional<UUID>> result = new HashMap<>();
+        for (UUIDResolver resolver : resolvers) {
+            if (names.isEmpty()) {
+                break;
+            }
+
+            for (var entry : query(resolver, names, resolver::getUUIDs).entrySet()) {
+                String name = lower(entry.getKey());
+                if (entry.getValue() != null && names.remove(name)) {
+                    loaded(entry.getValue(), entry.getKey(), true);
+                    result.put(name, Optional.of(entry.getValue()));
+                }
+            }
+
+            if (resolver.isAuthoritative()) {
+                for (String name : names) {
+                    result.put(name, Optional.empty());
+                }
+                names.clear();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolve the names with resolvers, the results are not cached.
+     *
+     * @param uuids Target UUIDs, the resolved UUIDs are removed.
+     * @return resolved names
+     */
+    @PackagePrivate
+    Map<UUID, Optional<String>> resolveNames(Set<UUID> uuids) {
+        Map<UUID, Optional<String>> result = new HashMap<>();
+        for (UUIDResolver resolver : resolvers) {
+            if (uuids.isEmpty()) {
+                break;
+            }
+
+            for (var entry : query(resolver, uuids, resolver::getNames).entrySet()) {
+                if (entry.getValue() != null && uuids.remove(entry.getKey())) {
+                    loaded(entry.getKey(), entry.getValue(), false);
+                    result.put(entry.getKey(), Optional.of(entry.getValue()));
+                }
+            }
+
+            if (resolver.isAuthoritative()) {
+                for (UUID uuid : uuids) {
+                    result.put(uuid, Optional.empty());
+                }
+                uuids.clear();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * <p>Record the known user, for example, the player who is logging in.</p>
+     * <p>Note: The pair must be authoritative, it overwrites the cache.</p>
+     *
+     * @param uuid UUID
+     * @param name Name
+     */
+    public void put(UUID uuid, String name) {
+        updateCache(Objects.requireNonNull(uuid), Objects.requireNonNull(name));
+    }
+
     private void updateCache(UUID uuid, String name) {
+        UUIDStore store = this.store;
+        if (store != null && uuid != null && name != null) {
+            store.put(uuid, name);
+        }
+
         if (uuid != null) {
-            uuidToNameCache.put(uuid, Optional.ofNullable(name));
+            Optional<String> old = uuidToNameCache.put(uuid, Optional.ofNullable(name));
+            // renamed, the old name is no longer this user.
+            if (old != null && old.isPresent() && (name == null || !lower(old.get()).equals(lower(name)))) {
+                nameToUUIDCache.remove(lower(old.get()), Optional.of(uuid));
+            }
         }
         if (name != null) {
             nameToUUIDCache.put(lower(name), Optional.ofNullable(uuid));
         }
     }
 
-    // region getName
-    private Optional<String> tryGetName(UUID uuid) {
-        // search cache.
-        Optional<String> value = uuidToNameCache.get(uuid);
-        if (value != null) {
-            return value;
+    // The loaded values are stored by LoadingCache, so an invalidated load is not cached.
+    // Only the side effects are done here: write to the disk, and evict the old name of the renamed user.
+    private void loaded(UUID uuid, String name, boolean evictOldName) {
+        UUIDStore store = this.store;
+        if (store != null) {
+            store.put(uuid, name);
+        }
+
+        if (evictOldName) {
+            // The UUID of the name is loaded, the user may have been cached with the old name.
+            Optional<String> old = uuidToNameCache.replace(uuid, Optional.of(name));
+            if (old != null && old.isPresent() && !lower(old.get()).equals(lower(name))) {
+                nameToUUIDCache.remove(lower(old.get()), Optional.of(uuid));
+            }
         }
+    }
 
+    // region getName
+    private Optional<String> tryGetName(UUID uuid) {
         // try get online player.
         Player player = Bukkit.getPlayer(uuid);
         if (player != null) {
-            updateCache(player.getUniqueId(), player.getName());
+            loaded(uuid, player.getName(), false);
             return Optional.of(player.getName());
         }
-        return null;
+
+        // search disk.
+        UUIDStore store = this.store;
+        String name = store == null ? null : store.getName(uuid);
+        return name == null ? null : Optional.of(name);
     }
 
     /**
@@ -138,18 +404,30 @@ public class UUIDRegistry {
      * @return name
      */
     public Optional<String> getName(UUID uuid) {
+        // The cache is searched by LoadingCache, so each request is recorded once in the statistics.
+        return nameLoader.get(uuid);
+    }
+
+    private Optional<String> loadName(UUID uuid) {
         Optional<String> value = tryGetName(uuid);
-        if (value != null) {
-            return value;
-        }
+        return value != null ? value : fetchName(uuid);
+    }
 
+    private Optional<String> fetchName(UUID uuid) {
         // Don't use getOfflinePlayer
         // getOfflinePlayer blocks threads.
         // If you query "nonexistent user", getOfflinePlayer fails and UUIDConverter is called, so a long thread blocking occurs.
 
+        // use resolvers.
+        Set<UUID> request = new HashSet<>(Collections.singleton(uuid));
+        Map<UUID, Optional<String>> resolved = resolveNames(request);
+        if (request.isEmpty()) {
+            return resolved.get(uuid);
+        }
+
         // use Mojang API(slow)
-        value = (new UUIDConverter.NameGetter(uuid)).callEx();
-        updateCache(uuid, value.orElse(null));
+        Optional<String> value = (new UUIDConverter.NameGetter(uuid)).callEx();
+        value.ifPresent(name -> loaded(uuid, name, false));
         return value;
     }
 
@@ -162,31 +440,37 @@ public class UUIDRegistry {
      * @return {@link jp.jyn.jbukkitlib.util.BukkitCompletableFuture}
      */
     public BukkitCompletableFuture<Optional<String>> getNameAsync(UUID uuid) {
+        return BukkitCompletableFuture.wrap(plugin, nameLoader.getAsync(uuid, this::loadNameAsync));
+    }
+
+    private CompletableFuture<Optional<String>> loadNameAsync(UUID uuid) {
         Optional<String> value = tryGetName(uuid);
         if (value != null) {
-            return BukkitCompletableFuture.completedFuture(plugin, value);
+            return CompletableFuture.completedFuture(value);
         }
 
         // use Mojang API with threads.
-        return BukkitCompletableFuture.supplyAsync(plugin, () -> {
-            Optional<String> result = (new UUIDConverter.NameGetter(uuid)).callEx();
-            // update cache
-            updateCache(uuid, result.orElse(null));
-            return result;
-        }, executor);
+        return CompletableFuture.supplyAsync(() -> fetchName(uuid), executor);
     }
     // endregion
 
     // region getUUID
-    private Optional<UUID> tryGetUUID(String name) {
+    private Optional<UUID> getOnlineUUID(String name) {
         // Get online player(it is fast)
         Player player = Bukkit.getPlayer(name);
-        if (player != null) {
-            updateCache(player.getUniqueId(), player.getName());
-            return Optional.of(player.getUniqueId());
+        if (player == null) {
+            return null;
         }
 
-        return nameToUUIDCache.get(lower(name));
+        updateCache(player.getUniqueId(), player.getName());
+        return Optional.of(player.getUniqueId());
+    }
+
+    private Optional<UUID> getStoredUUID(String name) {
+        // search disk.
+        UUIDStore store = this.store;
+        UUID uuid = store == null ? null : store.getUUID(name);
+        return uuid == null ? null : Optional.of(uuid);
     }
 
     /**
@@ -197,15 +481,32 @@ public class UUIDRegistry {
      * @return UUID
      */
     public Optional<UUID> getUUID(String name) {
-        Optional<UUID> value = tryGetUUID(name);
+        // The online player is preferred to the cache, the cached name may have been taken by the other user.
+        Optional<UUID> value = getOnlineUUID(name);
         if (value != null) {
             return value;
         }
 
+        return uuidLoader.get(lower(name));
+    }
+
+    private Optional<UUID> loadUUID(String name) {
+        Optional<UUID> value = getStoredUUID(name);
+        return value != null ? value : fetchUUID(name);
+    }
+
+    private Optional<UUID> fetchUUID(String name) {
+        // use resolvers.
+        Set<String> request = new HashSet<>(Collections.singleton(name));
+        Map<String, Optional<UUID>> resolved = resolveUUIDs(request);
+        if (request.isEmpty()) {
+            return resolved.get(name);
+        }
+
+        // use Mojang API(slow)
         Optional<Map.Entry<String, UUID>> result = (new UUIDConverter.UUIDGetter(name)).callEx();
-        value = result.map(Map.Entry::getValue);
-        updateCache(value.orElse(null), result.map(Map.Entry::getKey).orElse(name));
-        return value;
+        result.ifPresent(entry -> loaded(entry.getValue(), entry.getKey(), true));
+        return result.map(Map.Entry::getValue);
     }
 
     /**
@@ -217,19 +518,17 @@ public class UUIDRegistry {
      * @return {@link jp.jyn.jbukkitlib.util.BukkitCompletableFuture}
      */
     public BukkitCompletableFuture<Optional<UUID>> getUUIDAsync(String name) {
-        Optional<UUID> value = tryGetUUID(name);
+        Optional<UUID> value = getOnlineUUID(name);
         if (value != null) {
             return BukkitCompletableFuture.completedFuture(plugin, value);
         }
 
-        return BukkitCompletableFuture.supplyAsync(plugin, () -> {
-            Optional<Map.Entry<String, UUID>> result = (new UUIDConverter.UUIDGetter(name)).callEx();
-            Optional<UUID> uuid = result.map(Map.Entry::getValue);
-
-            updateCache(uuid.orElse(null), result.map(Map.Entry::getKey).orElse(name));
+        return BukkitCompletableFuture.wrap(plugin, uuidLoader.getAsync(lower(name), this::loadUUIDAsync));
+    }
 
-            return uuid;
-        }, executor);
+    private CompletableFuture<Optional<UUID>> loadUUIDAsync(String name) {
+        Optional<UUID> value = getStoredUUID(name);
+        return value != null ? CompletableFuture.completedFuture(value) : uuidBatcher.load(name);
     }
     // endregion
 
@@ -244,16 +543,29 @@ public class UUIDRegistry {
      * @return {@link jp.jyn.jbukkitlib.util.BukkitCompletableFuture}
      */
     public BukkitCompletableFuture<Map<String, UUID>> getMultipleUUIDAsync(Collection<String> names) {
+        return getMultipleUUIDAsync(names, RequestScheduler.Priority.LOW);
+    }
+
+    /**
+     * <p>Gets the UUID of multiple users without blocking threads.</p>
+     * <p>Note: This method does not necessarily create a new thread.
+     * (For example, if the player is online or the cache exists, the value is returned in the current thread)</p>
+     *
+     * @param names    Target Names
+     * @param priority Priority of the API requests
+     * @return {@link jp.jyn.jbukkitlib.util.BukkitCompletableFuture}
+     */
+    public BukkitCompletableFuture<Map<String, UUID>> getMultipleUUIDAsync(Collection<String> names, RequestScheduler.Priority priority) {
         Map<String, UUID> result = new HashMap<>((names.size() * 4) / 3);
         Map<String, String> request = new HashMap<>();
 
-        // search cache.
+        // get online players.
         for (String name : names) {
-            Optional<UUID> uuid = tryGetUUID(name);
+            Optional<UUID> uuid = getOnlineUUID(name);
             if (uuid == null) {
                 request.put(lower(name), name);
             } else {
-                uuid.ifPresent(u -> result.put(name, u));
+                result.put(name, uuid.get());
             }
         }
 
@@ -261,27 +573,53 @@ public class UUIDRegistry {
             return BukkitCompletableFuture.completedFuture(plugin, result);
         }
 
-        return BukkitCompletableFuture.supplyAsync(plugin, () -> {
-            Map<String, UUID> uuid = new UUIDConverter.MultipleUUIDGetter(request.keySet()).callEx();
-
+        // Names loading by other requests are not requested again.
+        return uuidLoader.getAllAsync(plugin, request.keySet(), n -> loadUUIDs(n, priority)).thenApply(uuid -> {
             // "Correct name" might be different as "Requested name." (Upper or lower case letters, etc.)
             // Since we do not know "Correct name" from the caller of this method, we need to convert it to "Requested name".
             for (var entry : uuid.entrySet()) {
-                // update cache.
-                updateCache(entry.getValue(), entry.getKey());
-
-                String name = request.remove(lower(entry.getKey()));
-                if (name != null) {
-                    result.put(name, entry.getValue());
-                }
+                entry.getValue().ifPresent(u -> result.put(request.get(entry.getKey()), u));
             }
-            // negative cache
-            for (String name : request.keySet()) {
-                updateCache(null, name);
+            return result;
+        });
+    }
+
+    private Map<String, Optional<UUID>> loadUUIDs(Set<String> names, RequestScheduler.Priority priority) {
+        Map<String, Optional<UUID>> result = new HashMap<>();
+        Set<String> request = new HashSet<>();
+        for (String name : names) {
+            Optional<UUID> uuid = getStoredUUID(name);
+            if (uuid == null) {
+                request.add(name);
+            } else {
+                result.put(name, uuid);
             }
+        }
+
+        if (!request.isEmpty()) {
+            result.putAll(fetchUUIDs(request, priority));
+        }
+        return result;
+    }
 
+    private Map<String, Optional<UUID>> fetchUUIDs(Set<String> names, RequestScheduler.Priority priority) {
+        // Cheap resolvers first, only the remainder is requested to Mojang API.
+        Set<String> request = new HashSet<>(names);
+        Map<String, Optional<UUID>> result = resolveUUIDs(request);
+        if (request.isEmpty()) {
             return result;
-        }, executor);
+        }
+
+        Map<String, UUID> uuid = new UUIDConverter.MultipleUUIDGetter(request).priority(priority).callEx();
+        for (var entry : uuid.entrySet()) {
+            loaded(entry.getValue(), entry.getKey(), true);
+            result.put(lower(entry.getKey()), Optional.of(entry.getValue()));
+        }
+        // negative cache
+        for (String name : request) {
+            result.putIfAbsent(name, Optional.empty());
+        }
+        return result;
     }
 
     /**
@@ -293,42 +631,63 @@ public class UUIDRegistry {
      * @return {@link jp.jyn.jbukkitlib.util.BukkitCompletableFuture}
      */
     public BukkitCompletableFuture<Map<UUID, String>> getMultipleNameAsync(Collection<UUID> uuids) {
-        Map<UUID, String> result = new HashMap<>((uuids.size() * 4) / 3);
-        Set<UUID> request = new HashSet<>();
+        return getMultipleNameAsync(uuids, RequestScheduler.Priority.LOW);
+    }
 
-        // search cache.
+    /**
+     * <p>Gets the Name of multiple UUID without blocking threads.</p>
+     * <p>Note: This method does not necessarily create a new thread.
+     * (For example, if the player is online or the cache exists, the value is returned in the current thread)</p>
+     *
+     * @param uuids    Target uuids
+     * @param priority Priority of the API requests
+     * @return {@link jp.jyn.jbukkitlib.util.BukkitCompletableFuture}
+     */
+    public BukkitCompletableFuture<Map<UUID, String>> getMultipleNameAsync(Collection<UUID> uuids, RequestScheduler.Priority priority) {
+        Map<UUID, CompletableFuture<Optional<String>>> futures = new HashMap<>((uuids.size() * 4) / 3);
+        // UUIDs loading by other requests are not requested again, the rest are loaded at once.
+        Map<UUID, CompletableFuture<Optional<String>>> batch = new HashMap<>();
         for (UUID uuid : uuids) {
-            Optional<String> name = tryGetName(uuid);
-            if (name == null) {
-                request.add(uuid);
-            } else {
-                name.ifPresent(n -> result.put(uuid, n));
-            }
+            futures.computeIfAbsent(uuid, u -> nameLoader.getAsync(u, k -> {
+                Optional<String> name = tryGetName(k);
+                return name != null ? CompletableFuture.completedFuture(name) : batch.computeIfAbsent(k, ignore -> new CompletableFuture<>());
+            }));
         }
-
-        if (request.isEmpty()) {
-            return BukkitCompletableFuture.completedFuture(plugin, result);
+        if (!batch.isEmpty()) {
+            fetchNames(batch, priority);
         }
 
-        return BukkitCompletableFuture.supplyAsync(plugin, () -> {
-            for (UUID uuid : request) {
-                // The Mojang API does not have an API to convert multiple UUIDs to names.
-                // It is "insanely inefficient", but simply executes multiple calls.
-                // Do you believe Keep-Alive? I believe.
-                final Optional<String> name = (new UUIDConverter.NameGetter(uuid)).callEx();
-
-                if (name.isPresent()) {
-                    String n = name.get();
-                    updateCache(uuid, n);
-                    result.put(uuid, n);
+        CompletableFuture<Void> future = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]));
+        return BukkitCompletableFuture.wrap(plugin, future).thenApply(ignore -> {
+            Map<UUID, String> result = new HashMap<>((futures.size() * 4) / 3);
+            futures.forEach((uuid, name) -> name.join().ifPresent(n -> result.put(uuid, n)));
+            return result;
+        });
+    }
+
+    // Complete the futures as the results arrive, the values are stored by LoadingCache.
+    private void fetchNames(Map<UUID, CompletableFuture<Optional<String>>> batch, RequestScheduler.Priority priority) {
+        Set<UUID> request = new HashSet<>(batch.keySet());
+        try {
+            // Cheap resolvers first, only the remainder is requested to Mojang API.
+            CompletableFuture.supplyAsync(() -> {
+                resolveNames(request).forEach((uuid, name) -> batch.get(uuid).complete(name));
+                return request;
+            }, executor).thenCompose(rest -> nameGetter.get(rest, priority, (uuid, name) -> {
+                name.ifPresent(n -> loaded(uuid, n, false));
+                batch.get(uuid).complete(name);
+            })).whenComplete((names, e) -> {
+                // The completed futures are not changed.
+                if (e == null) {
+                    batch.forEach((uuid, f) -> f.complete(names.getOrDefault(uuid, Optional.empty())));
                 } else {
-                    // negative
-                    updateCache(uuid, null);
+                    Throwable cause = e instanceof CompletionException c && c.getCause() != null ? c.getCause() : e;
+                    batch.values().forEach(f -> f.completeExceptionally(cause));
                 }
-            }
-
-            return result;
-        }, executor);
+            });
+        } catch (RuntimeException e) { // RejectedExecutionException
+            batch.values().forEach(f -> f.completeExceptionally(e));
+        }
     }
     // endregion
 
@@ -0,0 +1,58 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * <p>Backend to resolve UUID/Name, see {@link UUIDRegistry#addResolver(UUIDResolver)}.</p>
+ * <p>The registry queries the resolvers in order of cost (cheapest first) before the Mojang API,
+ * and only the users not resolved by the previous resolver are passed to the next resolver.
+ * For example, usercache.json, own database, or shared cache of the network.</p>
+ * <p>The methods are called in the registry thread, so they may block.
+ * If the method throws an exception, it is logged and the users are passed to the next resolver.</p>
+ */
+public interface UUIDResolver {
+    /**
+     * Get the cost of this resolver, the resolvers are queried in ascending order of cost.
+     * (e.g. memory: 0, file: 10, database: 100)
+     *
+     * @return cost
+     */
+    int getCost();
+
+    /**
+     * <p>Whether this resolver can resolve multiple users at once.</p>
+     * <p>If false, {@link #getUUIDs(Set)} and {@link #getNames(Set)} are called with one user at a time.</p>
+     *
+     * @return true if the batch is supported.
+     */
+    boolean isBatchSupported();
+
+    /**
+     * <p>Whether this resolver knows all users.</p>
+     * <p>If true, the users not resolved by this resolver are treated as nonexistent,
+     * and the next resolvers (including the Mojang API) are not queried. (e.g. offline-mode server)</p>
+     *
+     * @return true if authoritative.
+     */
+    default boolean isAuthoritative() {
+        return false;
+    }
+
+    /**
+     * Resolve the UUIDs.
+     *
+     * @param names Target names (lower case)
+     * @return Map of the correct name and UUID, the unknown users are not included.
+     */
+    Map<String, UUID> getUUIDs(Set<String> names);
+
+    /**
+     * Resolve the names.
+     *
+     * @param uuids Target UUIDs
+     * @return Map of the UUID and name, the unknown users are not included.
+     */
+    Map<UUID, String> getNames(Set<UUID> uuids);
+}
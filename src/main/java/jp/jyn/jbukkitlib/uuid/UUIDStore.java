@@ -0,0 +1,408 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import org.bukkit.plugin.Plugin;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>Disk-backed UUID to name store.</p>
+ * <p>The file is an append-only log of {@code [UUID (16 bytes)][name length (1 byte)][name (Latin-1)]} records,
+ * it is memory-mapped, and only the offsets of the records are kept in heap (no String/UUID object per entry).
+ * When the same UUID is written again, the old record becomes garbage, and it is removed by compaction.</p>
+ * <p>Only the existing users are stored (negative results are not stored),
+ * and the names that longer than 16 characters or containing non Latin-1 characters are ignored.</p>
+ * <p>Note: Thread-safe</p>
+ */
+public class UUIDStore implements Closeable {
+    private final static int MAGIC = 0x4A425555; // "JBUU"
+    private final static int HEADER = Integer.BYTES;
+    private final static int RECORD_HEADER = 16 + 1;
+    private final static int MAX_NAME = 16;
+    private final static int MIN_MAP_SIZE = 64 * 1024;
+    private final static int MIN_COMPACT_GARBAGE = 1024;
+
+    private final Path file;
+    private final Executor compactor;
+    private final Object compactLock = new Object();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int end;
+    private int records;
+    private UUIDLongMap uuidIndex;
+    private UUIDLongMap nameIndex;
+    private boolean compacting = false;
+
+    /**
+     * Open the store.
+     *
+     * @param file      File
+     * @param compactor Executor to run compaction in background, null to disable automatic compaction.
+     * @throws IOException If the file could not be opened.
+     */
+    public UUIDStore(Path file, Executor compactor) throws IOException {
+        this.file = file;
+        this.compactor = compactor;
+        open();
+        compactIfNeeded();
+    }
+
+    /**
+     * Open the store without automatic compaction.
+     *
+     * @param file File
+     * @throws IOException If the file could not be opened.
+     */
+    public UUIDStore(Path file) throws IOException {
+        this(file, null);
+    }
+
+    /**
+     * Open the store in the plugin data folder ({@code uuid.dat}).
+     *
+     * @param plugin    Plugin
+     * @param compactor Executor to run compaction in background, null to disable automatic compaction.
+     * @return store
+     * @throws IOException If the file could not be opened.
+     */
+    public static UUIDStore open(Plugin plugin, Executor compactor) throws IOException {
+        Path dir = plugin.getDataFolder().toPath();
+        Files.createDirectories(dir);
+        return new UUIDStore(dir.resolve("uuid.dat"), compactor);
+    }
+
+    // region file
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int size = (int) Math.min(channel.size(), Integer.MAX_VALUE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, MIN_MAP_SIZE));
+        if (size < HEADER) {
+            buffer.putInt(0, MAGIC);
+        } else if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Invalid file: " + file);
+        }
+
+        uuidIndex = new UUIDLongMap(0, -1);
+        nameIndex = new UUIDLongMap(0, -1);
+        records = 0;
+
+        // The file is extended with 0 by mapping, so the record with length 0 is the end.
+        // It also stops at the broken record (e.g. crash while writing), and it will be overwritten.
+        int position = HEADER;
+        int length;
+        while ((length = recordLength(position)) != -1) {
+            index(position);
+            position += length;
+        }
+        end = position;
+    }
+
+    private int recordLength(int position) {
+        if (position + RECORD_HEADER > buffer.capacity()) {
+            return -1;
+        }
+
+        int length = buffer.get(position + 16) & 0xFF;
+        if (length == 0 || length > MAX_NAME || position + RECORD_HEADER + length > buffer.capacity()) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(position + RECORD_HEADER + i) == 0) {
+                return -1;
+            }
+        }
+        return RECORD_HEADER + length;
+    }
+
+    private void index(int position) {
+        records++;
+        uuidIndex.put(buffer.getLong(position), buffer.getLong(position + 8), position);
+
+        int length = buffer.get(position + 16) & 0xFF;
+        long most = 0, least = 0;
+        for (int i = 0; i < length; i++) {
+            long b = lower(buffer.get(position + RECORD_HEADER + i) & 0xFF);
+            if (i < 8) {
+                most |= b << (i * 8);
+            } else {
+                least |= b << ((i - 8) * 8);
+            }
+        }
+        nameIndex.put(most, least, position);
+    }
+
+    private void ensureCapacity(int required) throws IOException {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+
+        long capacity = Math.max(required, (long) buffer.capacity() * 2);
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("File too large: " + file);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+    // endregion
+
+    // region name
+    private static boolean storable(String name) {
+        if (name == null || name.isEmpty() || name.length() > MAX_NAME) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == 0 || c > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lower(int c) {
+        return (c >= 'A' && c <= 'Z') ? c + ('a' - 'A') : c;
+    }
+
+    /**
+     * Pack lower case name (up to 16 Latin-1 characters) into two longs, it is used as the key of name index.
+     */
+    private static long[] nameKey(String name) {
+        long most = 0, least = 0;
+        for (int i = 0; i < name.length(); i++) {
+            long b = lower(name.charAt(i));
+            if (i < 8) {
+                most |= b << (i * 8);
+            } else {
+                least |= b << ((i - 8) * 8);
+            }
+        }
+        return new long[]{most, least};
+    }
+
+    private String readName(int position) {
+        byte[] bytes = new byte[buffer.get(position + 16) & 0xFF];
+        buffer.get(position + RECORD_HEADER, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+    // endregion
+
+    /**
+     * Get the name.
+     *
+     * @param uuid UUID
+     * @return name, or null if not stored.
+     */
+    public synchronized String getName(UUID uuid) {
+        if (!channel.isOpen()) {
+            return null;
+        }
+
+        long position = uuidIndex.get(uuid);
+        return position < 0 ? null : readName((int) position);
+    }
+
+    /**
+     * Get the UUID.
+     *
+     * @param name name (case-insensitive)
+     * @return UUID, or null if not stored.
+     */
+    public synchronized UUID getUUID(String name) {
+        if (!channel.isOpen() || !storable(name)) {
+            return null;
+        }
+
+        long[] key = nameKey(name);
+        long position = nameIndex.get(key[0], key[1]);
+        if (position < 0) {
+            return null;
+        }
+
+        long most = buffer.getLong((int) position), least = buffer.getLong((int) position + 8);
+        // The user has been renamed after this record was written.
+        if (uuidIndex.get(most, least) != position) {
+            return null;
+        }
+        return new UUID(most, least);
+    }
+
+    /**
+     * Store the name.
+     *
+     * @param uuid UUID
+     * @param name name
+     * @return true if stored (or already stored), false if the name could not be stored.
+     */
+    public boolean put(UUID uuid, String name) {
+        if (!storable(name)) {
+            return false;
+        }
+
+        synchronized (this) {
+            if (!channel.isOpen()) {
+                return false;
+            }
+
+            long old = uuidIndex.get(uuid);
+            if (old >= 0 && readName((int) old).equals(name)) {
+                return true;
+            }
+
+            int position = end;
+            int length = RECORD_HEADER + name.length();
+            try {
+                ensureCapacity(position + length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            UUIDBytes.write(uuid, buffer, position);
+            buffer.put(position + RECORD_HEADER, name.getBytes(StandardCharsets.ISO_8859_1));
+            // Write the length at the end, record is valid after that.
+            buffer.put(position + 16, (byte) name.length());
+            end += length;
+            index(position);
+        }
+
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Get the number of stored UUIDs.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return uuidIndex.size();
+    }
+
+    // region compaction
+    private void compactIfNeeded() {
+        if (compactor == null) {
+            return;
+        }
+
+        synchronized (this) {
+            int garbage = records - uuidIndex.size();
+            if (compacting || garbage < MIN_COMPACT_GARBAGE || garbage < uuidIndex.size()) {
+                return;
+            }
+            compacting = true;
+        }
+
+        try {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException ignore) {
+                    // keep current file, retry at next write.
+                }
+            });
+        } catch (RuntimeException e) { // RejectedExecutionException
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    /**
+     * <p>Remove the old records from the file.</p>
+     * <p>The live records are copied to new file without holding the lock,
+     * so reads and writes are not blocked except the final file swap.</p>
+     *
+     * @throws IOException If failed to write the new file.
+     */
+    public void compact() throws IOException {
+        synchronized (compactLock) {
+            compact0();
+        }
+    }
+
+    private void compact0() throws IOException {
+        MappedByteBuffer source;
+        int[] positions;
+        int snapshotEnd;
+        synchronized (this) {
+            compacting = true;
+            if (!channel.isOpen()) {
+                compacting = false;
+                return;
+            }
+
+            source = buffer;
+            snapshotEnd = end;
+            positions = new int[uuidIndex.size()];
+            int[] n = {0};
+            uuidIndex.forEach((k, v) -> positions[n[0]++] = (int) v);
+        }
+        // Keep the order of the records, the later one wins when the name is duplicated.
+        Arrays.sort(positions);
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The records before snapshotEnd are never modified, it can be read without lock.
+            int size = HEADER;
+            for (int position : positions) {
+                size += RECORD_HEADER + (source.get(position + 16) & 0xFF);
+            }
+            MappedByteBuffer head = out.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            head.putInt(MAGIC);
+            for (int position : positions) {
+                int length = RECORD_HEADER + (source.get(position + 16) & 0xFF);
+                head.put(head.position(), source, position, length);
+                head.position(head.position() + length);
+            }
+            head.force();
+
+            synchronized (this) {
+                if (!channel.isOpen()) {
+                    return;
+                }
+
+                // Copy the records written while compacting.
+                if (end > snapshotEnd) {
+                    MappedByteBuffer tail = out.map(FileChannel.MapMode.READ_WRITE, size, end - snapshotEnd);
+                    tail.put(0, buffer, snapshotEnd, end - snapshotEnd);
+                    tail.force();
+                }
+
+                buffer.force();
+                channel.close();
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    // If the move failed (e.g. the file is locked), reopen the current file.
+                    open();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+    // endregion
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            buffer.force();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import com.google.gson.stream.JsonReader;
+import jp.jyn.jbukkitlib.util.PackagePrivate;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>Importer of the server's usercache.json ({@code [{"name":"...","uuid":"...","expiresOn":"..."}, ...]}).</p>
+ * <p>The file is read as a stream, so the whole JSON tree is not held in memory.
+ * The last modified time is remembered, and the file is read again only when it is changed.</p>
+ * <p>The expired users ({@code expiresOn} has passed) are skipped.</p>
+ * <p>Note: Thread-safe</p>
+ */
+public class UserCacheImporter {
+    // 2021-01-01 00:00:00 +0900
+    private final static DateTimeFormatter EXPIRES_ON = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss Z", Locale.ROOT);
+
+    private final Path file;
+    private FileTime lastModified = null;
+
+    /**
+     * Create importer.
+     *
+     * @param file usercache.json
+     */
+    public UserCacheImporter(Path file) {
+        this.file = Objects.requireNonNull(file);
+    }
+
+    /**
+     * Create importer of usercache.json in the server directory.
+     */
+    public UserCacheImporter() {
+        this(Path.of("usercache.json"));
+    }
+
+    /**
+     * Get the file.
+     *
+     * @return usercache.json
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Import the file if it has been modified since the last import.
+     *
+     * @param consumer Consumer of UUID and name.
+     * @return Number of imported users, -1 if not modified (or the file does not exist).
+     * @throws IOException If an I/O error occurs or the file is malformed.
+     */
+    public synchronized int importIfModified(BiConsumer<UUID, String> consumer) throws IOException {
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+        if (modified.equals(lastModified)) {
+            return -1;
+        }
+
+        int count;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            count = read(reader, Instant.now(), consumer);
+        }
+        lastModified = modified;
+        return count;
+    }
+
+    /**
+     * Read usercache.json.
+     *
+     * @param reader   reader
+     * @param now      Current time, the users expired before it are skipped.
+     * @param consumer Consumer of UUID and name.
+     * @return Number of users
+     * @throws IOException If the JSON is malformed.
+     */
+    @PackagePrivate
+    static int read(Reader reader, Instant now, BiConsumer<UUID, String> consumer) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        try {
+            json.peek();
+        } catch (EOFException e) {
+            return 0; // empty file
+        }
+
+        int count = 0;
+        json.beginArray();
+        while (json.hasNext()) {
+            String name = null, uuid = null, expiresOn = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "name" -> name = json.nextString();
+                    case "uuid" -> uuid = json.nextString();
+                    case "expiresOn" -> expiresOn = json.nextString();
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+
+            if (name == null || uuid == null) {
+                continue;
+            }
+            UUID value;
+            try {
+                value = UUIDHex.parse(uuid);
+                if (expiresOn != null && OffsetDateTime.parse(expiresOn, EXPIRES_ON).toInstant().isBefore(now)) {
+                    continue; // expired
+                }
+            } catch (IllegalArgumentException | DateTimeParseException ignore) {
+                continue; // broken entry
+            }
+            consumer.accept(value, name);
+            count++;
+        }
+        json.endArray();
+        return count;
+    }
+}
@@ -0,0 +1,87 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchingLoaderTest {
+    @Test
+    public void batchTest() throws Exception {
+        List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            BatchingLoader<Integer, String> loader = new BatchingLoader<>(keys -> {
+                batches.add(keys.size());
+                Map<Integer, String> result = new HashMap<>();
+                for (Integer key : keys) {
+                    if (key % 10 != 0) {
+                        result.put(key, "v" + key);
+                    }
+                }
+                return result;
+            }, 100, 100, TimeUnit.MILLISECONDS, executor);
+
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 1; i <= 250; i++) {
+                futures.add(loader.load(i));
+            }
+            // same key joins the pending future
+            assertSame(loader.load(250), futures.get(249));
+
+            for (int i = 1; i <= 250; i++) {
+                assertEquals(futures.get(i - 1).get(5, TimeUnit.SECONDS), i % 10 == 0 ? null : "v" + i);
+            }
+            // 2 full batches, and the rest after the window
+            List<Integer> sorted = new ArrayList<>(batches);
+            Collections.sort(sorted);
+            assertEquals(sorted, List.of(50, 100, 100));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void loadingCacheTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            LoadingCache<String, String> cache = new LoadingCache<>(CacheFactory.INFINITY, key -> {
+                throw new AssertionError("single loader must not be called");
+            }, executor);
+            List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+            BatchingLoader<String, String> loader = new BatchingLoader<>(keys -> {
+                batches.add(keys.size());
+                Map<String, String> result = new HashMap<>();
+                keys.forEach(k -> result.put(k, k.toUpperCase()));
+                return result;
+            }, 100, 50, TimeUnit.MILLISECONDS, executor);
+
+            CompletableFuture<String> a = cache.getAsync("a", loader::load);
+            CompletableFuture<String> b = cache.getAsync("b", loader::load);
+            assertSame(cache.getAsync("a", loader::load), a);
+            assertEquals(a.get(5, TimeUnit.SECONDS), "A");
+            assertEquals(b.get(5, TimeUnit.SECONDS), "B");
+            assertEquals(batches, List.of(2));
+            assertEquals(cache.getIfPresent("a"), "A");
+
+            // exception
+            BatchingLoader<String, String> failure = new BatchingLoader<>(keys -> {
+                throw new IllegalStateException();
+            }, 100, 0, TimeUnit.MILLISECONDS, executor);
+            CompletableFuture<String> c = cache.getAsync("c", failure::load);
+            assertTrue(assertThrows(Exception.class, () -> c.get(5, TimeUnit.SECONDS)).getCause() instanceof IllegalStateException);
+            assertNull(cache.getIfPresent("c"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
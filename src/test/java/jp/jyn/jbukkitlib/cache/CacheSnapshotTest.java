@@ -0,0 +1,116 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CacheSnapshotTest {
+    @Test
+    public void recencyTest() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            LRUMap<String, String> map = new LRUMap<>(100);
+            for (int i = 0; i < 100; i++) {
+                map.put("k" + i, "v" + i);
+            }
+            // k0 - k4 are the most recently used.
+            for (int i = 4; i >= 0; i--) {
+                map.get("k" + i);
+            }
+
+            assertEquals(10, CacheSnapshot.save(map, file, Serializer.string(), Serializer.string(), 10));
+
+            LRUMap<String, String> restored = new LRUMap<>(10);
+            assertEquals(10, CacheSnapshot.restore(restored, file, Serializer.string(), Serializer.string()));
+            assertEquals(10, restored.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals("v" + i, restored.get("k" + i));
+            }
+            assertTrue(restored.containsKey("k99"));
+
+            // recency order is kept: the least recently used (k95) is evicted first.
+            restored.put("new", "new");
+            assertFalse(restored.containsKey("k95"));
+            assertTrue(restored.containsKey("k96"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void stripedRecencyTest() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            ConcurrentLRUMap<String, String> map = new ConcurrentLRUMap<>(1000, 8);
+            for (int i = 0; i < 1000; i++) {
+                map.put("k" + i, "v" + i);
+            }
+            // k0 - k99 are the most recently used.
+            for (int i = 0; i < 100; i++) {
+                map.get("k" + i);
+            }
+
+            assertEquals(100, CacheSnapshot.save(map, file, Serializer.string(), Serializer.string(), 100));
+
+            // The segments are not equal in size, so it is approximate (stripe by stripe kept 11).
+            LinkedHashMap<String, String> saved = new LinkedHashMap<>();
+            CacheSnapshot.restore(saved, file, Serializer.string(), Serializer.string());
+            assertTrue(hot(saved.keySet()) >= 80, "hot entries: " + hot(saved.keySet()));
+
+            ConcurrentLRUMap<String, String> restored = new ConcurrentLRUMap<>(1000, 8);
+            CacheSnapshot.restore(restored, file, Serializer.string(), Serializer.string());
+            assertEquals(100, restored.size());
+            // The order in each segment is kept, so saving the restored map gives the same entries.
+            Path again = Files.createTempFile("snapshot", ".bin");
+            try {
+                CacheSnapshot.save(restored, again, Serializer.string(), Serializer.string(), 100);
+                LinkedHashMap<String, String> reloaded = new LinkedHashMap<>();
+                CacheSnapshot.restore(reloaded, again, Serializer.string(), Serializer.string());
+                assertEquals(saved.keySet(), reloaded.keySet());
+            } finally {
+                Files.deleteIfExists(again);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long hot(Collection<String> keys) {
+        return keys.stream().filter(k -> Integer.parseInt(k.substring(1)) < 100).count();
+    }
+
+    @Test
+    public void asyncTest() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            Map<String, String> map = new ConcurrentLRUMap<>(1000);
+            for (int i = 0; i < 1000; i++) {
+                map.put("k" + i, "v" + i);
+            }
+            CacheSnapshot.save(map, file, Serializer.string(), Serializer.string());
+
+            Map<String, String> restored = new ConcurrentLRUMap<>(2000);
+            restored.put("k0", "newer");
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            int count = CacheSnapshot.restoreAsync(restored, file, Serializer.string(), Serializer.string(), executor).join();
+            executor.shutdown();
+            // Each segment evicts independently, so the size may be slightly less than 1000.
+            assertEquals(map.size(), count);
+            assertEquals("newer", restored.get("k0"));
+            assertEquals(map.get("k999"), restored.get("k999"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
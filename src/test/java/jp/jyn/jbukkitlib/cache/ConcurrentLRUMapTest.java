@@ -0,0 +1,96 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentLRUMapTest {
+    @Test
+    public void limitTest() {
+        final int limit = 10;
+        ConcurrentLRUMap<Object, Object> map = new ConcurrentLRUMap<>(limit, 1);
+
+        // Maximum size limit
+        for (int i = 0; i < (limit + 1); i++) {
+            map.put(new Object(), new Object());
+        }
+        assertEquals(map.size(), limit);
+
+        // Retain values
+        Object key = new Object();
+        map.put(key, new Object());
+        assertTrue(map.containsKey(key));
+
+        // Delete with LRU
+        for (int i = 0; i < (limit + 1); i++) {
+            map.put(new Object(), new Object());
+        }
+        assertFalse(map.containsKey(key));
+    }
+
+    @Test
+    public void stripedLimitTest() {
+        final int limit = 1000;
+        ConcurrentLRUMap<Integer, Integer> map = new ConcurrentLRUMap<>(limit, 16);
+        for (int i = 0; i < limit * 10; i++) {
+            map.put(i, i);
+        }
+        assertTrue(map.size() <= limit);
+
+        int count = 0;
+        for (var entry : map.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue());
+            count++;
+        }
+        assertEquals(map.size(), count);
+    }
+
+    @Test
+    public void smallLimitTest() {
+        // fewer entries than segments
+        ConcurrentLRUMap<Integer, Integer> map = new ConcurrentLRUMap<>(3, 16);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+            assertTrue(map.size() <= 3, "size: " + map.size());
+        }
+
+        map = new ConcurrentLRUMap<>(100, 16);
+        map.setMaximumSize(16);
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentLRUMap<>(100, 16).setMaximumSize(15));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentLRUMap<>(0, 1));
+        assertEquals(map.getMaximumSize(), 16);
+    }
+
+    @Test
+    public void concurrentTest() throws InterruptedException {
+        final int limit = 1000;
+        ConcurrentLRUMap<Integer, Integer> map = new ConcurrentLRUMap<>(limit);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int j = 0; j < 100_000; j++) {
+                    int key = random.nextInt(limit * 2);
+                    Integer value = map.get(key);
+                    if (value == null) {
+                        map.put(key, key);
+                    } else {
+                        assertEquals(key, (int) value);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(map.size() <= limit);
+    }
+}
@@ -0,0 +1,95 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringMapTest {
+    private final AtomicLong time = new AtomicLong(Long.MAX_VALUE - TimeUnit.DAYS.toNanos(1)); // nanoTime may overflow
+
+    private void sleep(long duration, TimeUnit unit) {
+        time.addAndGet(unit.toNanos(duration));
+    }
+
+    private <K, V> Map<K, V> create(ExpiringFactory.Builder builder, boolean concurrency) {
+        return builder.ticker(time::get).build().create(concurrency);
+    }
+
+    @Test
+    public void expireAfterWriteTest() {
+        Map<String, Optional<String>> map = create(ExpiringFactory.builder()
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .negativeExpire(Duration.ofSeconds(30)), false);
+
+        map.put("positive", Optional.of("value"));
+        map.put("negative", Optional.empty());
+        sleep(29, TimeUnit.SECONDS);
+        assertEquals(map.size(), 2);
+        assertTrue(map.containsKey("negative"));
+
+        sleep(1, TimeUnit.SECONDS);
+        assertFalse(map.containsKey("negative"));
+        assertNull(map.get("negative"));
+        assertEquals(map.get("positive"), Optional.of("value"));
+
+        // read does not extend
+        sleep(9, TimeUnit.MINUTES);
+        assertNotNull(map.get("positive"));
+        sleep(31, TimeUnit.SECONDS);
+        assertNull(map.get("positive"));
+        assertTrue(map.isEmpty());
+
+        // replace extends
+        map.put("key", Optional.of("1"));
+        sleep(9, TimeUnit.MINUTES);
+        map.put("key", Optional.of("2"));
+        sleep(9, TimeUnit.MINUTES);
+        assertEquals(map.get("key"), Optional.of("2"));
+    }
+
+    @Test
+    public void expireAfterAccessTest() {
+        Map<Integer, Integer> map = create(ExpiringFactory.builder().expireAfterAccess(Duration.ofMinutes(1)), true);
+        map.put(1, 1);
+        map.put(2, 2);
+        for (int i = 0; i < 10; i++) {
+            sleep(50, TimeUnit.SECONDS);
+            assertEquals(1, (int) map.get(1));
+        }
+        assertNull(map.get(2));
+        assertEquals(map.size(), 1);
+    }
+
+    @Test
+    public void largeTest() {
+        Map<Integer, Integer> map = create(ExpiringFactory.builder()
+            .expireAfterWrite(Duration.ofHours(3))
+            .maximumSize(50_000), false);
+
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i, i);
+            sleep(100, TimeUnit.MILLISECONDS);
+            assertTrue(map.size() <= 50_000);
+        }
+
+        // last 3 hours (108,000 entries) includes size limit
+        assertEquals(map.size(), 50_000);
+        int count = 0;
+        for (var entry : map.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue());
+            count++;
+        }
+        assertEquals(count, 50_000);
+
+        sleep(2, TimeUnit.HOURS);
+        assertTrue(map.size() < 50_000);
+        sleep(1, TimeUnit.HOURS);
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,253 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadingCacheTest {
+    @Test
+    public void singleFlightTest() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            LoadingCache<String, String> cache = new LoadingCache<>(CacheFactory.INFINITY, key -> {
+                count.incrementAndGet();
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return key.toUpperCase();
+            }, executor);
+
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(cache.getAsync("key"));
+            }
+            futures.add(CompletableFuture.supplyAsync(() -> cache.get("key"), executor));
+            latch.countDown();
+
+            for (CompletableFuture<String> future : futures) {
+                assertEquals(future.get(), "KEY");
+            }
+            assertEquals(count.get(), 1);
+
+            // cached
+            assertEquals(cache.get("key"), "KEY");
+            assertEquals(count.get(), 1);
+
+            // reload
+            cache.invalidate("key");
+            assertEquals(cache.getAsync("key").get(), "KEY");
+            assertEquals(count.get(), 2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void invalidateLoadingTest() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            LoadingCache<String, String> cache = new LoadingCache<>(CacheFactory.INFINITY, key -> {
+                if (count.incrementAndGet() == 1) {
+                    started.countDown();
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return "old";
+                }
+                return "new";
+            }, executor);
+
+            CompletableFuture<String> future = cache.getAsync("key");
+            started.await();
+            cache.invalidate("key"); // e.g. renamed while loading
+            latch.countDown();
+
+            // the waiter receives the value, but it is not cached
+            assertEquals(future.get(), "old");
+            assertNull(cache.getIfPresent("key"));
+            assertEquals(cache.get("key"), "new");
+            assertEquals(cache.getIfPresent("key"), "new");
+            assertEquals(count.get(), 2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void invalidateBatchLoadingTest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            LoadingCache<String, String> cache = new LoadingCache<>(CacheFactory.INFINITY, Function.identity(), executor);
+            CompletableFuture<Map<String, String>> future = cache.getAllAsync(List.of("a", "b"), keys -> {
+                started.countDown();
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                Map<String, String> result = new HashMap<>();
+                keys.forEach(k -> result.put(k, k.toUpperCase()));
+                return result;
+            });
+            started.await();
+            cache.invalidate("a");
+            latch.countDown();
+
+            assertEquals(future.get(), Map.of("a", "A", "b", "B"));
+            assertNull(cache.getIfPresent("a"));
+            assertEquals(cache.getIfPresent("b"), "B");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void exceptionTest() {
+        AtomicInteger count = new AtomicInteger();
+        LoadingCache<String, String> cache = new LoadingCache<>(CacheFactory.INFINITY, key -> {
+            if (count.incrementAndGet() == 1) {
+                throw new IllegalStateException();
+            }
+            return key;
+        }, Runnable::run);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("key"));
+        assertTrue(cache.getAsync("key").isDone());
+        assertEquals(cache.get("key"), "key");
+    }
+
+    @Test
+    public void getAllTest() throws Exception {
+        List<Set<String>> batches = new ArrayList<>();
+        LoadingCache<String, String> cache = new LoadingCache<>(new SizedFactory(1000), key -> {
+            throw new AssertionError("single loader must not be called");
+        }, Runnable::run);
+        Function<Set<String>, Map<String, String>> loader = keys -> {
+            batches.add(new HashSet<>(keys));
+            Map<String, String> result = new HashMap<>();
+            for (String key : keys) {
+                if (!key.startsWith("x")) {
+                    result.put(key, key.toUpperCase());
+                }
+            }
+            return result;
+        };
+
+        cache.asMap().put("a", "cached");
+        Map<String, String> result = cache.getAll(List.of("a", "b", "c", "x"), loader);
+        assertEquals(result, Map.of("a", "cached", "b", "B", "c", "C"));
+        assertEquals(batches, List.of(Set.of("b", "c", "x")));
+
+        // loaded values are cached, null is not cached
+        assertEquals(cache.getAllPresent(List.of("a", "b", "c", "x")), Map.of("a", "cached", "b", "B", "c", "C"));
+        assertEquals(cache.getAllAsync(List.of("b", "d"), loader).get(), Map.of("b", "B", "d", "D"));
+        assertEquals(batches.get(1), Set.of("d"));
+    }
+
+    @Test
+    public void getAllSingleFlightTest() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            LoadingCache<String, String> cache = new LoadingCache<>(CacheFactory.INFINITY, key -> {
+                count.incrementAndGet();
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return key.toUpperCase();
+            }, executor);
+
+            CompletableFuture<String> single = cache.getAsync("a");
+            CompletableFuture<Map<String, String>> all = cache.getAllAsync(List.of("a", "b"), keys -> {
+                // "a" is loading by the single loader.
+                assertEquals(keys, Set.of("b"));
+                return Map.of("b", "B");
+            });
+            latch.countDown();
+
+            assertEquals(all.get(), Map.of("a", "A", "b", "B"));
+            assertEquals(single.get(), "A");
+            assertEquals(count.get(), 1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void statsTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AtomicInteger bulk = new AtomicInteger();
+            RecordingMap<String, String> map = new RecordingMap<>(new StripedMap<>(4, i -> new HashMap<>()) {
+                @Override
+                public Map<String, String> getAll(Collection<? extends String> keys) {
+                    bulk.incrementAndGet();
+                    return super.getAll(keys);
+                }
+            });
+            LoadingCache<String, String> cache = new LoadingCache<>(map, String::toUpperCase, executor);
+
+            // one miss and one load per request
+            assertEquals(cache.get("a"), "A");
+            assertEquals(cache.getAsync("b").get(), "B");
+            assertEquals(cache.getAsync("c", k -> CompletableFuture.completedFuture(k.toUpperCase())).get(), "C");
+            CacheStats stats = map.stats();
+            assertEquals(stats.hitCount(), 0);
+            assertEquals(stats.missCount(), 3);
+            assertEquals(stats.loadSuccessCount(), 3);
+
+            assertEquals(cache.get("a"), "A");
+            assertEquals(map.stats().hitCount(), 1);
+
+            // hit or miss per key, one load per batch, the bulk path of StripedMap is used.
+            Map<String, String> values = cache.getAll(List.of("a", "d", "e"), keys -> {
+                Map<String, String> result = new HashMap<>();
+                keys.forEach(k -> result.put(k, k.toUpperCase()));
+                return result;
+            });
+            assertEquals(values, Map.of("a", "A", "d", "D", "e", "E"));
+            stats = map.stats();
+            assertEquals(stats.hitCount(), 2);
+            assertEquals(stats.missCount(), 5);
+            assertEquals(stats.loadSuccessCount(), 4);
+            assertEquals(bulk.get(), 2);
+
+            CompletableFuture<String> failed = cache.getAsync("f", k -> CompletableFuture.failedFuture(new IllegalStateException()));
+            assertThrows(ExecutionException.class, failed::get);
+            stats = map.stats();
+            assertEquals(stats.missCount(), 6);
+            assertEquals(stats.loadFailureCount(), 1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecordingMapTest {
+    @Test
+    public void statsTest() {
+        StatsFactory factory = StatsFactory.withListener(listener -> new SizedFactory(10, SizedFactory.Policy.LRU, listener));
+        Map<Integer, Integer> map = factory.create(true);
+
+        for (int i = 0; i < 20; i++) {
+            map.computeIfAbsent(i, k -> k);
+        }
+        assertNull(map.get(0));
+        assertNotNull(map.get(19));
+        assertEquals(19, (int) map.computeIfAbsent(19, k -> fail()));
+        map.remove(19);
+
+        CacheStats stats = factory.stats();
+        assertEquals(stats.hitCount(), 2);
+        assertEquals(stats.missCount(), 21);
+        assertEquals(stats.loadSuccessCount(), 20);
+        assertEquals(stats.loadFailureCount(), 0);
+        assertEquals(stats.evictionCount(), 10);
+        assertEquals(stats.size(), 9);
+        assertTrue(stats.loadLatencyPercentile(0.99) > 0);
+    }
+
+    @Test
+    public void evictionTest() {
+        StatsCounter counter = new StatsCounter();
+        List<RemovalCause> causes = new ArrayList<>();
+        RecordingMap<Integer, Integer> map = new RecordingMap<>(
+            new LRUMap<>(10, RecordingMap.listener(counter, (key, value, cause) -> causes.add(cause))), counter
+        );
+
+        for (int i = 0; i < 15; i++) {
+            map.put(i, i);
+        }
+        // not evictions
+        map.put(14, 0);
+        map.remove(13);
+        map.clear();
+        map.put(0, 0);
+
+        assertEquals(map.stats().evictionCount(), 5);
+        assertEquals(map.stats().size(), 1);
+        assertEquals(causes.stream().filter(RemovalCause::wasEvicted).count(), 5L);
+        assertEquals(causes.size(), 5 + 1 + 1 + 9);
+    }
+
+    @Test
+    public void withoutListenerTest() {
+        // The delegate is not observable, so the evictions are not recorded.
+        StatsFactory factory = new StatsFactory(new SizedFactory(10));
+        Map<Integer, Integer> map = factory.create(false);
+        for (int i = 0; i < 20; i++) {
+            map.put(i, i);
+        }
+        assertEquals(factory.stats().evictionCount(), 0);
+        assertEquals(factory.stats().size(), 10);
+    }
+}
@@ -0,0 +1,108 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReferenceMapTest {
+    @Test
+    public void basicTest() {
+        List<RemovalCause> causes = new ArrayList<>();
+        Map<String, String> map = new ReferenceMap<>(ReferenceMap.Strength.WEAK, ReferenceMap.Strength.SOFT,
+            (k, v, cause) -> causes.add(cause));
+
+        // keys are compared by equals
+        String key = new String("key");
+        map.put(key, "value1");
+        assertEquals(map.get("key"), "value1");
+        assertEquals(map.put(new String("key"), "value2"), "value1");
+        assertEquals(map.size(), 1);
+        assertEquals(map.remove("key"), "value2");
+        assertTrue(map.isEmpty());
+        assertEquals(causes, List.of(RemovalCause.REPLACED, RemovalCause.EXPLICIT));
+
+        map.put("a", "1");
+        map.put("b", "2");
+        assertEquals(map, Map.of("a", "1", "b", "2"));
+        map.entrySet().removeIf(e -> e.getKey().equals("a"));
+        assertEquals(map, Map.of("b", "2"));
+    }
+
+    @Test
+    public void collectTest() throws InterruptedException {
+        List<RemovalCause> causes = new ArrayList<>();
+        Map<Object, Object> weakKeys = new ReferenceMap<>(ReferenceMap.Strength.WEAK, ReferenceMap.Strength.STRONG,
+            (k, v, cause) -> causes.add(cause));
+        Map<Object, Object> weakValues = new ReferenceMap<>(ReferenceMap.Strength.STRONG, ReferenceMap.Strength.WEAK);
+
+        Object strong = new Object();
+        weakKeys.put(strong, "strong");
+        weakValues.put("strong", strong);
+        for (int i = 0; i < 100; i++) {
+            weakKeys.put(new Object(), new byte[1024]);
+            weakValues.put(i, new byte[1024]);
+        }
+
+        for (int i = 0; i < 10 && (weakKeys.size() > 1 || weakValues.size() > 1); i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        // only strongly referenced entries remain
+        assertEquals(weakKeys, Map.of(strong, "strong"));
+        assertEquals(weakValues, Map.of("strong", strong));
+        assertEquals(causes.size(), 100);
+        assertTrue(causes.stream().allMatch(RemovalCause::wasEvicted));
+    }
+
+    // Manual test, it allocates up to twice the max heap and may throw OutOfMemoryError.
+    @Disabled
+    @Test
+    public void softValuesTest() throws InterruptedException {
+        List<RemovalCause> causes = new ArrayList<>();
+        Map<Integer, byte[]> map = new ReferenceMap<>(ReferenceMap.Strength.STRONG, ReferenceMap.Strength.SOFT,
+            (k, v, cause) -> causes.add(cause));
+
+        byte[] strong = new byte[1024];
+        map.put(-1, strong);
+        for (int i = 0; i < 64; i++) {
+            map.put(i, new byte[1024 * 1024]);
+        }
+        assertEquals(map.size(), 65);
+
+        // System.gc() does not clear the soft references, allocate until the memory is low.
+        // The soft references are always cleared before OutOfMemoryError, so it is bounded.
+        long limit = Runtime.getRuntime().maxMemory() * 2;
+        List<byte[]> pressure = new ArrayList<>();
+        long allocated = 0;
+        try {
+            for (; allocated < limit && map.size() == 65; allocated += 16 * 1024 * 1024) {
+                pressure.add(new byte[16 * 1024 * 1024]);
+            }
+        } catch (OutOfMemoryError ignore) {
+            // cleared
+        } finally {
+            pressure.clear();
+        }
+
+        // Collected references are enqueued asynchronously.
+        int size = map.size();
+        for (int i = 0; i < 10 && size > 1; i++) {
+            Thread.sleep(100);
+            size = map.size();
+        }
+
+        System.out.printf("soft values: %d of 64 collected after %d MB allocated (max heap %d MB)%n",
+            65 - size, allocated >> 20, Runtime.getRuntime().maxMemory() >> 20);
+        assertTrue(size < 65, "size: " + size);
+        assertEquals(causes.size(), 65 - size);
+        assertTrue(causes.stream().allMatch(c -> c == RemovalCause.COLLECTED));
+        // strongly referenced value is never collected
+        assertSame(map.get(-1), strong);
+    }
+}
@@ -0,0 +1,87 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RemovalListenerTest {
+    private static List<String> record(List<String> list, Object key, Object value, RemovalCause cause) {
+        list.add(key + "=" + value + ":" + cause);
+        return list;
+    }
+
+    @Test
+    public void lruTest() {
+        List<String> removed = new ArrayList<>();
+        LRUMap<Integer, String> map = new LRUMap<>(2, (k, v, c) -> record(removed, k, v, c));
+        map.put(1, "a");
+        map.put(2, "b");
+        map.put(1, "c");
+        map.put(3, "d");
+        map.remove(1);
+        map.clear();
+
+        assertEquals(List.of("1=a:REPLACED", "2=b:SIZE", "1=c:EXPLICIT", "3=d:EXPLICIT"), removed);
+    }
+
+    @Test
+    public void weightedTest() {
+        List<String> removed = new ArrayList<>();
+        WeightedLRUMap<Integer, String> map = new WeightedLRUMap<>(2, Weigher.singleton(), (k, v, c) -> record(removed, k, v, c));
+        map.put(1, "a");
+        map.put(2, "b");
+        map.put(3, "c");
+        map.put(3, "d");
+
+        assertEquals(List.of("1=a:SIZE", "3=c:REPLACED"), removed);
+    }
+
+    @Test
+    public void tinyLFUTest() {
+        List<String> removed = new ArrayList<>();
+        TinyLFUMap<Integer, Integer> map = new TinyLFUMap<>(100, (k, v, c) -> record(removed, k, v, c));
+        for (int i = 0; i < 200; i++) {
+            map.put(i, i);
+        }
+
+        assertEquals(100, removed.size());
+        assertTrue(removed.stream().allMatch(s -> s.endsWith(":SIZE")));
+    }
+
+    @Test
+    public void expiringTest() {
+        List<String> removed = new ArrayList<>();
+        AtomicLong time = new AtomicLong(0);
+        ExpiringMap<Integer, String> map = new ExpiringMap<>(0, TimeUnit.SECONDS.toNanos(10), 0, 0,
+            v -> false, time::get, (k, v, c) -> record(removed, k, v, c));
+        map.put(1, "a");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        map.cleanUp();
+
+        assertEquals(List.of("1=a:EXPIRED"), removed);
+    }
+
+    @Test
+    public void batchedTest() {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        List<String> removed = new ArrayList<>();
+        LRUMap<Integer, String> map = new LRUMap<>(1, RemovalListener.batched((k, v, c) -> record(removed, k, v, c), executor));
+        map.put(1, "a");
+        map.put(2, "b");
+        map.put(3, "c");
+
+        // not delivered until the executor runs, and only one task is scheduled.
+        assertTrue(removed.isEmpty());
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertEquals(List.of("1=a:SIZE", "2=b:SIZE"), removed);
+    }
+}
@@ -0,0 +1,74 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResizableTest {
+    private <M extends Map<Integer, Integer> & Resizable> void shrink(M map) {
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        int size = map.size();
+
+        // Not evicted at once
+        map.setMaximum(100);
+        assertEquals(map.getMaximum(), 100L);
+        assertEquals(map.size(), size);
+        // Insertion keeps the current size
+        map.put(-1, -1);
+        assertEquals(map.size(), size);
+
+        int evicted = 0, count;
+        while ((count = map.trim(50)) == 50) {
+            evicted += count;
+        }
+        evicted += count;
+        assertEquals(evicted, size - 100);
+        assertEquals(map.size(), 100);
+        assertEquals(map.trim(50), 0);
+
+        // grow
+        map.setMaximum(200);
+        for (int i = 1000; i < 1200; i++) {
+            map.put(i, i);
+        }
+        assertEquals(map.size(), 200);
+    }
+
+    @Test
+    public void lruTest() {
+        LRUMap<Integer, Integer> map = new LRUMap<>(1000);
+        shrink(map);
+        // recently used entries remain
+        assertTrue(map.containsKey(1199));
+    }
+
+    @Test
+    public void tinyLFUTest() {
+        shrink(new TinyLFUMap<>(1000));
+    }
+
+    @Test
+    public void weightedTest() {
+        shrink(new WeightedLRUMap<>(1000, (k, v) -> 1));
+    }
+
+    @Test
+    public void concurrentTest() {
+        // 1 stripe, so that the per-segment capacity is exact.
+        shrink(new ConcurrentLRUMap<>(1000, 1));
+        shrink(new ConcurrentTinyLFUMap<>(1000, 1));
+        shrink(new ConcurrentWeightedLRUMap<>(1000, (k, v) -> 1, 1));
+
+        ConcurrentLRUMap<Integer, Integer> map = new ConcurrentLRUMap<>(1000, 4);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        map.setMaximumSize(100);
+        while (map.trim(10) == 10) ;
+        assertTrue(map.size() <= 100);
+    }
+}
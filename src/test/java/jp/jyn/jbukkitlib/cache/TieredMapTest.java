@@ -0,0 +1,73 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TieredMapTest {
+    @Test
+    public void demotionTest() {
+        TieredMap<UUID, Optional<String>> map = new TieredMap<>(10, 1024 * 1024,
+            Serializer.uuid(), Serializer.optional(Serializer.string()));
+        Map<UUID, Optional<String>> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = UUID.randomUUID();
+            Optional<String> value = i % 10 == 0 ? Optional.empty() : Optional.of("name" + i);
+            map.put(uuid, value);
+            expected.put(uuid, value);
+        }
+
+        assertEquals(10, map.heapSize());
+        assertEquals(990, map.offHeapSize());
+        for (Map.Entry<UUID, Optional<String>> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertEquals(1000, map.size());
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void promotionTest() {
+        TieredMap<String, String> map = new TieredMap<>(2, 1024, Serializer.string(), Serializer.string());
+        map.put("a", "1");
+        map.put("b", "2");
+        map.put("c", "3"); // a -> off-heap
+        assertEquals(1, map.offHeapSize());
+
+        assertEquals("1", map.get("a")); // a -> heap, b -> off-heap
+        assertEquals(2, map.heapSize());
+        assertEquals(1, map.offHeapSize());
+        assertEquals("2", map.remove("b"));
+        assertNull(map.get("b"));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void ringTest() {
+        // small buffer, oldest entries are overwritten many times.
+        Random random = new Random(0);
+        TieredMap<String, String> map = new TieredMap<>(4, 200, Serializer.string(), Serializer.string());
+        Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            String key = "k" + random.nextInt(100);
+            if (random.nextBoolean()) {
+                String value = "v".repeat(random.nextInt(30)) + i;
+                map.put(key, value);
+                expected.put(key, value);
+            } else {
+                String value = map.get(key);
+                // evicted or latest
+                assertTrue(value == null || value.equals(expected.get(key)));
+            }
+        }
+        assertTrue(map.size() <= 100);
+    }
+}
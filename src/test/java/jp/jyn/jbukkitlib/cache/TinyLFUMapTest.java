@@ -0,0 +1,87 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TinyLFUMapTest {
+    @Test
+    public void limitTest() {
+        final int limit = 100;
+        TinyLFUMap<Integer, Integer> map = new TinyLFUMap<>(limit);
+        for (int i = 0; i < limit * 10; i++) {
+            map.put(i, i);
+            assertTrue(map.size() <= limit);
+        }
+        assertEquals(map.size(), limit);
+
+        map.entrySet().removeIf(e -> e.getKey() % 2 == 0);
+        for (var entry : map.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue());
+            assertTrue(entry.getKey() % 2 != 0);
+        }
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        map.put(1, 1);
+        assertEquals(1, (int) map.get(1));
+    }
+
+    @Test
+    public void stripedLimitTest() {
+        // fewer entries than segments
+        ConcurrentTinyLFUMap<Integer, Integer> map = new ConcurrentTinyLFUMap<>(3, 16);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+            assertTrue(map.size() <= 3, "size: " + map.size());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentTinyLFUMap<>(100, 16).setMaximumSize(15));
+    }
+
+    /**
+     * Hot set (like online players) interleaved with one-off scan (like /baltop)
+     *
+     * @param map cache
+     * @return hit rate of hot set
+     */
+    private double hitRate(Map<Integer, Integer> map) {
+        final int hot = 500;
+        Random random = new Random(0);
+        int hit = 0, request = 0;
+        int scan = Integer.MIN_VALUE;
+
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(hot);
+            if (map.get(key) == null) {
+                map.put(key, key);
+            } else if (i > 10_000) { // skip warm-up
+                hit++;
+            }
+            if (i > 10_000) {
+                request++;
+            }
+
+            // Each key is accessed only once.
+            for (int j = 0; j < 4; j++) {
+                map.computeIfAbsent(scan++, k -> k);
+            }
+        }
+        return hit / (double) request;
+    }
+
+    @Test
+    public void scanResistanceTest() {
+        final int limit = 1000;
+        double lru = hitRate(new LRUMap<>(limit));
+        double lfu = hitRate(new TinyLFUMap<>(limit));
+        double striped = hitRate(new SizedFactory(limit, SizedFactory.Policy.TINY_LFU).create(true));
+        String rates = String.format("LRU: %.2f%%, TinyLFU: %.2f%%, TinyLFU(striped): %.2f%%", lru * 100, lfu * 100, striped * 100);
+
+        assertTrue(lfu > 0.9, "TinyLFU hit rate is too low, " + rates);
+        assertTrue(striped > 0.9, "TinyLFU(striped) hit rate is too low, " + rates);
+        assertTrue(lfu > lru + 0.3, "TinyLFU does not resist scans, " + rates);
+    }
+}
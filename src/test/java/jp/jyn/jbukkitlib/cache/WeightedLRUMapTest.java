@@ -0,0 +1,98 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeightedLRUMapTest {
+    @Test
+    public void limitTest() {
+        WeightedLRUMap<String, String> map = new WeightedLRUMap<>(100, (k, v) -> v.length());
+
+        map.put("a", "x".repeat(40));
+        map.put("b", "x".repeat(40));
+        assertEquals(map.weightedSize(), 80);
+
+        // "a" is recently used
+        assertNotNull(map.get("a"));
+        map.put("c", "x".repeat(30));
+        assertEquals(map.weightedSize(), 70);
+        assertFalse(map.containsKey("b"));
+
+        // replace
+        map.put("a", "x".repeat(10));
+        assertEquals(map.weightedSize(), 40);
+
+        // too heavy, not stored and the others are kept
+        map.put("d", "x".repeat(101));
+        assertFalse(map.containsKey("d"));
+        assertEquals(map.size(), 2);
+        assertEquals(map.weightedSize(), 40);
+
+        map.put("e", "x".repeat(50));
+        map.remove("e");
+        assertEquals(map.weightedSize(), 40);
+    }
+
+    @Test
+    public void tooHeavyTest() {
+        List<String> removed = new ArrayList<>();
+        WeightedLRUMap<String, String> map = new WeightedLRUMap<>(100, (k, v) -> v.length(),
+            (k, v, cause) -> removed.add(k + ":" + cause));
+        map.put("a", "x".repeat(60));
+        map.put("b", "x".repeat(30));
+
+        map.put("c", "x".repeat(101));
+        assertEquals(removed, List.of("c:SIZE"));
+        assertEquals(map.keySet(), Set.of("a", "b"));
+
+        // the old value is not left
+        removed.clear();
+        assertEquals(map.put("a", "x".repeat(200)).length(), 60);
+        assertEquals(removed, List.of("a:REPLACED", "a:SIZE"));
+        assertNull(map.get("a"));
+        assertEquals(map.weightedSize(), 30);
+    }
+
+    @Test
+    public void segmentWeightTest() {
+        // 32MB over the default segments, an 8MB entry fits.
+        long max = 32 * 1024 * 1024;
+        Map<String, byte[]> map = new WeightedFactory(max, (k, v) -> ((byte[]) v).length).create(true);
+        ConcurrentWeightedLRUMap<String, byte[]> concurrent = (ConcurrentWeightedLRUMap<String, byte[]>) map;
+        assertEquals(concurrent.getMaximumEntryWeight(), max / ConcurrentWeightedLRUMap.DEFAULT_STRIPES);
+
+        map.put("config", new byte[(int) concurrent.getMaximumEntryWeight()]);
+        assertTrue(map.containsKey("config"));
+        map.put("small", new byte[1024]);
+
+        // heavier than the segment, rejected without evicting the others
+        map.put("huge", new byte[(int) concurrent.getMaximumEntryWeight() + 1]);
+        assertFalse(map.containsKey("huge"));
+        assertEquals(map.size(), 2);
+    }
+
+    @Test
+    public void concurrentTest() {
+        ConcurrentWeightedLRUMap<Integer, String> map = new ConcurrentWeightedLRUMap<>(10_000, (k, v) -> v.length(), 8);
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i, "x".repeat(i % 10));
+            assertTrue(map.weightedSize() <= 10_000);
+        }
+
+        long weight = 0;
+        for (var entry : map.entrySet()) {
+            weight += entry.getValue().length();
+        }
+        assertEquals(map.weightedSize(), weight);
+
+        map.entrySet().removeIf(e -> e.getKey() % 2 == 0);
+        map.clear();
+        assertEquals(map.weightedSize(), 0);
+    }
+}
@@ -0,0 +1,149 @@
+package jp.jyn.jbukkitlib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WriteBehindMapTest {
+    @Test
+    public void coalesceTest() {
+        Map<Integer, Integer> store = new HashMap<>();
+        List<Integer> batches = new ArrayList<>();
+        WriteBehindMap<Integer, Integer> map = new WriteBehindMap<>(new LRUMap<>(10), (writes, deletes) -> {
+            batches.add(writes.size() + deletes.size());
+            store.putAll(writes);
+            deletes.forEach(store::remove);
+        }, 100);
+
+        for (int i = 0; i < 1000; i++) {
+            map.put(i % 250, i);
+        }
+        map.remove(0);
+        assertEquals(250, map.dirtyCount());
+
+        map.flush();
+        assertEquals(0, map.dirtyCount());
+        assertEquals(List.of(100, 100, 50), batches);
+        // evicted from the cache, but written.
+        assertEquals(249, store.size());
+        assertEquals(999, (int) store.get(249));
+    }
+
+    @Test
+    public void failureTest() {
+        Set<Integer> written = new HashSet<>();
+        boolean[] fail = {true};
+        WriteBehindMap<Integer, Integer> map = new WriteBehindMap<>(new HashMap<>(), (writes, deletes) -> {
+            if (fail[0]) {
+                throw new IllegalStateException();
+            }
+            written.addAll(writes.keySet());
+        }, 10);
+
+        map.put(1, 1);
+        map.put(2, 2);
+        assertThrows(IllegalStateException.class, map::flush);
+        assertEquals(2, map.dirtyCount());
+
+        fail[0] = false;
+        map.flush();
+        assertEquals(Set.of(1, 2), written);
+        assertTrue(map.dirtyCount() == 0);
+    }
+
+    @Test
+    public void concurrentTest() throws Exception {
+        Map<Integer, Integer> store = new ConcurrentHashMap<>();
+        WriteBehindMap<Integer, Integer> map = new WriteBehindMap<>(new ConcurrentLRUMap<>(1000), (writes, deletes) -> {
+            store.putAll(writes);
+            deletes.forEach(store::remove);
+        }, 16);
+
+        int threads = 4;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 1000; round++) {
+                int r = round;
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        barrier.await();
+                        for (int key = 0; key < 8; key++) {
+                            int value = r * threads + thread;
+                            switch ((r + key) % 4) {
+                                case 0 -> map.put(key, value);
+                                case 1 -> map.merge(key, value, Integer::sum);
+                                case 2 -> map.compute(key, (k, v) -> v == null ? value : v ^ value);
+                                default -> map.replace(key, value);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+
+                map.flush();
+                assertEquals(0, map.dirtyCount());
+                for (int key = 0; key < 8; key++) {
+                    assertEquals(map.get(key), store.get(key), "round " + round + ", key " + key);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void racePutTest() throws Exception {
+        Map<Integer, Integer> store = new ConcurrentHashMap<>();
+        CountDownLatch stored = new CountDownLatch(1);
+        // The first put pauses after storing the value, the second put runs meanwhile.
+        Map<Integer, Integer> delegate = new ConcurrentHashMap<>() {
+            @Override
+            public Integer put(Integer key, Integer value) {
+                Integer old = super.put(key, value);
+                if (value == 1) {
+                    stored.countDown();
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return old;
+            }
+        };
+        WriteBehindMap<Integer, Integer> map = new WriteBehindMap<>(delegate, (writes, deletes) -> store.putAll(writes), 16);
+
+        Thread first = new Thread(() -> map.put(0, 1));
+        first.start();
+        stored.await();
+        Thread second = new Thread(() -> map.put(0, 2));
+        second.start();
+        first.join();
+        second.join();
+
+        map.flush();
+        assertEquals(map.get(0), store.get(0));
+    }
+}
@@ -0,0 +1,146 @@
+package jp.jyn.jbukkitlib.sql;
+
+import jp.jyn.jbukkitlib.util.BukkitCompletableFuture;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncSQLTemplateTest {
+    private final static Plugin PLUGIN = (Plugin) Proxy.newProxyInstance(
+        Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+        (proxy, method, args) -> method.getName().equals("getName") ? "Test" : null
+    );
+
+    private static class Template extends AsyncSQLTemplate {
+        private Template(int threads, int queueSize, boolean mainThread) {
+            super(PLUGIN, () -> {
+                throw new SQLException("no database");
+            }, threads, queueSize, () -> mainThread);
+        }
+    }
+
+    private static Supplier<String> await(CountDownLatch latch) {
+        return () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return "done";
+        };
+    }
+
+    private static Throwable cause(BukkitCompletableFuture<?> future) throws Exception {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    @Test
+    public void statsTest() throws Exception {
+        Template template = new Template(2, 10, false);
+        assertEquals((int) template.submit("SELECT 1", () -> 1).get(5, TimeUnit.SECONDS), 1);
+        assertEquals((int) template.submit("SELECT 1", () -> 2).get(5, TimeUnit.SECONDS), 2);
+        assertTrue(cause(template.executeUpdateAsync("UPDATE t", statement -> {})) instanceof RuntimeSQLException);
+
+        AsyncSQLTemplate.QueryStats select = template.getQueryStats().get("SELECT 1");
+        assertEquals(select.getCount(), 2);
+        assertEquals(select.getErrorCount(), 0);
+        AsyncSQLTemplate.QueryStats update = template.getQueryStats().get("UPDATE t");
+        assertEquals(update.getCount(), 1);
+        assertEquals(update.getErrorCount(), 1);
+        assertTrue(select.getMaxTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(template.shutdown(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void mainThreadTest() throws Exception {
+        Template template = new Template(1, 1, true);
+        CountDownLatch latch = new CountDownLatch(1);
+        BukkitCompletableFuture<String> running = template.submit("a", await(latch));
+        BukkitCompletableFuture<String> queued = template.submit("a", await(latch));
+
+        // queue is full, fails immediately without blocking the main thread.
+        BukkitCompletableFuture<String> rejected = template.submit("a", () -> "rejected");
+        assertTrue(rejected.isDone());
+        assertTrue(cause(rejected) instanceof RejectedExecutionException);
+        assertEquals(template.getRejectedCount(), 1);
+
+        latch.countDown();
+        assertEquals(running.get(5, TimeUnit.SECONDS), "done");
+        assertEquals(queued.get(5, TimeUnit.SECONDS), "done");
+        assertTrue(template.shutdown(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void backpressureTest() throws Exception {
+        Template template = new Template(1, 1, false);
+        CountDownLatch latch = new CountDownLatch(1);
+        template.submit("a", await(latch));
+        template.submit("a", await(latch));
+
+        // queue is full, waits until it has space.
+        CompletableFuture<BukkitCompletableFuture<String>> waiting = CompletableFuture.supplyAsync(() -> template.submit("a", () -> "waited"));
+        Thread.sleep(100);
+        assertFalse(waiting.isDone());
+        assertEquals(template.getQueueSize(), 1);
+
+        latch.countDown();
+        assertEquals(waiting.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS), "waited");
+        assertEquals(template.getRejectedCount(), 0);
+        assertEquals(template.getQueryStats().get("a").getCount(), 3);
+        assertTrue(template.shutdown(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shutdownTest() throws Exception {
+        Template template = new Template(1, 10, false);
+        CountDownLatch latch = new CountDownLatch(1);
+        BukkitCompletableFuture<String> running = template.submit("a", await(latch));
+        BukkitCompletableFuture<String> queued = template.submit("a", () -> "queued");
+
+        assertFalse(template.shutdown(50, TimeUnit.MILLISECONDS));
+        assertTrue(cause(template.submit("a", () -> "after")) instanceof RejectedExecutionException);
+
+        // queued queries still run
+        latch.countDown();
+        assertTrue(template.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(running.get(), "done");
+        assertEquals(queued.get(), "queued");
+    }
+
+    @Test
+    public void shutdownWhileWaitingTest() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            Template template = new Template(1, 1, false);
+            CountDownLatch latch = new CountDownLatch(1);
+            template.submit("a", await(latch));
+            template.submit("a", () -> "queued");
+            CompletableFuture<BukkitCompletableFuture<String>> waiting = CompletableFuture.supplyAsync(() -> template.submit("a", () -> "waited"));
+            while (template.getQueueSize() == 0) {
+                Thread.onSpinWait();
+            }
+
+            template.shutdown(0, TimeUnit.MILLISECONDS);
+            latch.countDown();
+            assertTrue(template.shutdown(5, TimeUnit.SECONDS));
+
+            // either executed or rejected, the future must not be left incomplete.
+            BukkitCompletableFuture<String> future = waiting.get(5, TimeUnit.SECONDS);
+            try {
+                assertEquals(future.get(5, TimeUnit.SECONDS), "waited");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestSchedulerTest {
+    @Test
+    public void priorityTest() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            // 1 request per 50ms
+            RequestScheduler scheduler = new RequestScheduler(1, 50, TimeUnit.MILLISECONDS, 3, executor);
+            List<String> order = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (String name : List.of("low1", "low2", "high", "normal")) {
+                RequestScheduler.Priority priority = switch (name) {
+                    case "high" -> RequestScheduler.Priority.HIGH;
+                    case "normal" -> RequestScheduler.Priority.NORMAL;
+                    default -> RequestScheduler.Priority.LOW;
+                };
+                futures.add(scheduler.submit(priority, () -> {
+                    order.add(name);
+                    return CompletableFuture.completedFuture(name);
+                }));
+            }
+            assertEquals(scheduler.getQueueSize(), 3);
+
+            for (CompletableFuture<String> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            // The first one is sent immediately (burst), the rest are in order of priority.
+            assertEquals(order, List.of("low1", "high", "normal", "low2"));
+            assertEquals(scheduler.getDispatchedCount(), 4L);
+            assertTrue(scheduler.getAverageWaitTime(TimeUnit.MILLISECONDS) > 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void retryTest() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            RequestScheduler scheduler = new RequestScheduler(100, 1, TimeUnit.SECONDS, 3, executor);
+
+            // 429, wait for Retry-After
+            AtomicInteger count = new AtomicInteger();
+            long start = System.nanoTime();
+            String result = scheduler.execute(RequestScheduler.Priority.HIGH, () -> {
+                if (count.incrementAndGet() == 1) {
+                    throw new RateLimitedException(100);
+                }
+                return "ok";
+            });
+            assertEquals(result, "ok");
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+            assertEquals(scheduler.getRateLimitedCount(), 1L);
+
+            // I/O error, retry with backoff
+            count.set(0);
+            CompletableFuture<String> future = scheduler.submit(RequestScheduler.Priority.NORMAL, () ->
+                count.incrementAndGet() == 1
+                    ? CompletableFuture.failedFuture(new IOException())
+                    : CompletableFuture.completedFuture("ok"));
+            assertEquals(future.get(5, TimeUnit.SECONDS), "ok");
+            assertEquals(scheduler.getRetryCount(), 2L);
+
+            // not retried
+            count.set(0);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> scheduler.submit(RequestScheduler.Priority.NORMAL, () -> {
+                count.incrementAndGet();
+                return CompletableFuture.failedFuture(new IllegalStateException());
+            }).get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals(count.get(), 1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void lastRetryTest() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            RequestScheduler scheduler = new RequestScheduler(100, 1, TimeUnit.SECONDS, 0, executor);
+
+            // 429 without retry, the other requests still wait for Retry-After
+            assertThrows(RateLimitedException.class, () -> scheduler.execute(RequestScheduler.Priority.HIGH, () -> {
+                throw new RateLimitedException(200);
+            }));
+            assertEquals(scheduler.getRateLimitedCount(), 1L);
+            assertEquals(scheduler.getRetryCount(), 0L);
+
+            long start = System.nanoTime();
+            assertEquals(scheduler.execute(RequestScheduler.Priority.HIGH, () -> "ok"), "ok");
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void backoffQueueTest() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            RequestScheduler scheduler = new RequestScheduler(100, 1, TimeUnit.SECONDS, 3, executor);
+
+            AtomicInteger count = new AtomicInteger();
+            CompletableFuture<String> future = scheduler.submit(RequestScheduler.Priority.NORMAL, () ->
+                count.incrementAndGet() == 1
+                    ? CompletableFuture.failedFuture(new IOException())
+                    : CompletableFuture.completedFuture("ok"));
+            // The retry is waiting for the backoff (1 second).
+            assertEquals(scheduler.getQueueSize(), 1);
+            assertEquals(future.get(5, TimeUnit.SECONDS), "ok");
+            assertEquals(scheduler.getQueueSize(), 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void retryAfterTest() {
+        assertEquals(RateLimitedException.fromHeader("120").getRetryAfter(TimeUnit.SECONDS), 120L);
+        assertEquals(RateLimitedException.fromHeader(null).getRetryAfter(TimeUnit.SECONDS), -1L);
+        assertEquals(RateLimitedException.fromHeader("Wed, 21 Oct 2015 07:28:00 GMT").getRetryAfter(TimeUnit.SECONDS), 0L);
+    }
+}
@@ -0,0 +1,32 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+
+import java.lang.reflect.Proxy;
+import java.util.logging.Logger;
+
+/**
+ * Proxy {@link Server} for the tests, no player is online.
+ */
+class TestServer {
+    private TestServer() {}
+
+    /**
+     * Install the server to {@link Bukkit}, it can be called many times.
+     */
+    static synchronized void install() {
+        // The server is a singleton, it is shared by all tests in the JVM.
+        if (Bukkit.getServer() != null) {
+            return;
+        }
+
+        Logger logger = Logger.getLogger(TestServer.class.getName());
+        Bukkit.setServer((Server) Proxy.newProxyInstance(Server.class.getClassLoader(), new Class<?>[]{Server.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getLogger" -> logger;
+                case "getName", "getVersion", "getBukkitVersion" -> "Test";
+                default -> null; // getPlayer: offline
+            }));
+    }
+}
@@ -1,10 +1,17 @@
 package jp.jyn.jbukkitlib.uuid;
 
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class UUIDBytesTest {
 
@@ -13,4 +20,97 @@ public class UUIDBytesTest {
         UUID uuid = UUID.randomUUID();
         assertEquals(uuid, UUIDBytes.fromBytes(UUIDBytes.toBytes(uuid)));
     }
+
+    @Test
+    public void offsetTest() {
+        UUID uuid = UUID.fromString("3d4187e5-5565-48a3-899f-0fcc365e7084");
+        byte[] expected = ByteBuffer.allocate(16)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits())
+            .array();
+        assertArrayEquals(expected, UUIDBytes.toBytes(uuid));
+
+        byte[] bytes = new byte[20];
+        UUIDBytes.write(uuid, bytes, 3);
+        assertArrayEquals(expected, Arrays.copyOfRange(bytes, 3, 19));
+        assertEquals(uuid, UUIDBytes.read(bytes, 3));
+        assertEquals(uuid.getMostSignificantBits(), UUIDBytes.mostBits(bytes, 3));
+        assertEquals(uuid.getLeastSignificantBits(), UUIDBytes.leastBits(bytes, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> UUIDBytes.write(uuid, bytes, 5));
+
+        // big-endian regardless of the buffer order
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(40), ByteBuffer.allocateDirect(40).order(ByteOrder.LITTLE_ENDIAN)}) {
+            buffer.put((byte) 1);
+            UUIDBytes.write(uuid, buffer);
+            assertEquals(17, buffer.position());
+            UUIDBytes.write(uuid, buffer, 20);
+            assertEquals(17, buffer.position());
+
+            byte[] actual = new byte[16];
+            buffer.get(20, actual);
+            assertArrayEquals(expected, actual);
+
+            assertEquals(uuid, UUIDBytes.read(buffer, 20));
+            buffer.flip();
+            buffer.get();
+            assertEquals(uuid, UUIDBytes.read(buffer));
+        }
+    }
+
+    @Test
+    public void bulkTest() {
+        UUID[] uuids = new UUID[100];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = UUID.randomUUID();
+        }
+
+        byte[] bytes = UUIDBytes.toBytes(uuids);
+        assertEquals(1600, bytes.length);
+        assertArrayEquals(uuids, UUIDBytes.fromBytesArray(bytes));
+        assertEquals(uuids[42], UUIDBytes.read(bytes, 42 * 16));
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1600);
+        UUIDBytes.write(uuids, buffer);
+        assertEquals(1600, buffer.position());
+        assertThrows(BufferOverflowException.class, () -> UUIDBytes.write(uuids, buffer));
+        buffer.flip();
+        UUID[] actual = new UUID[100];
+        UUIDBytes.read(buffer, actual);
+        assertArrayEquals(uuids, actual);
+
+    }
+
+    // Manual benchmark, the result depends on the machine.
+    @Disabled
+    @Test
+    public void writeBenchmark() {
+        UUID[] uuids = new UUID[100];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = UUID.randomUUID();
+        }
+
+        final int loop = 10_000_000;
+        byte[] dst = new byte[16];
+        long sink = 0;
+        for (int i = 0; i < loop; i++) { // warm-up
+            sink += UUIDBytes.toBytes(uuids[i % uuids.length])[i & 15];
+            UUIDBytes.write(uuids[i % uuids.length], dst, 0);
+            sink += dst[i & 15];
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < loop; i++) {
+            sink += UUIDBytes.toBytes(uuids[i % uuids.length])[i & 15];
+        }
+        long legacy = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < loop; i++) {
+            UUIDBytes.write(uuids[i % uuids.length], dst, 0);
+            sink += dst[i & 15];
+        }
+        long offset = System.nanoTime() - start;
+        // sink: keep the results used
+        System.out.printf("toBytes: %.1f ns/op, write(byte[], offset): %.1f ns/op (%d)%n",
+            legacy / (double) loop, offset / (double) loop, sink);
+    }
 }
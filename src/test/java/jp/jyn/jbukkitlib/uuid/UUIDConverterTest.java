@@ -1,11 +1,38 @@
 package jp.jyn.jbukkitlib.uuid;
 
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import java.io.StringReader;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -42,4 +69,245 @@ public class UUIDConverterTest {
         result = new UUIDConverter.NameGetter(UUID.randomUUID()).call();
         assertFalse(result.isPresent());
     }
+
+    // JSON of the profiles API response
+    private static String profiles(Map<String, UUID> users) {
+        StringBuilder json = new StringBuilder("[");
+        for (var entry : users.entrySet()) {
+            if (json.length() != 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(entry.getValue().toString().replace("-", ""))
+                .append("\",\"name\":\"").append(entry.getKey()).append("\",\"legacy\":true}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static Map<String, UUID> users(int size) {
+        Map<String, UUID> users = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            users.put("player" + i, UUID.randomUUID());
+        }
+        return users;
+    }
+
+    @Test
+    public void readProfilesTest() throws Exception {
+        Map<String, UUID> expected = users(100);
+        Map<String, UUID> result = new HashMap<>();
+        UUIDConverter.readProfiles(new StringReader(profiles(expected)), result);
+        assertEquals(result, expected);
+
+        assertEquals(UUIDConverter.readLastName(new StringReader("[{\"name\":\"old\"},{\"name\":\"new\",\"changedToAt\":0}]")), Optional.of("new"));
+        assertEquals(UUIDConverter.readLastName(new StringReader("[]")), Optional.empty());
+    }
+
+    // Manual benchmark, the result depends on the machine.
+    @Disabled
+    @Test
+    public void readProfilesBenchmark() throws Exception {
+        String payload = profiles(users(100));
+        Map<String, UUID> result = new HashMap<>();
+        final int loop = 100_000;
+        for (int i = 0; i < loop; i++) { // warm-up
+            result.clear();
+            UUIDConverter.readProfiles(new StringReader(payload), result);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < loop; i++) {
+            result.clear();
+            UUIDConverter.readProfiles(new StringReader(payload), result);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("readProfiles: %.1f payloads/ms (100 profiles)%n", loop / (elapsed / 1_000_000.0));
+    }
+
+    @Test
+    public void parallelNameGetterTest() throws Exception {
+        AtomicInteger current = new AtomicInteger(), max = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        server.setExecutor(executor);
+        server.createContext("/user/profiles/", exchange -> {
+            max.accumulateAndGet(current.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                // /user/profiles/<uuid>/names
+                String id = exchange.getRequestURI().getPath().split("/")[3];
+                if (id.startsWith("f")) {
+                    exchange.sendResponseHeaders(204, -1);
+                    return;
+                }
+                byte[] body = ("[{\"name\":\"old\"},{\"name\":\"" + id.substring(0, 8) + "\"}]").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                current.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+
+        try {
+            var getter = new UUIDConverter.ParallelNameGetter(
+                HttpClient.newHttpClient(),
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/",
+                4
+            );
+
+            List<UUID> uuids = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                uuids.add(new UUID(((i % 10) + 1L) << 32 | i, i));
+            }
+            uuids.add(new UUID(-1L, 1)); // not found
+
+            Map<UUID, Optional<String>> streamed = new ConcurrentHashMap<>();
+            Map<UUID, Optional<String>> result = getter.get(uuids, streamed::put).get(10, TimeUnit.SECONDS);
+            assertEquals(result.size(), 21);
+            assertEquals(streamed, result);
+            assertFalse(result.get(new UUID(-1L, 1)).isPresent());
+            for (UUID uuid : uuids.subList(0, 20)) {
+                assertEquals(result.get(uuid).orElseThrow(), uuid.toString().substring(0, 8));
+            }
+            assertTrue(max.get() <= 4);
+            assertTrue(max.get() > 1);
+        } finally {
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelNameGetterSyncTest() throws Exception {
+        // The responses complete in the calling thread, the next requests must not recurse.
+        HttpClient client = new HttpClient() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+                String id = request.uri().getPath().split("/")[3];
+                return CompletableFuture.completedFuture((HttpResponse<T>) response(request, "[{\"name\":\"" + id.substring(24) + "\"}]"));
+            }
+
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                                    HttpResponse.PushPromiseHandler<T> push) {
+                return sendAsync(request, handler);
+            }
+
+            @Override
+            public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Optional<CookieHandler> cookieHandler() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Optional<Duration> connectTimeout() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Redirect followRedirects() {
+                return Redirect.NEVER;
+            }
+
+            @Override
+            public Optional<ProxySelector> proxy() {
+                return Optional.empty();
+            }
+
+            @Override
+            public SSLContext sslContext() {
+                return null;
+            }
+
+            @Override
+            public SSLParameters sslParameters() {
+                return null;
+            }
+
+            @Override
+            public Optional<Authenticator> authenticator() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Version version() {
+                return Version.HTTP_2;
+            }
+
+            @Override
+            public Optional<Executor> executor() {
+                return Optional.empty();
+            }
+        };
+
+        RequestScheduler scheduler = UUIDConverter.getScheduler();
+        UUIDConverter.setScheduler(null);
+        try {
+            var getter = new UUIDConverter.ParallelNameGetter(client, "http://127.0.0.1/", 2);
+            List<UUID> uuids = new ArrayList<>();
+            for (int i = 0; i < 100_000; i++) {
+                uuids.add(new UUID(0, i));
+            }
+
+            AtomicInteger streamed = new AtomicInteger();
+            Map<UUID, Optional<String>> result = getter.get(uuids, (uuid, name) -> streamed.incrementAndGet()).get(10, TimeUnit.SECONDS);
+            assertEquals(result.size(), 100_000);
+            assertEquals(streamed.get(), 100_000);
+            assertEquals(result.get(new UUID(0, 0xabcd)).orElseThrow(), "0000abcd");
+        } finally {
+            UUIDConverter.setScheduler(scheduler);
+        }
+    }
+
+    private static HttpResponse<String> response(HttpRequest request, String body) {
+        return new HttpResponse<>() {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public HttpRequest request() {
+                return request;
+            }
+
+            @Override
+            public Optional<HttpResponse<String>> previousResponse() {
+                return Optional.empty();
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return HttpHeaders.of(Map.of(), (k, v) -> true);
+            }
+
+            @Override
+            public String body() {
+                return body;
+            }
+
+            @Override
+            public Optional<SSLSession> sslSession() {
+                return Optional.empty();
+            }
+
+            @Override
+            public URI uri() {
+                return request.uri();
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_2;
+            }
+        };
+    }
 }
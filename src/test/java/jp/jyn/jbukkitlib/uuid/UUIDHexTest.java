@@ -0,0 +1,85 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UUIDHexTest {
+    private final UUID himajyun = UUID.fromString("3d4187e5-5565-48a3-899f-0fcc365e7084");
+
+    @Test
+    public void parseTest() {
+        assertEquals(UUIDHex.parse("3d4187e5556548a3899f0fcc365e7084"), himajyun);
+        assertEquals(UUIDHex.parse("3D4187E5556548A3899F0FCC365E7084"), himajyun);
+        assertEquals(UUIDHex.parse("3d4187e5-5565-48a3-899f-0fcc365e7084"), himajyun);
+        assertThrows(IllegalArgumentException.class, () -> UUIDHex.parse("3d4187e5556548a3899f0fcc365e708"));
+        assertThrows(IllegalArgumentException.class, () -> UUIDHex.parse("3d4187e5556548a3899f0fcc365e708g"));
+        assertThrows(IllegalArgumentException.class, () -> UUIDHex.parse("3d4187e5-5565-48a3-899f00fcc365e7084"));
+        assertThrows(IllegalArgumentException.class, () -> UUIDHex.parse("3d4187e5556548a3899f0fcc365e708٣"));
+
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = UUID.randomUUID();
+            assertEquals(UUIDHex.parse(uuid.toString()), uuid);
+            assertEquals(UUIDHex.parse(uuid.toString().replace("-", "")), uuid);
+        }
+    }
+
+    @Test
+    public void formatTest() {
+        assertEquals(UUIDHex.toString(himajyun, false), "3d4187e5556548a3899f0fcc365e7084");
+        assertEquals(UUIDHex.toString(himajyun, true), himajyun.toString());
+
+        char[] chars = new char[40];
+        assertEquals(UUIDHex.format(himajyun, true, chars, 2), 38);
+        assertEquals(new String(chars, 2, 36), himajyun.toString());
+        byte[] bytes = new byte[32];
+        assertEquals(UUIDHex.format(himajyun, false, bytes, 0), 32);
+        assertEquals(new String(bytes, StandardCharsets.US_ASCII), "3d4187e5556548a3899f0fcc365e7084");
+        assertThrows(IndexOutOfBoundsException.class, () -> UUIDHex.format(himajyun, true, bytes, 0));
+
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = UUID.randomUUID();
+            assertEquals(UUIDHex.toString(uuid, true), uuid.toString());
+        }
+    }
+
+    // Manual benchmark, the result depends on the machine.
+    @Disabled
+    @Test
+    public void parseBenchmark() {
+        final int loop = 1_000_000;
+        String[] ids = new String[100];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUIDHex.toString(UUID.randomUUID(), false);
+        }
+        char[] buf = new char[32];
+        long sink = 0;
+        for (int i = 0; i < loop; i++) { // warm-up
+            sink += jdk(ids[i % ids.length]).length();
+            sink += UUIDHex.format(UUIDHex.parse(ids[i % ids.length]), false, buf, 0);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < loop; i++) {
+            sink += jdk(ids[i % ids.length]).length();
+        }
+        long jdk = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < loop; i++) {
+            sink += UUIDHex.format(UUIDHex.parse(ids[i % ids.length]), false, buf, 0);
+        }
+        long hex = System.nanoTime() - start;
+        // sink: keep the results used
+        System.out.printf("parse+format JDK: %.1f ns/op, UUIDHex: %.1f ns/op (%d)%n", jdk / (double) loop, hex / (double) loop, sink);
+    }
+
+    // JDK path
+    private static String jdk(String id) {
+        return UUID.fromString(id.substring(0, 8) + "-" + id.substring(8, 12) + "-" + id.substring(12, 16) + "-" + id.substring(16, 20) + "-" + id.substring(20))
+            .toString().replace("-", "");
+    }
+}
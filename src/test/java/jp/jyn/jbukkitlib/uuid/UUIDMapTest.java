@@ -0,0 +1,182 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UUIDMapTest {
+    private final static UUID NIL = new UUID(0, 0);
+
+    private static UUID[] pool(Random random, int size) {
+        UUID[] pool = new UUID[size];
+        for (int i = 0; i < size; i++) {
+            pool[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        pool[0] = NIL;
+        return pool;
+    }
+
+    @Test
+    public void randomTest() {
+        Random random = new Random(0);
+        UUID[] pool = pool(random, 2000);
+        Map<UUID, Integer> expected = new HashMap<>();
+        UUIDMap<Integer> actual = new UUIDMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            UUID key = pool[random.nextInt(pool.length)];
+            switch (random.nextInt(4)) {
+                case 0, 1 -> assertEquals(expected.put(key, i), actual.put(key, i));
+                case 2 -> assertEquals(expected.remove(key), actual.remove(key));
+                default -> assertEquals(expected.get(key), actual.get(key));
+            }
+            assertEquals(expected.size(), actual.size());
+        }
+
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+    }
+
+    @Test
+    public void iteratorTest() {
+        Random random = new Random(1);
+        UUIDMap<Integer> map = new UUIDMap<>();
+        for (UUID uuid : pool(random, 100)) {
+            map.put(uuid, 1);
+        }
+
+        Iterator<Map.Entry<UUID, Integer>> iterator = map.entrySet().iterator();
+        int count = 0;
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, Integer> entry = iterator.next();
+            if (count++ % 2 == 0) {
+                iterator.remove();
+            } else {
+                entry.setValue(2);
+            }
+        }
+
+        assertEquals(100, count);
+        assertEquals(50, map.size());
+        for (Integer value : map.values()) {
+            assertEquals(2, (int) value);
+        }
+    }
+
+    @Test
+    public void nilTest() {
+        UUIDMap<String> map = new UUIDMap<>();
+        assertNull(map.get(NIL));
+        assertFalse(map.containsKey(NIL));
+        map.put(NIL, "nil");
+        assertTrue(map.containsKey(0, 0));
+        assertEquals("nil", map.get(NIL));
+        assertEquals(1, map.size());
+        assertEquals("nil", map.remove(NIL));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void longMapTest() {
+        Random random = new Random(2);
+        UUID[] pool = pool(random, 1000);
+        Map<UUID, Long> expected = new HashMap<>();
+        UUIDLongMap actual = new UUIDLongMap(0, -1);
+
+        for (int i = 0; i < 100_000; i++) {
+            UUID key = pool[random.nextInt(pool.length)];
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals((long) expected.merge(key, 3L, Long::sum), actual.addTo(key, 3));
+                case 1 -> assertEquals(expected.containsKey(key) ? expected.remove(key) : -1L, actual.remove(key));
+                default -> assertEquals((long) expected.getOrDefault(key, -1L), actual.get(key));
+            }
+        }
+
+        assertEquals(expected.size(), actual.size());
+        actual.forEach((k, v) -> assertEquals((long) expected.get(k), v));
+    }
+
+    @Test
+    public void intMapTest() {
+        UUIDIntMap map = new UUIDIntMap();
+        UUID uuid = UUID.randomUUID();
+        assertEquals(0, map.get(uuid));
+        assertEquals(0, map.put(uuid, 5));
+        assertEquals(7, map.addTo(uuid, 2));
+        assertEquals(7, map.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+        assertTrue(map.isEmpty());
+    }
+
+    // Manual measurement, the estimate depends on the GC timing.
+    @Disabled
+    @Test
+    public void footprintTest() {
+        for (int size : new int[]{10_000, 1_000_000}) {
+            Random random = new Random(size);
+            UUID[] keys = new UUID[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = new UUID(random.nextLong(), random.nextLong());
+            }
+
+            // The keys of HashMap are retained, the others copy the bits (the key array is excluded from all).
+            // The small map is measured by multiple copies, the estimate by Runtime is too coarse for it.
+            int copies = 1_000_000 / size;
+            long hashMap = footprint(copies, () -> {
+                Map<UUID, Integer> map = new HashMap<>();
+                for (UUID key : keys) {
+                    map.put(new UUID(key.getMostSignificantBits(), key.getLeastSignificantBits()), 0);
+                }
+                return map;
+            });
+            long uuidMap = footprint(copies, () -> {
+                UUIDMap<Integer> map = new UUIDMap<>();
+                for (UUID key : keys) {
+                    map.put(key, 0);
+                }
+                return map;
+            });
+            long intMap = footprint(copies, () -> {
+                UUIDIntMap map = new UUIDIntMap();
+                for (UUID key : keys) {
+                    map.put(key, 0);
+                }
+                return map;
+            });
+
+            System.out.printf("%,d entries: HashMap<UUID, V>: %.1f bytes/entry, UUIDMap: %.1f bytes/entry, UUIDIntMap: %.1f bytes/entry%n",
+                size, hashMap / (double) size, uuidMap / (double) size, intMap / (double) size);
+        }
+    }
+
+    // Estimated retained heap per created object.
+    private static long footprint(int copies, Supplier<Object> supplier) {
+        Object[] objects = new Object[copies];
+        long before = usedMemory();
+        for (int i = 0; i < copies; i++) {
+            objects[i] = supplier.get();
+        }
+        long after = usedMemory();
+        assertNotNull(objects[copies - 1]); // keep reachable
+        return (after - before) / copies;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,120 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UUIDNameStoreTest {
+    @Test
+    public void semanticsTest() {
+        UUIDNameStore store = new UUIDNameStore();
+        Map<String, Optional<UUID>> names = store.nameToUUID();
+        Map<UUID, Optional<String>> uuids = store.uuidToName();
+
+        UUID uuid = UUID.randomUUID();
+        assertNull(names.put("himajyun", Optional.of(uuid)));
+        assertNull(uuids.put(uuid, Optional.of("HimaJyun")));
+        // case-insensitive, no lower case copy
+        assertEquals(names.get("HIMAJYUN"), Optional.of(uuid));
+        assertEquals(uuids.get(uuid), Optional.of("HimaJyun"));
+        assertEquals(names.keySet().iterator().next(), "HimaJyun");
+        // the lower case bytes are garbage until compaction
+        assertEquals(store.arenaSize(), 16);
+
+        // negative
+        assertNull(names.put("not-found", Optional.empty()));
+        assertEquals(names.get("Not-Found"), Optional.empty());
+        UUID unknown = UUID.randomUUID();
+        uuids.put(unknown, Optional.empty());
+        assertEquals(uuids.get(unknown), Optional.empty());
+        assertNull(names.get("other"));
+        assertNull(uuids.get(UUID.randomUUID()));
+
+        assertEquals(names.put("not-found", Optional.of(unknown)), Optional.empty());
+        assertEquals(names.remove("NOT-FOUND"), Optional.of(unknown));
+        assertFalse(names.containsKey("not-found"));
+        assertEquals(names.size(), 1);
+        assertEquals(uuids.size(), 2);
+
+        // existing entries are kept
+        assertEquals(names.putIfAbsent("HimaJyun", Optional.empty()), Optional.of(uuid));
+        assertEquals(uuids.putIfAbsent(uuid, Optional.of("old")), Optional.of("HimaJyun"));
+        // only existing entries are replaced
+        assertNull(names.replace("other", Optional.empty()));
+        assertFalse(names.containsKey("other"));
+        assertEquals(uuids.replace(unknown, Optional.of("Unknown")), Optional.empty());
+        assertEquals(uuids.get(unknown), Optional.of("Unknown"));
+
+        // not Latin-1
+        assertNull(names.put("あ", Optional.of(uuid)));
+        assertFalse(names.containsKey("あ"));
+        // Latin-1 case folding
+        names.put("Àb", Optional.empty());
+        assertEquals(names.get("àB"), Optional.empty());
+    }
+
+    @Test
+    public void caseTest() {
+        UUIDNameStore store = new UUIDNameStore();
+        Map<String, Optional<UUID>> names = store.nameToUUID();
+        Map<UUID, Optional<String>> uuids = store.uuidToName();
+
+        // a renamed player may leave the old name with different case
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        names.put("himajyun", Optional.of(second));
+        uuids.put(first, Optional.of("himajyun"));
+        uuids.put(second, Optional.of("HimaJyun"));
+        assertEquals(uuids.get(first), Optional.of("himajyun"));
+        assertEquals(uuids.get(second), Optional.of("HimaJyun"));
+
+        uuids.put(first, Optional.of("HIMAJYUN"));
+        assertEquals(uuids.get(first), Optional.of("HIMAJYUN"));
+        assertEquals(uuids.get(second), Optional.of("HimaJyun"));
+        assertEquals(names.get("himajyun"), Optional.of(second));
+    }
+
+    @Test
+    public void compactTest() {
+        UUIDNameStore store = new UUIDNameStore();
+        Map<String, Optional<UUID>> names = store.nameToUUID();
+        Map<UUID, Optional<String>> uuids = store.uuidToName();
+        Map<String, UUID> expected = new HashMap<>();
+        Random random = new Random(0);
+
+        for (int i = 0; i < 100_000; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            String name = "player" + random.nextInt(5000);
+            names.put(name.toLowerCase(), Optional.of(uuid));
+            uuids.put(uuid, Optional.of(name));
+            UUID old = expected.put(name, uuid);
+            if (old != null) {
+                uuids.remove(old);
+            }
+            if (random.nextInt(4) == 0) {
+                String remove = "player" + random.nextInt(5000);
+                names.remove(remove);
+                UUID r = expected.remove(remove);
+                if (r != null) {
+                    uuids.remove(r);
+                }
+            }
+        }
+
+        assertEquals(names.size(), expected.size());
+        assertEquals(uuids.size(), expected.size());
+        for (Map.Entry<String, UUID> entry : expected.entrySet()) {
+            assertEquals(names.get(entry.getKey()), Optional.of(entry.getValue()));
+            assertEquals(uuids.get(entry.getValue()), Optional.of(entry.getKey()));
+        }
+        // The garbage is compacted, and the bytes are shared by both views.
+        int live = expected.keySet().stream().mapToInt(String::length).sum();
+        assertTrue(store.arenaSize() < live * 2, store.arenaSize() + " / " + live);
+    }
+}
@@ -0,0 +1,161 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import jp.jyn.jbukkitlib.cache.CacheFactory;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UUIDPrefetcherTest {
+    private final static UUID PLAYER = UUID.fromString("3d4187e5-5565-48a3-899f-0fcc365e7084");
+    private final static UUID FRIEND = UUID.fromString("0f4187e5-5565-48a3-899f-0fcc365e7084");
+    private final static UUID OWNER = UUID.fromString("1e4187e5-5565-48a3-899f-0fcc365e7084");
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final UUIDRegistry registry = new UUIDRegistry(plugin(), CacheFactory.INFINITY, executor);
+    // The tasks scheduled to the main thread, the test thread runs them.
+    private final List<Runnable> main = new ArrayList<>();
+    private final List<Runnable> async = new ArrayList<>();
+    private final UUIDPrefetcher prefetcher = new UUIDPrefetcher(plugin(), registry, r -> {
+        async.add(r);
+        r.run();
+    }, main::add);
+
+    @BeforeAll
+    public static void server() {
+        // Bukkit.getPlayer is called on the main thread.
+        TestServer.install();
+    }
+
+    private static Plugin plugin() {
+        Logger logger = Logger.getLogger(UUIDPrefetcherTest.class.getName());
+        logger.setLevel(Level.OFF); // the failing source is logged
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getName" -> "Test";
+                case "getLogger" -> logger;
+                default -> null;
+            });
+    }
+
+    /**
+     * Authoritative resolver knowing the given users.
+     */
+    private static class Resolver implements UUIDResolver {
+        private final Map<String, UUID> users = new HashMap<>();
+        private final List<Thread> threads = new ArrayList<>();
+
+        private Resolver user(String name, UUID uuid) {
+            users.put(name, uuid);
+            return this;
+        }
+
+        @Override
+        public int getCost() {
+            return 0;
+        }
+
+        @Override
+        public boolean isBatchSupported() {
+            return true;
+        }
+
+        @Override
+        public boolean isAuthoritative() {
+            return true;
+        }
+
+        @Override
+        public synchronized Map<String, UUID> getUUIDs(Set<String> names) {
+            threads.add(Thread.currentThread());
+            Map<String, UUID> result = new HashMap<>();
+            users.forEach((name, uuid) -> {
+                if (names.contains(name.toLowerCase())) {
+                    result.put(name, uuid);
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public synchronized Map<UUID, String> getNames(Set<UUID> uuids) {
+            threads.add(Thread.currentThread());
+            Map<UUID, String> result = new HashMap<>();
+            users.forEach((name, uuid) -> {
+                if (uuids.contains(uuid)) {
+                    result.put(uuid, name);
+                }
+            });
+            return result;
+        }
+    }
+
+    @Test
+    public void prefetchTest() throws InterruptedException {
+        Resolver resolver = new Resolver().user("Friend", FRIEND).user("Owner", OWNER);
+        registry.addResolver(resolver);
+        prefetcher.addNameSource(player -> {
+            assertEquals(PLAYER, player);
+            return List.of(FRIEND);
+        }).addUUIDSource(player -> List.of("owner", "unknown"));
+
+        prefetcher.prefetch(PLAYER);
+        assertEquals(1, async.size());
+        // The registry is not used until the main thread runs the task.
+        assertEquals(1, main.size());
+        assertTrue(resolver.threads.isEmpty());
+
+        main.remove(0).run();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        // The resolvers are called in the background.
+        assertEquals(2, resolver.threads.size());
+        assertFalse(resolver.threads.contains(Thread.currentThread()));
+
+        // cached
+        assertEquals(Optional.of("Friend"), registry.getName(FRIEND));
+        assertEquals(Optional.of("Owner"), registry.getName(OWNER));
+    }
+
+    @Test
+    public void emptyTest() {
+        prefetcher.addNameSource(player -> List.of())
+            .addUUIDSource(player -> null);
+
+        prefetcher.prefetch(PLAYER);
+        assertEquals(1, async.size());
+        // nothing to prefetch, the main thread is not used.
+        assertTrue(main.isEmpty());
+        executor.shutdown();
+    }
+
+    @Test
+    public void sourceFailureTest() throws InterruptedException {
+        registry.addResolver(new Resolver().user("Friend", FRIEND));
+        prefetcher.addNameSource(player -> {
+            throw new IllegalStateException("database is down");
+        }).addNameSource(player -> List.of(FRIEND));
+
+        prefetcher.prefetch(PLAYER);
+        assertEquals(1, main.size());
+        main.remove(0).run();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(Optional.of("Friend"), registry.getName(FRIEND));
+    }
+}
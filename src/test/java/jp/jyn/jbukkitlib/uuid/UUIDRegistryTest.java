@@ -0,0 +1,311 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import jp.jyn.jbukkitlib.cache.CacheFactory;
+import jp.jyn.jbukkitlib.cache.CacheStats;
+import jp.jyn.jbukkitlib.cache.StatsFactory;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UUIDRegistryTest {
+    private final static UUID ALICE = UUID.fromString("3d4187e5-5565-48a3-899f-0fcc365e7084");
+    private final static UUID BOB = UUID.fromString("0f4187e5-5565-48a3-899f-0fcc365e7084");
+    private final static UUID CAROL = UUID.fromString("1e4187e5-5565-48a3-899f-0fcc365e7084");
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // name to UUID, UUID to name
+    private final List<Map<?, ?>> caches = new ArrayList<>();
+    private final UUIDRegistry registry = new UUIDRegistry(plugin(), new CacheFactory() {
+        @Override
+        public <K, V> Map<K, V> create(boolean concurrency) {
+            Map<K, V> map = CacheFactory.INFINITY.create(concurrency);
+            caches.add(map);
+            return map;
+        }
+    }, executor);
+    private final List<String> calls = new ArrayList<>();
+
+    private static Plugin plugin() {
+        Logger logger = Logger.getLogger(UUIDRegistryTest.class.getName());
+        logger.setLevel(Level.OFF); // the failing resolver is logged
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getName" -> "Test";
+                case "getLogger" -> logger;
+                default -> null;
+            });
+    }
+
+    @BeforeAll
+    public static void server() {
+        TestServer.install();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Resolver knowing the given users, it records the calls.
+     */
+    private class Resolver implements UUIDResolver {
+        private final String id;
+        private final int cost;
+        private final boolean batch;
+        private final boolean authoritative;
+        private final Map<String, UUID> users = new HashMap<>();
+
+        private Resolver(String id, int cost, boolean batch, boolean authoritative) {
+            this.id = id;
+            this.cost = cost;
+            this.batch = batch;
+            this.authoritative = authoritative;
+        }
+
+        private Resolver(String id, int cost) {
+            this(id, cost, true, false);
+        }
+
+        private Resolver user(String name, UUID uuid) {
+            users.put(name, uuid);
+            return this;
+        }
+
+        @Override
+        public int getCost() {
+            return cost;
+        }
+
+        @Override
+        public boolean isBatchSupported() {
+            return batch;
+        }
+
+        @Override
+        public boolean isAuthoritative() {
+            return authoritative;
+        }
+
+        @Override
+        public Map<String, UUID> getUUIDs(Set<String> names) {
+            calls.add(id + names.size());
+            Map<String, UUID> result = new HashMap<>();
+            users.forEach((name, uuid) -> {
+                if (names.contains(name.toLowerCase())) {
+                    result.put(name, uuid);
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public Map<UUID, String> getNames(Set<UUID> uuids) {
+            calls.add(id + uuids.size());
+            Map<UUID, String> result = new HashMap<>();
+            users.forEach((name, uuid) -> {
+                if (uuids.contains(uuid)) {
+                    result.put(uuid, name);
+                }
+            });
+            return result;
+        }
+    }
+
+    @Test
+    public void costOrderTest() {
+        registry.addResolver(new Resolver("db", 100))
+            .addResolver(new Resolver("memory", 0))
+            .addResolver(new Resolver("file1", 10))
+            .addResolver(new Resolver("file2", 10));
+
+        Set<String> request = new HashSet<>(Set.of("alice"));
+        assertTrue(registry.resolveUUIDs(request).isEmpty());
+        assertEquals(Set.of("alice"), request);
+        // same cost: in the order they were added
+        assertEquals(List.of("memory1", "file11", "file21", "db1"), calls);
+    }
+
+    @Test
+    public void fallthroughTest() {
+        registry.addResolver(new Resolver("a", 0).user("Alice", ALICE))
+            .addResolver(new Resolver("b", 10).user("Bob", BOB).user("Alice", BOB));
+
+        Set<String> request = new HashSet<>(Set.of("alice", "bob", "carol"));
+        Map<String, Optional<UUID>> result = registry.resolveUUIDs(request);
+        assertEquals(Map.of("alice", Optional.of(ALICE), "bob", Optional.of(BOB)), result);
+        assertEquals(Set.of("carol"), request);
+        // only the remainder is passed to the next resolver
+        assertEquals(List.of("a3", "b2"), calls);
+
+        // not cached by the resolvers, the loaded value is cached by the loader.
+        assertTrue(caches.get(0).isEmpty());
+        calls.clear();
+        assertEquals(Optional.of(BOB), registry.getUUID("Bob"));
+        assertEquals(Optional.of(BOB), registry.getUUID("BOB"));
+        assertEquals(List.of("a1", "b1"), calls);
+    }
+
+    @Test
+    public void batchTest() {
+        registry.addResolver(new Resolver("single", 0, false, false))
+            .addResolver(new Resolver("batch", 10, true, false).user("Carol", CAROL));
+
+        Set<UUID> request = new HashSet<>(Set.of(ALICE, BOB, CAROL));
+        assertEquals(Map.of(CAROL, Optional.of("Carol")), registry.resolveNames(request));
+        assertEquals(List.of("single1", "single1", "single1", "batch3"), calls);
+        assertEquals(Set.of(ALICE, BOB), request);
+    }
+
+    @Test
+    public void authoritativeTest() {
+        registry.addResolver(new Resolver("offline", 0, true, true).user("Alice", ALICE))
+            .addResolver(new Resolver("never", 10));
+
+        Set<UUID> request = new HashSet<>(Set.of(ALICE, BOB));
+        Map<UUID, Optional<String>> result = registry.resolveNames(request);
+        assertEquals(Map.of(ALICE, Optional.of("Alice"), BOB, Optional.empty()), result);
+        assertTrue(request.isEmpty());
+        assertEquals(List.of("offline2"), calls);
+
+        // negative cache, the unknown user is not queried again
+        assertTrue(caches.get(1).isEmpty());
+        calls.clear();
+        assertEquals(Optional.empty(), registry.getName(BOB));
+        assertEquals(Optional.empty(), registry.getName(BOB));
+        assertEquals(Optional.of("Alice"), registry.getName(ALICE));
+        assertEquals(List.of("offline1", "offline1"), calls);
+
+        Set<String> names = new HashSet<>(Set.of("alice", "dave"));
+        assertEquals(Map.of("alice", Optional.of(ALICE), "dave", Optional.empty()), registry.resolveUUIDs(names));
+        assertTrue(names.isEmpty());
+    }
+
+    @Test
+    public void exceptionTest() {
+        UUIDResolver broken = new Resolver("broken", 0) {
+            @Override
+            public Map<UUID, String> getNames(Set<UUID> uuids) {
+                super.getNames(uuids);
+                throw new IllegalStateException("database is down");
+            }
+        };
+        registry.addResolver(broken).addResolver(new Resolver("next", 10).user("Alice", ALICE));
+
+        Set<UUID> request = new HashSet<>(Set.of(ALICE));
+        assertEquals(Map.of(ALICE, Optional.of("Alice")), registry.resolveNames(request));
+        assertEquals(List.of("broken1", "next1"), calls);
+
+        // removed
+        calls.clear();
+        registry.removeResolver(broken);
+        registry.resolveNames(new HashSet<>(Set.of(BOB)));
+        assertEquals(List.of("next1"), calls);
+    }
+
+    @Test
+    public void multipleNameTest() throws ExecutionException, InterruptedException {
+        registry.addResolver(new Resolver("offline", 0, true, true).user("Alice", ALICE));
+        registry.put(CAROL, "Carol");
+
+        assertEquals(Map.of(ALICE, "Alice", CAROL, "Carol"), registry.getMultipleNameAsync(List.of(ALICE, BOB, CAROL)).get());
+        assertEquals(List.of("offline2"), calls);
+        assertEquals(Map.of(ALICE, Optional.of("Alice"), BOB, Optional.empty(), CAROL, Optional.of("Carol")), caches.get(1));
+    }
+
+    @Test
+    public void statsTest() throws ExecutionException, InterruptedException {
+        StatsFactory factory = new StatsFactory(CacheFactory.INFINITY);
+        UUIDRegistry registry = new UUIDRegistry(plugin(), factory, executor)
+            .addResolver(new Resolver("offline", 0, true, true).user("Alice", ALICE));
+
+        // one miss and one load per request
+        assertEquals(Optional.of("Alice"), registry.getName(ALICE));
+        assertEquals(Optional.empty(), registry.getNameAsync(BOB).get());
+        CacheStats stats = factory.stats();
+        assertEquals(0, stats.hitCount());
+        assertEquals(2, stats.missCount());
+        assertEquals(2, stats.loadCount());
+
+        assertEquals(Map.of(ALICE, "Alice"), registry.getMultipleNameAsync(List.of(ALICE, BOB, CAROL)).get());
+        assertEquals(Optional.of(ALICE), registry.getUUID("Alice"));
+        stats = factory.stats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(4, stats.missCount());
+        assertEquals(4, stats.loadCount());
+    }
+
+    @Test
+    public void renameTest() {
+        registry.put(ALICE, "Alice");
+        registry.put(BOB, "Bob");
+        assertEquals(Map.of("alice", Optional.of(ALICE), "bob", Optional.of(BOB)), caches.get(0));
+
+        // renamed, the old name is no longer this user.
+        registry.put(ALICE, "Alice2");
+        assertEquals(Map.of("alice2", Optional.of(ALICE), "bob", Optional.of(BOB)), caches.get(0));
+        // changed case only
+        registry.put(BOB, "BOB");
+        assertEquals(Map.of("alice2", Optional.of(ALICE), "bob", Optional.of(BOB)), caches.get(0));
+        assertEquals(Optional.of("BOB"), registry.getName(BOB));
+
+        // the old name has been taken by the other user, it is kept.
+        registry.put(ALICE, "Alice");
+        registry.put(CAROL, "Alice");
+        registry.put(ALICE, "Alice3");
+        assertEquals(Map.of("alice", Optional.of(CAROL), "alice3", Optional.of(ALICE), "bob", Optional.of(BOB)), caches.get(0));
+    }
+
+    @Test
+    public void loadRenameTest() {
+        registry.put(ALICE, "Alice");
+        registry.addResolver(new Resolver("a", 0).user("Alice2", ALICE));
+
+        assertEquals(Optional.of(ALICE), registry.getUUID("alice2"));
+        // the old name is evicted, the new name is cached by the loader.
+        assertEquals(Map.of("alice2", Optional.of(ALICE)), caches.get(0));
+        assertEquals(Map.of(ALICE, Optional.of("Alice2")), caches.get(1));
+    }
+
+    @Test
+    public void preloadTest() throws IOException, ExecutionException, InterruptedException {
+        // already renamed, usercache.json has not been updated yet.
+        registry.put(ALICE, "Alice2");
+
+        Path file = Files.createTempFile("usercache", ".json");
+        try {
+            Files.writeString(file, "[{\"name\":\"Alice\",\"uuid\":\"" + ALICE + "\",\"expiresOn\":\"9999-01-01 00:00:00 +0000\"}," +
+                "{\"name\":\"Bob\",\"uuid\":\"" + BOB + "\",\"expiresOn\":\"9999-01-01 00:00:00 +0000\"}," +
+                "{\"name\":\"Carol\",\"uuid\":\"" + CAROL + "\",\"expiresOn\":\"2000-01-01 00:00:00 +0000\"}]", StandardCharsets.UTF_8);
+            assertEquals(Integer.valueOf(2), registry.preloadUserCache(new UserCacheImporter(file)).get());
+        } finally {
+            Files.delete(file);
+        }
+
+        // the old name is not restored, the expired user is not imported.
+        assertEquals(Map.of("alice2", Optional.of(ALICE), "bob", Optional.of(BOB)), caches.get(0));
+        assertEquals(Map.of(ALICE, Optional.of("Alice2"), BOB, Optional.of("Bob")), caches.get(1));
+    }
+}
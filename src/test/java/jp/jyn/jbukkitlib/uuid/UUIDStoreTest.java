@@ -0,0 +1,89 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UUIDStoreTest {
+    private Path dir;
+    private Path file;
+
+    @BeforeEach
+    public void before() throws IOException {
+        dir = Files.createTempDirectory("uuidstore");
+        file = dir.resolve("uuid.dat");
+    }
+
+    @AfterEach
+    public void after() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    @Test
+    public void persistTest() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        try (UUIDStore store = new UUIDStore(file)) {
+            assertTrue(store.put(uuid, "Notch"));
+            assertFalse(store.put(UUID.randomUUID(), "12345678901234567"));
+            assertEquals("Notch", store.getName(uuid));
+            assertEquals(uuid, store.getUUID("notch"));
+        }
+
+        try (UUIDStore store = new UUIDStore(file)) {
+            assertEquals(1, store.size());
+            assertEquals("Notch", store.getName(uuid));
+            assertEquals(uuid, store.getUUID("NOTCH"));
+            assertNull(store.getUUID("jeb_"));
+        }
+    }
+
+    @Test
+    public void renameTest() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        try (UUIDStore store = new UUIDStore(file)) {
+            store.put(uuid, "old_name");
+            store.put(uuid, "new_name");
+            assertEquals("new_name", store.getName(uuid));
+            assertEquals(uuid, store.getUUID("new_name"));
+            assertNull(store.getUUID("old_name"));
+        }
+    }
+
+    @Test
+    public void compactTest() throws IOException {
+        UUID[] uuids = new UUID[100];
+        try (UUIDStore store = new UUIDStore(file)) {
+            for (int i = 0; i < uuids.length; i++) {
+                uuids[i] = UUID.randomUUID();
+            }
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < uuids.length; i++) {
+                    store.put(uuids[i], "user" + i + "_" + round);
+                }
+            }
+            // 5000 records -> 100 records
+            long before = Files.size(file);
+            store.compact();
+            assertEquals(100, store.size());
+            assertTrue(Files.size(file) <= before);
+            store.put(uuids[0], "after");
+        }
+
+        try (UUIDStore store = new UUIDStore(file)) {
+            assertEquals(100, store.size());
+            assertEquals("after", store.getName(uuids[0]));
+            assertEquals(uuids[1], store.getUUID("user1_49"));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package jp.jyn.jbukkitlib.uuid;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserCacheImporterTest {
+    private final static Instant NOW = Instant.parse("2020-01-01T00:00:00Z");
+
+    private final UUID himajyun = UUID.fromString("3d4187e5-5565-48a3-899f-0fcc365e7084");
+
+    private Path dir;
+    private Path file;
+
+    @BeforeEach
+    public void before() throws IOException {
+        dir = Files.createTempDirectory("usercache");
+        file = dir.resolve("usercache.json");
+    }
+
+    @AfterEach
+    public void after() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    @Test
+    public void readTest() throws IOException {
+        Map<UUID, String> result = new HashMap<>();
+        String json = "[{\"name\":\"HimaJyun\",\"uuid\":\"3d4187e5-5565-48a3-899f-0fcc365e7084\",\"expiresOn\":\"2021-01-01 00:00:00 +0900\"}," +
+            "{\"name\":\"broken\",\"uuid\":\"not-uuid\"},{\"name\":\"no-uuid\"}]";
+        assertEquals(UserCacheImporter.read(new StringReader(json), NOW, result::put), 1);
+        assertEquals(result, Map.of(himajyun, "HimaJyun"));
+
+        assertEquals(UserCacheImporter.read(new StringReader(""), NOW, result::put), 0);
+    }
+
+    @Test
+    public void expiresOnTest() throws IOException {
+        Map<UUID, String> result = new HashMap<>();
+        String json = "[{\"name\":\"HimaJyun\",\"uuid\":\"3d4187e5-5565-48a3-899f-0fcc365e7084\",\"expiresOn\":\"2020-01-01 09:00:01 +0900\"}," +
+            "{\"name\":\"expired\",\"uuid\":\"0f4187e5-5565-48a3-899f-0fcc365e7084\",\"expiresOn\":\"2020-01-01 08:59:59 +0900\"}," +
+            "{\"name\":\"broken\",\"uuid\":\"1e4187e5-5565-48a3-899f-0fcc365e7084\",\"expiresOn\":\"tomorrow\"}]";
+        assertEquals(UserCacheImporter.read(new StringReader(json), NOW, result::put), 1);
+        assertEquals(result, Map.of(himajyun, "HimaJyun"));
+    }
+
+    @Test
+    public void modifiedTest() throws IOException {
+        UserCacheImporter importer = new UserCacheImporter(file);
+        Map<UUID, String> result = new HashMap<>();
+        assertEquals(importer.importIfModified(result::put), -1); // not exists
+
+        UUID uuid = UUID.randomUUID();
+        Files.writeString(file, "[{\"name\":\"Notch\",\"uuid\":\"" + uuid + "\"}]", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1000));
+        assertEquals(importer.importIfModified(result::put), 1);
+        assertEquals(result.get(uuid), "Notch");
+        assertEquals(importer.importIfModified(result::put), -1);
+
+        Files.writeString(file, "[{\"name\":\"Notch\",\"uuid\":\"" + uuid + "\"},{\"name\":\"HimaJyun\",\"uuid\":\"" + himajyun + "\"}]", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(2000));
+        assertEquals(importer.importIfModified(result::put), 2);
+        assertEquals(result.get(himajyun), "HimaJyun");
+    }
+}